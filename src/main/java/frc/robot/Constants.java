@@ -63,8 +63,20 @@ public final class Constants {
     public static final double MAX_DIRECTION_SPEED = 4; // meters per second
     public static final double MAX_ROTATIONAL_SPEED = 2 * Math.PI; // radians per second
     public static final double MAX_ACCELERATION = 3.0; //m/s^2
+    // braking, e.g. sticks released: 4 m/s stops in 0.67 s / 1.3 m. Below carpet traction (~1 g);
+    // the tip limiter lowers it with the arm out
+    public static final double MAX_DECELERATION = 6.0; // m/s^2
+    public static final double MAX_ROTATIONAL_ACCELERATION = 4 * Math.PI; // radians per second^2
+    // MAXSwerve steering free speed is ~25 rad/s, leave headroom for the turning PID
+    public static final double MAX_STEERING_SPEED = 6 * Math.PI; // radians per second
+
+    // wheel contact points, center to center
+    public static final double WHEEL_WIDTH = 27; // distance between front/back wheels (in inches)
+    public static final double WHEEL_LENGTH = 27; // distance between left/right wheels (in inches)
 
     public static final double JOYSTICK_DEADBAND = 0.15;
+    // 0 = linear stick, 1 = fully cubic
+    public static final double JOYSTICK_EXPO = 0.7;
 
     public static final int DRIVING_MOTOR_CURRENT_LIMIT = 50; // amps 
     public static final int TURNING_MOTOR_CURRENT_LIMIT = 20;// amps
@@ -118,6 +130,87 @@ public final class Constants {
     }
   }
 
+  public static class TELEMETRY {
+    public static final int
+        FLUSH_PERIOD_MS = 20, // background publisher wakeup
+        HIGH = 20, // every loop - driver-critical values only
+        NORMAL = 100,
+        // channels set from updateTelemetry(), which runs at RATE_GROUPS.TELEMETRY_PERIOD
+        RATE_GROUP = 200,
+        LOW = 500; // slow-changing state / diagnostics
+    // stretch every period by this much when the FMS is attached
+    public static final int FMS_RATE_DIVISOR = 5;
+    // Field2d widget: robot pose rate and max points drawn per trajectory
+    public static final int
+        FIELD_POSE_PERIOD_MS = 50,
+        FIELD_TRAJECTORY_POINTS = 50;
+
+    private TELEMETRY() {
+    }
+  }
+
+  // TipLimiter's side view of the robot: three point masses (chassis, arm tube, telescope stage
+  // with wrist and claw). Every mass and length here is an ESTIMATE from CAD, not measured:
+  // weigh the assembled parts and measure the pivot on the robot before trusting the limits.
+  // Arm angle 0 is straight down, x is forward of the frame center.
+  public static class TIP_LIMITER {
+    public static final double
+        // arm swinging, carpet seams, bumps
+        SAFETY_FACTOR = 0.4,
+        // full stop from max speed at max deceleration
+        STOPPING_TIME = 1.5, // s
+        // chassis incl. battery and bumpers (estimate)
+        BASE_MASS = 45.0, // kg
+        BASE_COG_HEIGHT = 0.15, // m (estimate)
+        // arm tube, CoG distance from the pivot (estimates)
+        ARM_MASS = 6.0, // kg
+        ARM_COG_RADIUS = 0.5, // m
+        // telescope stage + wrist + claw, CoG distance from the pivot when retracted (estimates)
+        TELESCOPE_MASS = 6.0, // kg
+        TELESCOPE_COG_RADIUS = 0.7, // m
+        // arm pivot, relative to the frame center on the floor (estimates)
+        PIVOT_X = -0.15, // m
+        PIVOT_HEIGHT = 1.0; // m
+
+    private TIP_LIMITER() {
+    }
+  }
+
+  // TimedRobot.addPeriodic groups (see RateGroup). Offsets spread them across the 20 ms main
+  // loop, which runs at offset 0 and owns the drivetrain and the command scheduler.
+  public static class RATE_GROUPS {
+    public static final double
+        MAIN_BUDGET_MS = 10,
+        LEDS_PERIOD = 0.1, // 10 Hz
+        LEDS_OFFSET = 0.015,
+        LEDS_BUDGET_MS = 1,
+        TELEMETRY_PERIOD = 0.2, // 5 Hz
+        TELEMETRY_OFFSET = 0.0175,
+        TELEMETRY_BUDGET_MS = 2,
+        // ParallelRefresh stages slower than this count as overruns
+        REFRESH_TIMEOUT_MS = 5;
+    // refresh the drivetrain and superstructure on worker threads. Off until "Parallel Refresh"
+    // shows the stage beating its serial equivalent on the robot, Phaser wake-ups included.
+    public static final boolean PARALLEL_REFRESH = false;
+
+    private RATE_GROUPS() {
+    }
+  }
+
+  // ThreadManager. The roboRIO has two cores, 0 and 1.
+  public static class THREADS {
+    public static final int
+        // real-time (SCHED_FIFO), 1-99; kept below the HAL's own RT threads. NetworkTables threads are
+        // normal (SCHED_OTHER), so any RT priority preempts them: if the robot loop or a Refresh
+        // worker overruns, NT on that core is starved until it yields.
+        CONTROL_PRIORITY = 15,
+        CONTROL_CORE = 1,
+        BACKGROUND_CORE = 0;
+
+    private THREADS() {
+    }
+  }
+
   public static class CTRE {
     public static final int PRIMARY_PID_LOOP = 0;
     public static final int AUX_PID_LOOP = 1;
@@ -8,6 +8,12 @@ import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.Constants.RATE_GROUPS;
+import frc.robot.util.BootTracer;
+import frc.robot.util.RateGroup;
+import frc.robot.util.Telemetry;
+import frc.robot.util.ThreadManager;
+import frc.robot.util.TunableNumber;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -18,6 +24,9 @@ import edu.wpi.first.wpilibj2.command.CommandScheduler;
 public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
+  // times robotPeriodic: inputs, tunables, and the scheduler (commands, drivetrain)
+  private RateGroup m_mainLoop;
+  private ThreadManager.LatencyMonitor m_mainLatency;
 
   /**
    * This function is run when the robot is first started up and should be used for any
@@ -25,9 +34,20 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotInit() {
+    long robotInitStart = BootTracer.start();
+    // real-time priority on its own core, ahead of NT, telemetry and path generation
+    BootTracer.trace("Thread setup", ThreadManager::makeControlThread);
+    m_mainLatency = ThreadManager.monitor("Main", kDefaultPeriod);
     // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
     // autonomous chooser on the dashboard.
-    m_robotContainer = new RobotContainer();
+    m_robotContainer = BootTracer.trace("RobotContainer", RobotContainer::new);
+    m_mainLoop = new RateGroup("Main", kDefaultPeriod, 0, RATE_GROUPS.MAIN_BUDGET_MS, this::runMainLoop);
+    m_robotContainer.scheduleRateGroups(this);
+    // subsystems have registered their dashboard channels by now
+    Telemetry.start();
+    BootTracer.end("robotInit", robotInitStart);
+    // writes /home/lvuser/boot_trace.json
+    BootTracer.finish();
   }
 
   /**
@@ -39,6 +59,22 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    m_mainLatency.tick();
+    m_mainLoop.run();
+    if (DriverStation.isAutonomousEnabled()) {
+      // the first second of auton vs. steady state; see WarmUp
+      m_robotContainer.getWarmUp().recordAutonLoop(m_mainLoop.getLastMillis());
+    }
+  }
+
+  private void runMainLoop() {
+    // One DriverStation read per loop; every trigger and axis supplier uses this snapshot
+    m_robotContainer.refreshInputs();
+    // dashboard edits to gains/presets/thresholds, before anything uses them this loop
+    TunableNumber.applyChanges();
+    // drivetrain and superstructure sensors; commands and periodic() use these
+    m_robotContainer.refreshSensors();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
@@ -53,11 +89,14 @@ public class Robot extends TimedRobot {
   @Override
   public void disabledPeriodic() {
     m_robotContainer.getAutonomous().updateDash();
+    // a few ms per loop until the auton code paths are compiled
+    m_robotContainer.getWarmUp().run();
   }
 
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   @Override
   public void autonomousInit() {
+    m_robotContainer.getWarmUp().startAutonTiming(m_mainLoop.getMeanMillis());
     Command autonCommand = m_robotContainer.getAutonomous().getAutonCommand();
     if (autonCommand != null){
       autonCommand.schedule();
@@ -86,6 +125,11 @@ public class Robot extends TimedRobot {
   public void testInit() {
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
+
+    Command testCommand = m_robotContainer.getTestCommand();
+    if (testCommand != null) {
+      testCommand.schedule();
+    }
   }
 
   /** This function is called periodically during test mode. */
@@ -6,7 +6,11 @@ package frc.robot;
 
 import frc.robot.Constants.DS_USB;
 import frc.robot.Constants.JOYSTICK_BUTTONS;
+import frc.robot.Constants.RATE_GROUPS;
 import frc.robot.auton.Autons;
+import frc.robot.auton.WarmUp;
+import frc.robot.commands.AutoTune;
+import frc.robot.commands.CharacterizationRoutine;
 import frc.robot.commands.drivetrain.SwerveOnJoysticks;
 import frc.robot.subsystems.GamePieceLEDs;
 import frc.robot.subsystems.GamePieceLEDs.LEDState;
@@ -16,16 +20,26 @@ import frc.robot.subsystems.arm.Wrist;
 import frc.robot.subsystems.arm.Telescope;
 import frc.robot.subsystems.arm.Wrist.WristPosition;
 import frc.robot.subsystems.drivetrain.Drivetrain;
+import frc.robot.util.BootTracer;
+import frc.robot.util.CANHealthMonitor;
+import frc.robot.util.HIDSnapshot;
+import frc.robot.util.ParallelRefresh;
+import frc.robot.util.RateGroup;
 
+import java.util.function.DoubleSupplier;
 import java.util.function.Supplier;
 
 
 
+import edu.wpi.first.wpilibj.Joystick;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.RunCommand;
-import edu.wpi.first.wpilibj2.command.button.CommandJoystick;
-import edu.wpi.first.wpilibj2.command.button.CommandXboxController; 
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 
 
@@ -38,8 +52,8 @@ import edu.wpi.first.wpilibj2.command.button.Trigger;
 public class RobotContainer {
   // The robot's subsystems and commands are defined here...
 
-  private CommandJoystick rightJoystick, leftJoystick;
-  private CommandXboxController gamepad;
+  // every trigger and axis below reads from this, refreshed once per loop by Robot
+  private HIDSnapshot inputs;
 
   private Trigger left1, left2, left3, left4, left5, left6, left7, left8, left9, left10, left11;
   private Trigger right1, right2, right3, right4, right5, right6, right7, right8, right9, right10, right11;
@@ -47,49 +61,67 @@ public class RobotContainer {
   gamepadStart, gamepadLeftStickButton, gamepadRightStickButton, gamepadLT, gamepadRT, gamepadPOVDown, gamepadPOVUpLeft, 
   gamepadPOVUp, gamepadPOVUpRight, gamepadPOVLeft, gamepadPOVRight, gamepadPOVDownRight, gamepadPOVDownLeft;
 
-  private Supplier<Double> gamepadLeftX, gamepadLeftY, gamepadRightX, gamepadRightY, rightJoystickX, rightJoystickY, leftJoystickX, leftJoystickY;
+  private Supplier<Double> gamepadLeftX, gamepadLeftY, gamepadRightX, gamepadRightY;
+  private DoubleSupplier rightJoystickX, rightJoystickY, leftJoystickX, leftJoystickY;
 
   private Autons auton;
+  private WarmUp warmUp;
   private GamePieceLEDs LEDs;
   private Arm arm;
   private Telescope telescope;
   private Claw claw;
   private Wrist wrist;
   private Drivetrain drivetrain;
+  // one worker per device group, before the scheduler every loop
+  private ParallelRefresh sensorRefresh;
+  // run in test mode
+  private SendableChooser<Command> testChooser;
 
 
   /** The container for the robot. Contains subsystems, OI devices, and commands. */
   public RobotContainer() {
 
     // buttons & bindings
-    leftJoystick = new CommandJoystick(DS_USB.LEFT_STICK);
-    rightJoystick = new CommandJoystick(DS_USB.RIGHT_STICK);
-    gamepad = new CommandXboxController(DS_USB.GAMEPAD);
-    configureBindings();
+    inputs = new HIDSnapshot(DS_USB.LEFT_STICK, DS_USB.RIGHT_STICK, DS_USB.GAMEPAD);
+    BootTracer.trace("Bindings", this::configureBindings);
     
     // subsystems & sensors
-    LEDs = new GamePieceLEDs();
+    LEDs = BootTracer.trace("GamePieceLEDs", GamePieceLEDs::new);
     
-    arm = new Arm();
+    arm = BootTracer.trace("Arm", Arm::new);
     arm.setDefaultCommand(new RunCommand(() -> arm.setSpeed(gamepadRightY), arm));
-    telescope = new Telescope();
+    telescope = BootTracer.trace("Telescope", Telescope::new);
     telescope.setDefaultCommand(new RunCommand(() -> telescope.setSpeed(gamepadRightX), telescope));
     // telescope.setDefaultCommand(
     //   new RunCommand(() -> telescope.setPosition(TelescopePosition.INSIDE), telescope)
     // );
     
-    wrist = new Wrist();
+    wrist = BootTracer.trace("Wrist", Wrist::new);
     // wrist.setDefaultCommand(new RunCommand(() -> wrist.moveWrist(gamepadLeftY), wrist));
     wrist.setDefaultCommand(new RunCommand(() -> wrist.setSpeed(() -> 0.0), wrist));
-    claw = new Claw();
+    claw = BootTracer.trace("Claw", Claw::new);
     // claw.setDefaultCommand(new RunCommand(() -> claw.moveClaw(gamepadLeftX), claw));
 
-    drivetrain = new Drivetrain();
+    drivetrain = BootTracer.trace("Drivetrain", Drivetrain::new);
     drivetrain.setDefaultCommand(new SwerveOnJoysticks(drivetrain, leftJoystickX, leftJoystickY, rightJoystickX));
     drivetrain.resetGyro();
+    // drive limits follow how far the arm reaches out (tip-over)
+    drivetrain.setSuperstructureSource(arm::getArmPosition, telescope::getTelescopePosition);
+
+    // no device is in both groups
+    sensorRefresh = new ParallelRefresh(RATE_GROUPS.PARALLEL_REFRESH, RATE_GROUPS.REFRESH_TIMEOUT_MS,
+        new String[] {"Drivetrain", "Superstructure"},
+        drivetrain::refreshSensors,
+        () -> {
+          arm.refreshSensors();
+          telescope.refreshSensors();
+          wrist.refreshSensors();
+          claw.refreshSensors();
+        });
 
     // wrist.setDefaultCommand(new RunCommand(() -> wrist.moveWrist(gamepadLeftY), wrist));
-    auton = new Autons(drivetrain, arm, telescope, wrist, claw, LEDs);
+    auton = BootTracer.trace("Autons", () -> new Autons(drivetrain, arm, telescope, wrist, claw, LEDs));
+    warmUp = BootTracer.trace("WarmUp", () -> new WarmUp(drivetrain.getModuleLocations()));
 
     gamepadA.onTrue(auton.getScorePieceMidCommand(arm, telescope, wrist));
     // gamepadB.onTrue(auton.getSubstationCommand(arm, telescope, wrist, claw));
@@ -128,7 +160,8 @@ public class RobotContainer {
     
     left6.onTrue(new RunCommand(() -> LEDs.lightUp(LEDState.CELEBRATION), LEDs));
     left8.onTrue(new InstantCommand(() -> wrist.calibrate(), wrist).ignoringDisable(true));
-    // left9.onTrue(new SwerveOnGyro(drivetrain, -1.75));
+    // hold to drive onto our charge station and balance
+    left9.whileTrue(auton.getChargeStationAlignCommand());
   
     // in honor of resetTurret
     left10.onTrue(new InstantCommand(() -> drivetrain.resetGyro(), drivetrain).ignoringDisable(true));
@@ -136,6 +169,9 @@ public class RobotContainer {
 
     right1.onTrue(new RunCommand(() -> claw.open(), claw));
     
+    // hold to line up on the nearest node/substation for the selected game piece
+    right2.whileTrue(auton.getAutoAlignCommand());
+
     right3.onTrue(new RunCommand(() -> LEDs.lightUp(LEDState.YELLOW), LEDs));
     
     right4.onTrue(new RunCommand(() -> wrist.setPosition(WristPosition.LEVEL), wrist));
@@ -143,7 +179,40 @@ public class RobotContainer {
    
     right10.onTrue(new RunCommand(() -> wrist.setSpeed(() -> 0.0), wrist));
     right11.onTrue(new InstantCommand(() -> drivetrain.joyDrive(0.0, 0.0, 0.0), drivetrain));
-    
+
+    BootTracer.trace("Test chooser", this::setTestChooser);
+  }
+
+  /**
+   * Feedforward characterization and position loop auto-tuning, picked on the dashboard and run
+   * when test mode is enabled.
+   *
+   * Characterization: ramp rate (V/s), step (V) and test lengths (s) keep each mechanism inside
+   * its travel. The drive needs ~5 m of clear floor, the arm starts hanging down, the telescope
+   * starts retracted with the arm held level.
+   *
+   * Auto-tune: setpoint, relay output, hysteresis and max excursion in each loop's units,
+   * centered in the travel.
+   */
+  private void setTestChooser() {
+    testChooser = new SendableChooser<Command>();
+    testChooser.setDefaultOption("NONE", null);
+    testChooser.addOption("Characterize Drive",
+      CharacterizationRoutine.fullSequence(drivetrain.getDriveCharacterization(), 1.0, 6.0, 4.0, 1.5, drivetrain));
+    testChooser.addOption("Characterize Steering",
+      CharacterizationRoutine.fullSequence(drivetrain.getSteerCharacterization(), 0.5, 3.0, 6.0, 2.0, drivetrain));
+    testChooser.addOption("Characterize Arm",
+      CharacterizationRoutine.fullSequence(arm, 0.25, 2.0, 6.0, 1.0, arm));
+    // closed-loop hold on the arm where it is, so gravity along the telescope stays put; requiring
+    // the arm keeps anything else from commanding it meanwhile
+    testChooser.addOption("Characterize Telescope",
+      new InstantCommand(() -> arm.holdTuningPosition(arm.getArmPosition()), arm)
+        .andThen(CharacterizationRoutine.fullSequence(telescope, 0.5, 3.0, 4.0, 0.75, telescope, arm)));
+    testChooser.addOption("Auto-Tune Arm", new AutoTune(arm, arm, 45.0, 0.1, 1.0, 20.0));
+    testChooser.addOption("Auto-Tune Telescope", new AutoTune(telescope, telescope, 6.5, 0.15, 0.25, 5.0));
+    testChooser.addOption("Auto-Tune Wrist", new AutoTune(wrist, wrist, 0.0, 0.2, 1.5, 30.0));
+    testChooser.addOption("Auto-Tune Claw", new AutoTune(claw, claw, 40.0, 0.2, 2.0, 30.0));
+    SmartDashboard.putData("Test Routine", testChooser);
   }
 
   /**
@@ -158,65 +227,91 @@ public class RobotContainer {
   private void configureBindings() {
     // Schedule `ExampleCommand` when `exampleCondition` changes to `true`
 
-        left1 = leftJoystick.button(JOYSTICK_BUTTONS.BTN1);
-        left2 = leftJoystick.button(JOYSTICK_BUTTONS.BTN2);
-        left3 = leftJoystick.button(JOYSTICK_BUTTONS.BTN3);
-        left4 = leftJoystick.button(JOYSTICK_BUTTONS.BTN4);
-        left5 = leftJoystick.button(JOYSTICK_BUTTONS.BTN5);
-        left6 = leftJoystick.button(JOYSTICK_BUTTONS.BTN6);
-        left7 = leftJoystick.button(JOYSTICK_BUTTONS.BTN7);
-        left8 = leftJoystick.button(JOYSTICK_BUTTONS.BTN8);
-        left9 = leftJoystick.button(JOYSTICK_BUTTONS.BTN9);
-        left10 = leftJoystick.button(JOYSTICK_BUTTONS.BTN10);
-        left11 = leftJoystick.button(JOYSTICK_BUTTONS.BTN11);
-
-        right1 = rightJoystick.button(JOYSTICK_BUTTONS.BTN1);
-        right2 = rightJoystick.button(JOYSTICK_BUTTONS.BTN2);
-        right3 = rightJoystick.button(JOYSTICK_BUTTONS.BTN3);
-        right4 = rightJoystick.button(JOYSTICK_BUTTONS.BTN4);
-        right5 = rightJoystick.button(JOYSTICK_BUTTONS.BTN5);
-        right6 = rightJoystick.button(JOYSTICK_BUTTONS.BTN6);
-        right7 = rightJoystick.button(JOYSTICK_BUTTONS.BTN7);
-        right8 = rightJoystick.button(JOYSTICK_BUTTONS.BTN8);
-        right9 = rightJoystick.button(JOYSTICK_BUTTONS.BTN9);
-        right10 = rightJoystick.button(JOYSTICK_BUTTONS.BTN10);
-        right11 = rightJoystick.button(JOYSTICK_BUTTONS.BTN11);
-
-        gamepadA = gamepad.a();
-        gamepadB = gamepad.b();
-        gamepadX = gamepad.x();
-        gamepadY = gamepad.y();
-        gamepadRB = gamepad.rightBumper();
-        gamepadLB = gamepad.leftBumper();
-        gamepadBack = gamepad.back();
-        gamepadStart = gamepad.start();
-        gamepadLeftStickButton = gamepad.leftStick();
-        gamepadRightStickButton = gamepad.rightStick();
-        gamepadLT = gamepad.leftTrigger();
-        gamepadRT = gamepad.rightTrigger();
+        left1 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN1);
+        left2 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN2);
+        left3 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN3);
+        left4 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN4);
+        left5 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN5);
+        left6 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN6);
+        left7 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN7);
+        left8 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN8);
+        left9 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN9);
+        left10 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN10);
+        left11 = inputs.button(DS_USB.LEFT_STICK, JOYSTICK_BUTTONS.BTN11);
+
+        right1 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN1);
+        right2 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN2);
+        right3 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN3);
+        right4 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN4);
+        right5 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN5);
+        right6 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN6);
+        right7 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN7);
+        right8 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN8);
+        right9 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN9);
+        right10 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN10);
+        right11 = inputs.button(DS_USB.RIGHT_STICK, JOYSTICK_BUTTONS.BTN11);
+
+        gamepadA = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kA.value);
+        gamepadB = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kB.value);
+        gamepadX = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kX.value);
+        gamepadY = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kY.value);
+        gamepadRB = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kRightBumper.value);
+        gamepadLB = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kLeftBumper.value);
+        gamepadBack = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kBack.value);
+        gamepadStart = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kStart.value);
+        gamepadLeftStickButton = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kLeftStick.value);
+        gamepadRightStickButton = inputs.button(DS_USB.GAMEPAD, XboxController.Button.kRightStick.value);
+        gamepadLT = inputs.axisGreaterThan(DS_USB.GAMEPAD, XboxController.Axis.kLeftTrigger.value, 0.5);
+        gamepadRT = inputs.axisGreaterThan(DS_USB.GAMEPAD, XboxController.Axis.kRightTrigger.value, 0.5);
         
-        gamepadPOVDown = gamepad.povDown();
-        gamepadPOVUpLeft = gamepad.povUpLeft();
-        gamepadPOVUp = gamepad.povUp();
-        gamepadPOVUpRight = gamepad.povUpRight();
-        gamepadPOVLeft = gamepad.povLeft();
-        gamepadPOVRight = gamepad.povRight();
-        gamepadPOVDownRight = gamepad.povDownRight();
-        gamepadPOVDownLeft = gamepad.povDownLeft();
-
-        gamepadLeftX = () -> gamepad.getLeftX();
-        gamepadRightX = () -> gamepad.getRightX();
-        gamepadLeftY = () -> -gamepad.getLeftY();
-        gamepadRightY = () -> -gamepad.getRightY();
-
-        leftJoystickX = () -> leftJoystick.getX();
-        leftJoystickY = () -> leftJoystick.getY();
-        rightJoystickX = () -> rightJoystick.getX();
-        rightJoystickY = () -> rightJoystick.getY();
+        gamepadPOVDown = inputs.pov(DS_USB.GAMEPAD, 180);
+        gamepadPOVUpLeft = inputs.pov(DS_USB.GAMEPAD, 315);
+        gamepadPOVUp = inputs.pov(DS_USB.GAMEPAD, 0);
+        gamepadPOVUpRight = inputs.pov(DS_USB.GAMEPAD, 45);
+        gamepadPOVLeft = inputs.pov(DS_USB.GAMEPAD, 270);
+        gamepadPOVRight = inputs.pov(DS_USB.GAMEPAD, 90);
+        gamepadPOVDownRight = inputs.pov(DS_USB.GAMEPAD, 135);
+        gamepadPOVDownLeft = inputs.pov(DS_USB.GAMEPAD, 225);
+
+        gamepadLeftX = () -> inputs.getAxis(DS_USB.GAMEPAD, XboxController.Axis.kLeftX.value);
+        gamepadRightX = () -> inputs.getAxis(DS_USB.GAMEPAD, XboxController.Axis.kRightX.value);
+        gamepadLeftY = () -> -inputs.getAxis(DS_USB.GAMEPAD, XboxController.Axis.kLeftY.value);
+        gamepadRightY = () -> -inputs.getAxis(DS_USB.GAMEPAD, XboxController.Axis.kRightY.value);
+
+        leftJoystickX = () -> inputs.getAxis(DS_USB.LEFT_STICK, Joystick.AxisType.kX.value);
+        leftJoystickY = () -> inputs.getAxis(DS_USB.LEFT_STICK, Joystick.AxisType.kY.value);
+        rightJoystickX = () -> inputs.getAxis(DS_USB.RIGHT_STICK, Joystick.AxisType.kX.value);
+        rightJoystickY = () -> inputs.getAxis(DS_USB.RIGHT_STICK, Joystick.AxisType.kY.value);
 
 
   }
 
+  /** Capture this loop's joystick/gamepad state. Must run before the scheduler polls triggers. */
+  public void refreshInputs() {
+    inputs.refresh();
+  }
+
+  /** Read every subsystem's sensors, drivetrain and superstructure. Before the scheduler. */
+  public void refreshSensors() {
+    sensorRefresh.run();
+  }
+
+  /**
+   * Work that doesn't need the scheduler's 20 ms loop, each group at its own rate on the main
+   * thread. Sensors and control stay in the main loop: refreshSensors() before the scheduler,
+   * whose commands set the superstructure and drivetrain setpoints. Call once from robotInit.
+   */
+  public void scheduleRateGroups(TimedRobot robot) {
+    new RateGroup("LEDs", RATE_GROUPS.LEDS_PERIOD, RATE_GROUPS.LEDS_OFFSET, RATE_GROUPS.LEDS_BUDGET_MS,
+        LEDs::update)
+      .schedule(robot);
+    new RateGroup("Telemetry", RATE_GROUPS.TELEMETRY_PERIOD, RATE_GROUPS.TELEMETRY_OFFSET,
+        RATE_GROUPS.TELEMETRY_BUDGET_MS,
+        drivetrain::updateTelemetry, arm::updateTelemetry, telescope::updateTelemetry,
+        wrist::updateTelemetry, claw::updateTelemetry, CANHealthMonitor::update)
+      .schedule(robot);
+  }
+
   /**
    * Use this to pass the autonomous command to the main {@link Robot} class.
    *
@@ -226,4 +321,14 @@ public class RobotContainer {
     // An example command will be run in autonomous
     return auton;
   }
+
+  /** Auton code paths, JIT-compiled while disabled. */
+  public WarmUp getWarmUp() {
+    return warmUp;
+  }
+
+  /** @return the routine selected to run in test mode, or null */
+  public Command getTestCommand() {
+    return testChooser.getSelected();
+  }
 }
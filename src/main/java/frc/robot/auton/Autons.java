@@ -1,18 +1,16 @@
 package frc.robot.auton;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
-import com.pathplanner.lib.PathConstraints;
 import com.pathplanner.lib.PathPlanner;
 import com.pathplanner.lib.PathPlannerTrajectory;
 import com.pathplanner.lib.PathPoint;
-import com.pathplanner.lib.commands.PPSwerveControllerCommand;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
@@ -21,10 +19,15 @@ import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 import edu.wpi.first.wpilibj2.command.ParallelDeadlineGroup;
+import edu.wpi.first.wpilibj2.command.ProxyCommand;
 import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
 import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
-import frc.robot.commands.drivetrain.SwerveOnGyro;
+import frc.robot.auton.TrajectoryConstraints.Superstructure;
+import frc.robot.commands.drivetrain.AutoBalance;
+import frc.robot.commands.drivetrain.DriveToPose;
+import frc.robot.commands.drivetrain.FollowGeneratedPath;
+import frc.robot.commands.drivetrain.FollowSampledTrajectory;
 import frc.robot.subsystems.GamePieceLEDs;
 import frc.robot.subsystems.GamePieceLEDs.LEDState;
 import frc.robot.subsystems.arm.Arm;
@@ -36,6 +39,8 @@ import frc.robot.subsystems.arm.Claw.ClawPosition;
 import frc.robot.subsystems.arm.Telescope.TelescopePosition;
 import frc.robot.subsystems.arm.Wrist.WristPosition;
 import frc.robot.subsystems.drivetrain.Drivetrain;
+import frc.robot.util.BootTracer;
+import frc.robot.util.Telemetry;
 
 
 public class Autons {
@@ -46,17 +51,23 @@ public class Autons {
     private PathPoint currentSelectedAuton;
     private PathPoint currentSelectedPose;
     private AutonTypes currentSelectedAutonType;
-    private PathConstraints pathConstraints;
+    private TrajectoryConstraints trajectoryConstraints;
     private PIDController turningPIDController;
     private PIDController xController, yController;
     private Command autonCommand;
     private KnownLocations knownLocations;
+    private PathGenerationService pathService;
+    private FieldTargets fieldTargets;
+    private FieldNavGraph navGraph;
+    // every AutoBalance we build shares it
+    private Telemetry.StringChannel balanceTelemetry;
 
     private Alliance allianceColor;
 
     private final double TURNING_P_VAL = 1;
     private final double X_P_VAL = 1, Y_P_VAL = 1;
-    private final double MAX_DIRECTIONAL_SPEED = 2, MAX_ACCELERATION = 2.0;
+    // follower samples one point per robot loop
+    private final double TRAJECTORY_DT = 0.02;
 
     private Drivetrain drivetrain;
     private Arm arm;
@@ -83,13 +94,18 @@ public class Autons {
         this.wrist = wrist;
         this.claw = claw;
 
-        this.pathConstraints = new PathConstraints(MAX_DIRECTIONAL_SPEED, MAX_ACCELERATION); 
+        // first use of PathPlanner's classes
+        this.trajectoryConstraints = BootTracer.trace("TrajectoryConstraints (PathPlanner)", TrajectoryConstraints::autonDefaults);
         turningPIDController = new PIDController(TURNING_P_VAL, 0, 0);
         turningPIDController.enableContinuousInput(-Math.PI, Math.PI);
         xController = new PIDController(X_P_VAL, 0, 0);
         yController = new PIDController(Y_P_VAL, 0, 0);
+        navGraph = BootTracer.trace("FieldNavGraph", FieldNavGraph::new);
+        pathService = new PathGenerationService(TRAJECTORY_DT, navGraph, trajectoryConstraints);
+        fieldTargets = BootTracer.trace("FieldTargets", FieldTargets::new);
+        balanceTelemetry = AutoBalance.stateChannel();
         
-        setChoosers();
+        BootTracer.trace("Auton choosers", this::setChoosers);
 
         this.LEDs = LEDs;
     }
@@ -133,13 +149,12 @@ public class Autons {
         
         if (currentSelectedAuton == KnownLocations.DO_NOTHING) {
             SmartDashboard.putBoolean("isDoNothing", true);
-            drivetrain.setTrajectorySmartdash(new Trajectory(), "traj1");
-            drivetrain.setTrajectorySmartdash(new Trajectory(), "traj2");
+            drivetrain.clearTrajectorySmartdash("traj1");
+            drivetrain.clearTrajectorySmartdash("traj2");
             return getHomeCommand(arm, telescope, wrist, claw, LEDs);
         }
 
        
-        List<PathPoint> waypoints = List.of();
         PathPoint finalPose = currentSelectedPose;
         
         // if (this.currentSelectedAutonType == AutonTypes.CHARGING_STATION && currentSelectedPose == knownLocations.START_MIDDLE_CONE) {
@@ -156,23 +171,19 @@ public class Autons {
         //             new RunCommand(() -> wrist.setSpeed(() -> 0.0), wrist)
         //         ),
         //         new ParallelCommandGroup(
-        //             new SwerveOnGyro(drivetrain, drivetrain.ROLL_WHEN_LEVEL),
+        //             new AutoBalance(drivetrain, 0, balanceTelemetry),
         //             new RunCommand(() -> wrist.setSpeed(() -> 0.0), wrist)
         //         )
         //     );
         // }
 
         if (currentSelectedPose == knownLocations.START_TOPMOST || currentSelectedPose == knownLocations.START_TOP_SECOND) {
-            waypoints = Arrays.asList(knownLocations.WAYPOINT_TOP);
-
             if (currentSelectedPose == knownLocations.START_TOPMOST) {
                 finalPose = knownLocations.START_TOP_SECOND;
             } else {
                 finalPose = knownLocations.START_TOPMOST;
             }
         } else if (currentSelectedPose == knownLocations.START_BOTTOM_SECOND || currentSelectedPose == knownLocations.START_BOTTOMMOST) {
-            waypoints = Arrays.asList(knownLocations.WAYPOINT_BOTTOM);
-
             if (currentSelectedPose == knownLocations.START_BOTTOMMOST) {
                 finalPose = knownLocations.START_BOTTOM_SECOND;
             } else {
@@ -180,17 +191,20 @@ public class Autons {
             }
         } else if (currentSelectedPose == knownLocations.START_MIDDLE_CONE) {
             currentSelectedAuton = knownLocations.CHARGING_MIDDLE_CONE;
-            waypoints = List.of();
         }
 
+        // route around the charge station/grid/barrier from the nav graph
+        List<PathPoint> waypoints = navGraph.getWaypoints(currentSelectedPose, currentSelectedAuton);
+
         // whether we are leaving community or scoring 2nd piece, 1st trajectory is the same
         PathPlannerTrajectory traj1 = generateSwerveTrajectory(currentSelectedPose, waypoints, currentSelectedAuton);
         drivetrain.setTrajectorySmartdash(traj1, "traj1");
-        Command firstSwerveCommand = generateSwerveCommand(traj1);
 
         if (this.currentSelectedAutonType == AutonTypes.LEAVE_COMMUNITY) {
+            // arm is tucked in before we drive
+            Command firstSwerveCommand = generateSwerveCommand(traj1, Superstructure.STOWED);
             // reset SDB widget
-            drivetrain.setTrajectorySmartdash(new Trajectory(), "traj2");
+            drivetrain.clearTrajectorySmartdash("traj2");
             
             return new SequentialCommandGroup(
                 getHomeCommand(arm, telescope, wrist, claw, LEDs).until(() -> arm.isAtPosition(ArmPosition.INSIDE)),
@@ -202,9 +216,11 @@ public class Autons {
         }
 
         if (this.currentSelectedAutonType == AutonTypes.SCORE_2ND_PIECE) {
-            PathPlannerTrajectory traj2 = generateSwerveTrajectory(currentSelectedAuton, List.of(), finalPose);
+            PathPlannerTrajectory traj2 = generateSwerveTrajectory(currentSelectedAuton, navGraph.getWaypoints(currentSelectedAuton, finalPose), finalPose);
             drivetrain.setTrajectorySmartdash(traj2, "traj2");
-            Command secondSwerveCommand = generateSwerveCommand(traj2);
+            // bulldozing on the way out, tucking in on the way back
+            Command firstSwerveCommand = generateSwerveCommand(traj1, Superstructure.FLOOR);
+            Command secondSwerveCommand = generateSwerveCommand(traj2, Superstructure.STOWED);
 
             return new SequentialCommandGroup(
                 getHomeCommand(arm, telescope, wrist, claw, LEDs).until(() -> arm.isAtPosition(ArmPosition.INSIDE)),
@@ -242,7 +258,7 @@ public class Autons {
             //             new RunCommand(() -> wrist.setSpeed(() -> 0.0), wrist)
             //         ),
             //         new ParallelCommandGroup(
-            //             new SwerveOnGyro(drivetrain, drivetrain.ROLL_WHEN_LEVEL),
+            //             new AutoBalance(drivetrain, 0, balanceTelemetry),
             //             new RunCommand(() -> wrist.setSpeed(() -> 0.0), wrist)
             //         )
             //     );
@@ -251,7 +267,8 @@ public class Autons {
             waypoints = List.of(knownLocations.WAYPOINT_CHARGING);
             PathPlannerTrajectory traj2 = generateSwerveTrajectory(currentSelectedAuton, waypoints, knownLocations.CHARGING_CENTER);
             drivetrain.setTrajectorySmartdash(traj2, "traj2");
-            Command secondSwerveCommand = generateSwerveCommand(traj2);
+            Command firstSwerveCommand = generateSwerveCommand(traj1, Superstructure.FLOOR);
+            Command secondSwerveCommand = generateSwerveCommand(traj2, Superstructure.STOWED);
 
             return new SequentialCommandGroup(
                 // new InstantCommand(() -> LEDs.lightUp(LEDState.CELEBRATION), LEDs),
@@ -275,15 +292,15 @@ public class Autons {
                 ),
                 new ParallelCommandGroup(
                     new RunCommand(() -> wrist.setSpeed(() -> 0.0), wrist),
-                    new SwerveOnGyro(drivetrain, drivetrain.ROLL_WHEN_LEVEL)
-                    // new RunCommand(() -> drivetrain.lockSwerve(), drivetrain)
+                    // the path already put us on the station
+                    new AutoBalance(drivetrain, 0, balanceTelemetry)
                 )  
             );
         }
 
         // Should never get here
-        drivetrain.setTrajectorySmartdash(new Trajectory(), "traj1");
-        drivetrain.setTrajectorySmartdash(new Trajectory(), "traj2");
+        drivetrain.clearTrajectorySmartdash("traj1");
+        drivetrain.clearTrajectorySmartdash("traj2");
         return getHomeCommand(arm, telescope, wrist, claw, LEDs);
 
     }
@@ -294,24 +311,97 @@ public class Autons {
         points.addAll(waypoints);
         points.add(finalPose);
         // Following passes an array to vararg (see: https://programming.guide/java/passing-list-to-vararg-method.html)
-        return PathPlanner.generatePath(pathConstraints, points);
+        // only the geometry is used for following, see generateSwerveCommand()
+        return PathPlanner.generatePath(trajectoryConstraints.getPathConstraints(), points);
         // return PathPlanner.generatePath(pathConstraints, initialPose, point2, points.toArray(new PathPoint[points.size()]));
     }
 
-    /** Generate the swerve-specfic command by building the desired trajectory */
-    public Command generateSwerveCommand(PathPlannerTrajectory trajectory) {
-        PPSwerveControllerCommand swerveControllerCommand = new PPSwerveControllerCommand(
-            trajectory,
-            () -> drivetrain.getPose(), // Functional interface to feed supplier
-            drivetrain.getKinematics(),
+    /**
+     * Generate the swerve-specfic command by building the desired trajectory.
+     * The trajectory is re-timed under the field/superstructure constraints and resampled
+     * once here, so following it never searches or allocates.
+     */
+    public Command generateSwerveCommand(PathPlannerTrajectory trajectory, Superstructure superstructure) {
+        return new FollowSampledTrajectory(
+            trajectoryConstraints.retime(trajectory, superstructure, TRAJECTORY_DT),
+            drivetrain,
             // Position controllers
             xController,
             yController,
-            turningPIDController,
-            (x) -> drivetrain.setModuleStates(x),
-            false,
-            drivetrain);
-        return swerveControllerCommand;
+            turningPIDController);
+    }
+
+    /**
+     * Drive from the current pose to a known location. The path is generated in the
+     * background when the command starts; the drivetrain keeps running its current command
+     * until the path is ready.
+     */
+    public Command generateOnTheFlyCommand(PathPoint target) {
+        return new FollowGeneratedPath(pathService, drivetrain, target, Superstructure.STOWED,
+            xController, yController, turningPIDController);
+    }
+
+    public PathGenerationService getPathService() {
+        return pathService;
+    }
+
+    /**
+     * Snap to the nearest target for the game piece we're holding (LEDs), then run its preset:
+     * grid node -> score high, no piece -> substation shelf pickup.
+     * The target is picked when the command starts, from the current pose. If the straight line
+     * there crosses an obstacle, follow a generated path around it first; DriveToPose only
+     * does the final snap.
+     */
+    public Command getAutoAlignCommand() {
+        return new ProxyCommand(() -> getAutoAlignCommand(FieldTargets.Filter.forGamePiece(LEDs.getGameState())));
+    }
+
+    /**
+     * Drive to the floor in front of the nearer ramp of our charge station, then let AutoBalance
+     * drive up and balance and lock. Backs on instead of turning around if we're facing away.
+     */
+    public Command getChargeStationAlignCommand() {
+        return new ProxyCommand(() -> getAutoAlignCommand(FieldTargets.Filter.CHARGE_STATION));
+    }
+
+    private Command getAutoAlignCommand(FieldTargets.Filter filter) {
+        int target = fieldTargets.nearest(DriverStation.getAlliance(), filter,
+            drivetrain.getPoseX(), drivetrain.getPoseY());
+        if (target < 0) {
+            return new InstantCommand();
+        }
+
+        Pose2d pose = fieldTargets.getPose(target);
+        // drive in the way the target faces (into the grid / shelf / station), even when backing on
+        Rotation2d approachHeading = pose.getRotation();
+        Command preset;
+        switch (fieldTargets.getType(target)) {
+            case SUBSTATION:
+                preset = getShelfPickupCommand(arm, telescope, wrist);
+                break;
+            case CHARGE_STATION:
+                // the staging pose faces the station
+                double approachDirection = 1;
+                if (Math.abs(MathUtil.angleModulus(
+                        drivetrain.getPoseRotationRadians() - pose.getRotation().getRadians())) > Math.PI / 2) {
+                    pose = new Pose2d(pose.getTranslation(), pose.getRotation().plus(Rotation2d.fromDegrees(180)));
+                    approachDirection = -1;
+                }
+                preset = new AutoBalance(drivetrain, approachDirection, balanceTelemetry);
+                break;
+            default:
+                preset = getScorePieceHighCommand(arm, telescope, wrist);
+                break;
+        }
+        Command snap = new DriveToPose(drivetrain, pose);
+        if (navGraph.plan(drivetrain.getPose().getTranslation(), pose.getTranslation()).isEmpty()) {
+            return new SequentialCommandGroup(snap, preset);
+        }
+        return new SequentialCommandGroup(
+            generateOnTheFlyCommand(new PathPoint(pose.getTranslation(), approachHeading, pose.getRotation())),
+            snap,
+            preset
+        );
     }
 
     /**
@@ -412,7 +502,7 @@ public class Autons {
             new ParallelCommandGroup(
                 new RunCommand(() -> arm.setPosition(ArmPosition.HIGH_SCORE), arm),
                 new SequentialCommandGroup(
-                    new WaitUntilCommand(() -> arm.getArmPosition() > ArmPosition.MID_SCORE.degreePos),
+                    new WaitUntilCommand(() -> arm.getArmPosition() > ArmPosition.MID_SCORE.getDegrees()),
                     new ParallelCommandGroup(
                         new RunCommand(() -> telescope.setPosition(TelescopePosition.HIGH_SCORE), telescope),
                         new RunCommand(() -> wrist.setPosition(WristPosition.HIGH_SCORE), wrist)
@@ -449,7 +539,7 @@ public class Autons {
 
         if (color != this.allianceColor) {
             this.allianceColor = color;
-            this.knownLocations = new KnownLocations();
+            this.knownLocations = new KnownLocations(color);
             SmartDashboard.putString("alliance color!", this.allianceColor.toString());
             setChoosers();
             this.autonCommand = buildAutonCommand();
@@ -0,0 +1,135 @@
+package frc.robot.auton;
+
+/**
+ * Charge station balancing as a small state machine on the tilt angle and the gyro's
+ * angular rates.
+ *
+ *  APPROACH  drive onto the station at a fixed speed until the robot tilts up
+ *  CLIMB     creep uphill, slower as the tilt gets smaller
+ *  TIP       the station started falling toward level (tilt shrinking fast): back off
+ *            against our own weight while it keeps moving, then wait for it to settle
+ *  HOLD      level and still: hold position; re-climb if it tips again
+ *
+ * Reacting to the tilt *rate* is what makes it fast: a P controller on the angle only
+ * sees the tip once it has happened and keeps driving, so it overshoots and oscillates.
+ *
+ * Tilt is in degrees from level with the sign of Drivetrain.getRoll(): positive tilt means
+ * uphill is robot-relative -x (the convention of the P-on-roll balance it replaced). The tilt
+ * rate must be d(tilt)/dt with the same sign, see Drivetrain.getRollRate(). No WPILib calls,
+ * so tools/BalanceSimulation can run it on a desktop.
+ */
+public class BalanceController {
+    public enum State {
+        APPROACH, CLIMB, TIP, HOLD
+    }
+
+    private static final double APPROACH_SPEED = 1.2; // m/s
+    // tilt that means we're on the ramp
+    private static final double CLIMB_ANGLE = 12.0; // degrees
+    private static final double CLIMB_SPEED = 0.25; // m/s
+    private static final double CLIMB_GAIN = 0.04; // m/s per degree
+    // the station falling toward level faster than this (below TIP_ANGLE) is a tip
+    private static final double TIP_RATE = 4.0; // degrees/s
+    private static final double TIP_ANGLE = 13.5; // degrees
+    private static final double BACKOFF_SPEED = 0.5; // m/s
+    private static final double MAX_BACKOFF_TIME = 1.0; // s
+    // both gyro rates below this = not moving
+    private static final double SETTLED_RATE = 4.0; // degrees/s
+    // the field counts +/-2.5 degrees as level
+    private static final double LEVEL_TOLERANCE = 2.5; // degrees
+    private static final double RELEVEL_ANGLE = 5.0; // degrees
+    private static final double HOLD_TIME = 0.5; // s
+
+    private State state = State.APPROACH;
+    private double approachDirection;
+    private double tipDirection;
+    // sign of the tilt rate when the tip started
+    private double tipRateSign;
+    private double timeInState;
+    private double vx;
+
+    /**
+     * Start over.
+     *
+     * @param approachDirection +1 / -1 to drive onto the station forward / backward (robot-relative)
+     *     if it isn't tilted yet, 0 if the robot is already on it
+     */
+    public void reset(double approachDirection) {
+        this.approachDirection = Math.signum(approachDirection);
+        this.vx = 0;
+        // nothing to back off from
+        this.tipRateSign = 0;
+        setState(this.approachDirection == 0 ? State.TIP : State.APPROACH);
+    }
+
+    /**
+     * One control step. Read the result with getVx() / getState().
+     *
+     * @param tilt degrees from level, see the class comment for the sign
+     * @param tiltRate rate of the tilt, degrees/s (the gyro axis the tilt is measured about)
+     * @param crossRate the other horizontal gyro axis, degrees/s; only used to tell whether the
+     *     station has settled
+     * @param dt seconds since the last call
+     */
+    public void update(double tilt, double tiltRate, double crossRate, double dt) {
+        timeInState += dt;
+        double magnitude = Math.abs(tilt);
+        // robot-relative direction toward the raised side
+        double uphill = tilt > 0 ? -1 : 1;
+        // > 0 while the tilt is shrinking
+        double leveling = tilt > 0 ? -tiltRate : tiltRate;
+        boolean settled = Math.hypot(tiltRate, crossRate) < SETTLED_RATE;
+
+        switch (state) {
+            case APPROACH:
+                vx = approachDirection * APPROACH_SPEED;
+                if (magnitude > CLIMB_ANGLE) {
+                    setState(State.CLIMB);
+                }
+                break;
+            case CLIMB:
+                vx = uphill * Math.min(CLIMB_SPEED, CLIMB_GAIN * magnitude);
+                if (magnitude < TIP_ANGLE && leveling > TIP_RATE) {
+                    tipDirection = uphill;
+                    tipRateSign = Math.signum(tiltRate);
+                    setState(State.TIP);
+                } else if (magnitude < LEVEL_TOLERANCE && settled) {
+                    setState(State.HOLD);
+                }
+                break;
+            case TIP:
+                // back toward the pivot for as long as the station keeps tipping the same way
+                boolean backingOff = timeInState < MAX_BACKOFF_TIME && tiltRate * tipRateSign > SETTLED_RATE;
+                vx = backingOff ? -tipDirection * BACKOFF_SPEED : 0;
+                if (!backingOff && settled) {
+                    setState(magnitude < LEVEL_TOLERANCE ? State.HOLD : State.CLIMB);
+                }
+                break;
+            case HOLD:
+                vx = 0;
+                if (magnitude > RELEVEL_ANGLE) {
+                    setState(State.CLIMB);
+                }
+                break;
+        }
+    }
+
+    private void setState(State state) {
+        this.state = state;
+        timeInState = 0;
+    }
+
+    /** @return robot-relative forward speed to drive (m/s) */
+    public double getVx() {
+        return vx;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /** Level and still for HOLD_TIME. */
+    public boolean isBalanced() {
+        return state == State.HOLD && timeInState >= HOLD_TIME;
+    }
+}
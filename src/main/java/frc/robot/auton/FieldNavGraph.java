@@ -0,0 +1,279 @@
+package frc.robot.auton;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.pathplanner.lib.PathPoint;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Shortest obstacle-free routes across the 2023 field, as PathPlanner waypoints.
+ *
+ * Obstacles (both alliances' grids, barriers and charge stations) are axis-aligned
+ * rectangles grown by ROBOT_RADIUS, so the robot can be treated as a point. The graph
+ * nodes are the grown rectangles' corners; which pairs of corners can see each other is
+ * worked out once in the constructor. A query only has to connect the start and goal to
+ * the corners and run A* over ~25 nodes, which takes microseconds.
+ *
+ * Start/goal poses are allowed to sit inside a grown obstacle (scoring poses are right
+ * against the grid, charge station targets are on it): lines leaving them ignore the
+ * obstacles they are inside.
+ */
+public class FieldNavGraph {
+    private static final double FIELD_LENGTH = Units.inchesToMeters(651.22);
+    private static final double FIELD_WIDTH = Units.inchesToMeters(315.5);
+
+    // bumper half-width plus a margin. The half-diagonal (~24") would close the corridors
+    // between the charge station and the barrier/wall, so turn in the open field.
+    private static final double ROBOT_RADIUS = Units.inchesToMeters(20);
+    // corners are pushed this far out so edges along a rectangle side don't count as hitting it
+    private static final double CORNER_OFFSET = 0.01;
+
+    // blue side, inches; red is mirrored about the field's center line.
+    // Grid and barrier are approximate from the field drawings.
+    private static final double GRID_DEPTH = 54.93, GRID_WIDTH = 216.03;
+    private static final double BARRIER_LENGTH = 132.25, BARRIER_THICKNESS = 1.5;
+
+    private final int numObstacles;
+    // grown rectangles
+    private final double[] minX, maxX, minY, maxY;
+
+    // static nodes (grown corners that are on the field and not inside another obstacle),
+    // then start and goal in the last two slots during a query
+    private final int numCorners;
+    private final double[] nodeX, nodeY;
+    private final double[][] cost;
+    private final int start, goal;
+
+    // A* scratch
+    private final double[] g;
+    private final int[] parent;
+    private final boolean[] closed;
+
+    public FieldNavGraph() {
+        List<double[]> obstacles = new ArrayList<double[]>();
+        for (Alliance color : new Alliance[] {Alliance.Blue, Alliance.Red}) {
+            KnownLocations locations = new KnownLocations(color);
+            obstacles.add(rectangle(
+                locations.CHARGING_TOP_LEFT.position.getX(), locations.CHARGING_TOP_RIGHT.position.getX(),
+                locations.CHARGING_BOTTOM_LEFT.position.getY(), locations.CHARGING_TOP_LEFT.position.getY()));
+        }
+        for (boolean red : new boolean[] {false, true}) {
+            obstacles.add(mirrored(red, 0, GRID_DEPTH, 0, GRID_WIDTH));
+            obstacles.add(mirrored(red, 0, BARRIER_LENGTH, GRID_WIDTH - BARRIER_THICKNESS, GRID_WIDTH));
+        }
+
+        numObstacles = obstacles.size();
+        minX = new double[numObstacles];
+        maxX = new double[numObstacles];
+        minY = new double[numObstacles];
+        maxY = new double[numObstacles];
+        for (int i = 0; i < numObstacles; i++) {
+            double[] o = obstacles.get(i);
+            minX[i] = o[0] - ROBOT_RADIUS;
+            maxX[i] = o[1] + ROBOT_RADIUS;
+            minY[i] = o[2] - ROBOT_RADIUS;
+            maxY[i] = o[3] + ROBOT_RADIUS;
+        }
+
+        double[] cornerX = new double[numObstacles * 4];
+        double[] cornerY = new double[numObstacles * 4];
+        int n = 0;
+        for (int i = 0; i < numObstacles; i++) {
+            for (int corner = 0; corner < 4; corner++) {
+                double x = (corner & 1) == 0 ? minX[i] - CORNER_OFFSET : maxX[i] + CORNER_OFFSET;
+                double y = (corner & 2) == 0 ? minY[i] - CORNER_OFFSET : maxY[i] + CORNER_OFFSET;
+                if (onField(x, y) && obstaclesAt(x, y) == 0) {
+                    cornerX[n] = x;
+                    cornerY[n] = y;
+                    n++;
+                }
+            }
+        }
+        numCorners = n;
+        start = n;
+        goal = n + 1;
+        nodeX = Arrays.copyOf(cornerX, n + 2);
+        nodeY = Arrays.copyOf(cornerY, n + 2);
+
+        cost = new double[n + 2][n + 2];
+        for (double[] row : cost) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                if (isClear(nodeX[a], nodeY[a], nodeX[b], nodeY[b], 0)) {
+                    cost[a][b] = cost[b][a] = Math.hypot(nodeX[b] - nodeX[a], nodeY[b] - nodeY[a]);
+                }
+            }
+        }
+
+        g = new double[n + 2];
+        parent = new int[n + 2];
+        closed = new boolean[n + 2];
+    }
+
+    private static double[] rectangle(double minX, double maxX, double minY, double maxY) {
+        return new double[] {minX, maxX, minY, maxY};
+    }
+
+    /** Blue-side rectangle in inches, in meters, optionally mirrored to the red side. */
+    private static double[] mirrored(boolean red, double minXInches, double maxXInches, double minYInches, double maxYInches) {
+        double minX = Units.inchesToMeters(minXInches);
+        double maxX = Units.inchesToMeters(maxXInches);
+        if (red) {
+            return rectangle(FIELD_LENGTH - maxX, FIELD_LENGTH - minX,
+                Units.inchesToMeters(minYInches), Units.inchesToMeters(maxYInches));
+        }
+        return rectangle(minX, maxX, Units.inchesToMeters(minYInches), Units.inchesToMeters(maxYInches));
+    }
+
+    private static boolean onField(double x, double y) {
+        return x > ROBOT_RADIUS && x < FIELD_LENGTH - ROBOT_RADIUS && y > ROBOT_RADIUS && y < FIELD_WIDTH - ROBOT_RADIUS;
+    }
+
+    /** @return bit i set if grown obstacle i contains the point; 0 means the robot fits there */
+    public long obstaclesAt(double x, double y) {
+        long mask = 0;
+        for (int i = 0; i < numObstacles; i++) {
+            if (x > minX[i] && x < maxX[i] && y > minY[i] && y < maxY[i]) {
+                mask |= 1L << i;
+            }
+        }
+        return mask;
+    }
+
+    /** Segment misses the interior of every grown obstacle, except the ignored ones (bitmask). */
+    private boolean isClear(double x0, double y0, double x1, double y1, long ignoreMask) {
+        for (int i = 0; i < numObstacles; i++) {
+            if ((ignoreMask & (1L << i)) == 0 && crosses(i, x0, y0, x1, y1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Liang-Barsky clip: does the segment pass through the open rectangle? */
+    private boolean crosses(int i, double x0, double y0, double x1, double y1) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double t0 = 0, t1 = 1;
+        if (dx == 0) {
+            if (x0 <= minX[i] || x0 >= maxX[i]) {
+                return false;
+            }
+        } else {
+            double ta = (minX[i] - x0) / dx;
+            double tb = (maxX[i] - x0) / dx;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        if (dy == 0) {
+            if (y0 <= minY[i] || y0 >= maxY[i]) {
+                return false;
+            }
+        } else {
+            double ta = (minY[i] - y0) / dy;
+            double tb = (maxY[i] - y0) / dy;
+            t0 = Math.max(t0, Math.min(ta, tb));
+            t1 = Math.min(t1, Math.max(ta, tb));
+        }
+        return t0 < t1;
+    }
+
+    /**
+     * Shortest route between two field positions.
+     *
+     * @return the corners to pass, not including start and goal. Empty if the straight line
+     *     is clear, or if there is no route (the caller then just drives straight).
+     */
+    public synchronized List<Translation2d> plan(Translation2d from, Translation2d to) {
+        nodeX[start] = from.getX();
+        nodeY[start] = from.getY();
+        nodeX[goal] = to.getX();
+        nodeY[goal] = to.getY();
+        long startInside = obstaclesAt(nodeX[start], nodeY[start]);
+        long goalInside = obstaclesAt(nodeX[goal], nodeY[goal]);
+
+        List<Translation2d> route = new ArrayList<Translation2d>();
+        if (isClear(nodeX[start], nodeY[start], nodeX[goal], nodeY[goal], startInside | goalInside)) {
+            return route;
+        }
+
+        for (int i = 0; i < numCorners; i++) {
+            cost[start][i] = cost[i][start] = isClear(nodeX[start], nodeY[start], nodeX[i], nodeY[i], startInside)
+                ? Math.hypot(nodeX[i] - nodeX[start], nodeY[i] - nodeY[start]) : Double.POSITIVE_INFINITY;
+            cost[goal][i] = cost[i][goal] = isClear(nodeX[i], nodeY[i], nodeX[goal], nodeY[goal], goalInside)
+                ? Math.hypot(nodeX[goal] - nodeX[i], nodeY[goal] - nodeY[i]) : Double.POSITIVE_INFINITY;
+        }
+        cost[start][goal] = cost[goal][start] = Double.POSITIVE_INFINITY;
+
+        // A* with a straight-line heuristic; small enough for a linear scan instead of a heap
+        int numNodes = numCorners + 2;
+        Arrays.fill(g, Double.POSITIVE_INFINITY);
+        Arrays.fill(parent, -1);
+        Arrays.fill(closed, false);
+        g[start] = 0;
+        while (true) {
+            int current = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < numNodes; i++) {
+                if (!closed[i] && g[i] < Double.POSITIVE_INFINITY) {
+                    double f = g[i] + Math.hypot(nodeX[goal] - nodeX[i], nodeY[goal] - nodeY[i]);
+                    if (f < best) {
+                        best = f;
+                        current = i;
+                    }
+                }
+            }
+            if (current < 0) {
+                return route;
+            }
+            if (current == goal) {
+                break;
+            }
+            closed[current] = true;
+            for (int next = 0; next < numNodes; next++) {
+                double step = cost[current][next];
+                if (!closed[next] && g[current] + step < g[next]) {
+                    g[next] = g[current] + step;
+                    parent[next] = current;
+                }
+            }
+        }
+
+        for (int node = parent[goal]; node != start; node = parent[node]) {
+            route.add(0, new Translation2d(nodeX[node], nodeY[node]));
+        }
+        return route;
+    }
+
+    /**
+     * Intermediate PathPoints from start to end around the obstacles, for
+     * PathPlanner.generatePath(). Each waypoint's heading points along the route (the average
+     * of the directions in and out) and has no holonomic rotation, so PathPlanner blends the
+     * rotation between start and end.
+     */
+    public List<PathPoint> getWaypoints(Translation2d start, PathPoint end) {
+        List<Translation2d> route = plan(start, end.position);
+        List<PathPoint> waypoints = new ArrayList<PathPoint>(route.size());
+        for (int i = 0; i < route.size(); i++) {
+            Translation2d previous = i == 0 ? start : route.get(i - 1);
+            Translation2d next = i == route.size() - 1 ? end.position : route.get(i + 1);
+            Translation2d point = route.get(i);
+            Rotation2d in = new Rotation2d(point.getX() - previous.getX(), point.getY() - previous.getY());
+            Rotation2d out = new Rotation2d(next.getX() - point.getX(), next.getY() - point.getY());
+            waypoints.add(new PathPoint(point, in.interpolate(out, 0.5)));
+        }
+        return waypoints;
+    }
+
+    public List<PathPoint> getWaypoints(PathPoint start, PathPoint end) {
+        return getWaypoints(start.position, end);
+    }
+}
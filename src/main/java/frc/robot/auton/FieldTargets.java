@@ -0,0 +1,221 @@
+package frc.robot.auton;
+
+import com.pathplanner.lib.PathPoint;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.subsystems.GamePieceLEDs.GamePiece;
+
+/**
+ * Every place a driver might want to line up on, for both alliances, with a precomputed
+ * nearest-target lookup.
+ *
+ * The field is cut into CELL_SIZE square cells. At construction each cell stores the index of
+ * the target nearest its center for every (alliance, filter) pair, so {@link #nearest} is a
+ * clamp, two multiplies and an array read. Answers can be off by at most half a cell diagonal
+ * near the boundary between two targets, which doesn't matter at 22" node spacing.
+ *
+ * Poses are where the robot center should be (bumpers against the grid / in front of the shelf /
+ * on the floor in front of a charge station ramp), facing the target.
+ */
+public class FieldTargets {
+    private static final double FIELD_LENGTH = Units.inchesToMeters(651.22);
+    private static final double FIELD_WIDTH = Units.inchesToMeters(315.5);
+    private static final double CELL_SIZE = 0.25;
+    private static final int CELLS_X = (int) Math.ceil(FIELD_LENGTH / CELL_SIZE);
+    private static final int CELLS_Y = (int) Math.ceil(FIELD_WIDTH / CELL_SIZE);
+
+    // grid: 9 columns per alliance, 22" apart; the middle column of each group of three is a cube node
+    private static final double GRID_FIRST_COLUMN_Y = 20.19;
+    private static final double GRID_COLUMN_SPACING = 22.0;
+    private static final double BLUE_GRID_SCORING_X = 54.93 + 16.5;
+    private static final double RED_GRID_SCORING_X = 598.41 - 16.5;
+
+    // double substation: one slot either side of its AprilTag (tags 4 and 5), robot stands off the shelf.
+    // Approximate, check on the field.
+    private static final double SUBSTATION_TAG_Y = 265.74;
+    private static final double SUBSTATION_SLOT_OFFSET = 27.0;
+    private static final double BLUE_SUBSTATION_X = 636.96 - 40.0;
+    private static final double RED_SUBSTATION_X = 14.25 + 40.0;
+
+    public enum TargetType {
+        CONE_NODE,
+        CUBE_NODE,
+        SUBSTATION,
+        CHARGE_STATION
+    }
+
+    /** Which targets a lookup may return. */
+    public enum Filter {
+        CONE,
+        CUBE,
+        PICKUP,
+        CHARGE_STATION;
+
+        /** What to line up on for the game piece we're holding (NONE means go get one). */
+        public static Filter forGamePiece(GamePiece piece) {
+            switch (piece) {
+                case CONE:
+                    return CONE;
+                case CUBE:
+                    return CUBE;
+                default:
+                    return PICKUP;
+            }
+        }
+    }
+
+    // Filter.values() copies the array every call
+    private static final int FILTER_COUNT = Filter.values().length;
+
+    private final int count;
+    private final double[] x, y, rotation;
+    private final TargetType[] type;
+    private final Alliance[] alliance;
+
+    // [alliance * filters + filter][cellX * CELLS_Y + cellY] -> target index, -1 if none
+    private final short[][] nearest;
+
+    public FieldTargets() {
+        // 9 nodes + 2 substation slots + 2 charge station ramps, per alliance
+        int capacity = 2 * (9 + 2 + 2);
+        x = new double[capacity];
+        y = new double[capacity];
+        rotation = new double[capacity];
+        type = new TargetType[capacity];
+        alliance = new Alliance[capacity];
+
+        int n = 0;
+        for (Alliance color : new Alliance[] {Alliance.Blue, Alliance.Red}) {
+            boolean blue = color == Alliance.Blue;
+            // face the grid when scoring, the shelf when picking up
+            double gridRotation = blue ? Math.PI : 0;
+            double substationRotation = blue ? 0 : Math.PI;
+
+            for (int column = 0; column < 9; column++) {
+                n = add(n, color, column % 3 == 1 ? TargetType.CUBE_NODE : TargetType.CONE_NODE,
+                    blue ? BLUE_GRID_SCORING_X : RED_GRID_SCORING_X,
+                    GRID_FIRST_COLUMN_Y + column * GRID_COLUMN_SPACING,
+                    gridRotation);
+            }
+            for (int side = -1; side <= 1; side += 2) {
+                n = add(n, color, TargetType.SUBSTATION,
+                    blue ? BLUE_SUBSTATION_X : RED_SUBSTATION_X,
+                    SUBSTATION_TAG_Y + side * SUBSTATION_SLOT_OFFSET,
+                    substationRotation);
+            }
+
+            KnownLocations locations = new KnownLocations(color);
+            for (PathPoint ramp : new PathPoint[] {locations.CHARGING_GRID_SIDE, locations.CHARGING_FIELD_SIDE}) {
+                x[n] = ramp.position.getX();
+                y[n] = ramp.position.getY();
+                rotation[n] = ramp.holonomicRotation.getRadians();
+                type[n] = TargetType.CHARGE_STATION;
+                alliance[n] = color;
+                n++;
+            }
+        }
+        count = n;
+
+        Alliance[] alliances = {Alliance.Blue, Alliance.Red};
+        nearest = new short[alliances.length * FILTER_COUNT][CELLS_X * CELLS_Y];
+        for (int a = 0; a < alliances.length; a++) {
+            for (Filter filter : Filter.values()) {
+                short[] table = nearest[a * FILTER_COUNT + filter.ordinal()];
+                for (int cx = 0; cx < CELLS_X; cx++) {
+                    for (int cy = 0; cy < CELLS_Y; cy++) {
+                        table[cx * CELLS_Y + cy] = (short) search(alliances[a], filter, (cx + 0.5) * CELL_SIZE, (cy + 0.5) * CELL_SIZE);
+                    }
+                }
+            }
+        }
+    }
+
+    private int add(int n, Alliance color, TargetType targetType, double xInches, double yInches, double rotationRadians) {
+        x[n] = Units.inchesToMeters(xInches);
+        y[n] = Units.inchesToMeters(yInches);
+        rotation[n] = rotationRadians;
+        type[n] = targetType;
+        alliance[n] = color;
+        return n + 1;
+    }
+
+    private static boolean matches(Filter filter, TargetType targetType) {
+        switch (filter) {
+            case CONE:
+                return targetType == TargetType.CONE_NODE;
+            case CUBE:
+                return targetType == TargetType.CUBE_NODE;
+            case PICKUP:
+                return targetType == TargetType.SUBSTATION;
+            case CHARGE_STATION:
+                return targetType == TargetType.CHARGE_STATION;
+            default:
+                return false;
+        }
+    }
+
+    /** Brute force, only used to build the table. */
+    private int search(Alliance color, Filter filter, double px, double py) {
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (alliance[i] != color || !matches(filter, type[i])) {
+                continue;
+            }
+            double dx = x[i] - px;
+            double dy = y[i] - py;
+            double distance = dx * dx + dy * dy;
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Nearest target to a field position, in constant time. Positions off the field clamp to the edge.
+     *
+     * @return target index for the getters, or -1 if nothing matches (e.g. alliance Invalid)
+     */
+    public int nearest(Alliance color, Filter filter, double xMeters, double yMeters) {
+        int a;
+        if (color == Alliance.Blue) {
+            a = 0;
+        } else if (color == Alliance.Red) {
+            a = 1;
+        } else {
+            return -1;
+        }
+        int cx = Math.min(Math.max((int) (xMeters / CELL_SIZE), 0), CELLS_X - 1);
+        int cy = Math.min(Math.max((int) (yMeters / CELL_SIZE), 0), CELLS_Y - 1);
+        return nearest[a * FILTER_COUNT + filter.ordinal()][cx * CELLS_Y + cy];
+    }
+
+    public int getNumTargets() {
+        return count;
+    }
+
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getRotationRadians(int index) {
+        return rotation[index];
+    }
+
+    public TargetType getType(int index) {
+        return type[index];
+    }
+
+    public Pose2d getPose(int index) {
+        return new Pose2d(x[index], y[index], new Rotation2d(rotation[index]));
+    }
+}
@@ -0,0 +1,69 @@
+package frc.robot.auton;
+
+import edu.wpi.first.math.controller.PIDController;
+
+/**
+ * Trajectory tracking math for a swerve drive, without the command or the robot.
+ *
+ * Same control law as PathPlanner's PPHolonomicDriveController: field-relative
+ * feedforward velocity from the trajectory plus a P(ID) correction per axis, and the
+ * trajectory's angular velocity plus a heading correction. The result is rotated into
+ * the robot frame for {@code Drivetrain.drive(vx, vy, omega)}.
+ *
+ * Takes the same PIDControllers the PathPlanner command did; the heading controller
+ * should have continuous input enabled over [-pi, pi].
+ */
+public class HolonomicFollower {
+    private final PIDController xController, yController, thetaController;
+
+    // last calculate() result, robot-relative
+    private double vx, vy, omega;
+
+    public HolonomicFollower(PIDController xController, PIDController yController, PIDController thetaController) {
+        this.xController = xController;
+        this.yController = yController;
+        this.thetaController = thetaController;
+    }
+
+    public void reset() {
+        xController.reset();
+        yController.reset();
+        thetaController.reset();
+        vx = 0;
+        vy = 0;
+        omega = 0;
+    }
+
+    /**
+     * Compute the chassis speed to follow a trajectory at a time from the current pose.
+     * Read the result with {@link #getVx()}, {@link #getVy()}, {@link #getOmega()}.
+     */
+    public void calculate(SampledTrajectory trajectory, double timeSeconds, double poseX, double poseY, double poseTheta) {
+        trajectory.sample(timeSeconds);
+
+        double fieldVx = trajectory.getSampleVx() + xController.calculate(poseX, trajectory.getSampleX());
+        double fieldVy = trajectory.getSampleVy() + yController.calculate(poseY, trajectory.getSampleY());
+        omega = trajectory.getSampleOmega() + thetaController.calculate(poseTheta, trajectory.getSampleHeading());
+
+        // same as ChassisSpeeds.fromFieldRelativeSpeeds()
+        double cos = Math.cos(poseTheta);
+        double sin = Math.sin(poseTheta);
+        vx = fieldVx * cos + fieldVy * sin;
+        vy = -fieldVx * sin + fieldVy * cos;
+    }
+
+    /** @return robot-relative forward speed (m/s) */
+    public double getVx() {
+        return vx;
+    }
+
+    /** @return robot-relative left speed (m/s) */
+    public double getVy() {
+        return vy;
+    }
+
+    /** @return counter-clockwise rate (rad/s) */
+    public double getOmega() {
+        return omega;
+    }
+}
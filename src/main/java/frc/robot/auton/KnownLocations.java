@@ -46,18 +46,26 @@ public class KnownLocations {
         CHARGING_BOTTOM_LEFT,
         CHARGING_BOTTOM_RIGHT;
 
+    // on the floor in front of each ramp, facing the station, for AutoBalance to drive on from
+    public final PathPoint
+        CHARGING_GRID_SIDE,
+        CHARGING_FIELD_SIDE;
+
     public final PathPoint
-        WAYPOINT_TOP,
-        WAYPOINT_BOTTOM,
         WAYPOINT_CHARGING;
         // WAYPOINT_CHARGING_BACK;
     
         
-    public Alliance allianceColor = DriverStation.getAlliance();
+    public final Alliance allianceColor;
 
     public KnownLocations() {
+        this(DriverStation.getAlliance());
+    }
+
+    /** Locations for a specific alliance, e.g. to index both alliances or for offline tools. */
+    public KnownLocations(Alliance alliance) {
 
-        allianceColor = DriverStation.getAlliance();
+        allianceColor = alliance;
 
         if (allianceColor == Alliance.Blue) {
             START_TOPMOST = PathPointInch(54.93+16.5, 199.65, 0, 180);
@@ -85,11 +93,10 @@ public class KnownLocations {
             CHARGING_TOP_RIGHT = PathPointInch(190.96, 155.51, 0, 0);
             CHARGING_BOTTOM_LEFT = PathPointInch(117.16, 60.2, 0, 0);
             CHARGING_BOTTOM_RIGHT = PathPointInch(190.96, 60.2, 0, 0);
+            CHARGING_GRID_SIDE = PathPointInch(117.16-24, 107.85, 0, 0);
+            CHARGING_FIELD_SIDE = PathPointInch(190.96+24, 107.85, 180, 180);
 
-            // WAYPOINT_TOP = PathPointInch(190.96, 185.62, 0, 315);
-            // WAYPOINT_BOTTOM = PathPointInch(190.96, 30.101, 0, 180);
-            WAYPOINT_TOP = PathPointInch(190.96, 185.62, 0, 40.0);
-            WAYPOINT_BOTTOM = PathPointInch(190.96, 30.101, 0, 40.0);
+            // routes around the charge station come from FieldNavGraph; this one lines us up to drive onto it
             WAYPOINT_CHARGING = new PathPoint(
                 new Translation2d(
                     (ELEMENT1.position.getX() + CHARGING_TOP_RIGHT.position.getX()) / 2.0,
@@ -131,9 +138,9 @@ public class KnownLocations {
             CHARGING_TOP_RIGHT = PathPointInch(536.18, 155.51, 0, 180);
             CHARGING_BOTTOM_LEFT = PathPointInch(462.38, 60.2, 0, 180);
             CHARGING_BOTTOM_RIGHT = PathPointInch(536.18, 60.2, 0, 180);
+            CHARGING_GRID_SIDE = PathPointInch(536.18+24, 107.85, 180, 180);
+            CHARGING_FIELD_SIDE = PathPointInch(462.38-24, 107.85, 0, 0);
 
-            // WAYPOINT_TOP = PathPointInch(463.39, 185.62, 0, 180);
-            // WAYPOINT_BOTTOM = PathPointInch(463.39, 30.1, 0, 180);
             // WAYPOINT_CHARGING = new PathPoint(
             //     new Translation2d(
             //         (ELEMENT1.position.getX() + CHARGING_BOTTOM_LEFT.position.getX()) / 2.0,
@@ -142,8 +149,6 @@ public class KnownLocations {
             //     Rotation2d.fromDegrees(0),
             //     Rotation2d.fromDegrees(180)
             // );
-            WAYPOINT_TOP = PathPointInch(463.39, 185.62, 180.0, 140.0);
-            WAYPOINT_BOTTOM = PathPointInch(463.39, 30.1, 180.0, 140.0);
             WAYPOINT_CHARGING = new PathPoint(
                 new Translation2d(
                     (ELEMENT1.position.getX() + CHARGING_BOTTOM_LEFT.position.getX()) / 2.0,
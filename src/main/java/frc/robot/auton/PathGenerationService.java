@@ -0,0 +1,107 @@
+package frc.robot.auton;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPoint;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.auton.TrajectoryConstraints.Superstructure;
+import frc.robot.util.ThreadManager;
+
+/**
+ * Generates paths off the robot thread.
+ *
+ * PathPlanner.generatePath() plus re-timing into a SampledTrajectory can take several
+ * milliseconds, too long to do inside a 20 ms loop. Requests run one at a time on a
+ * single daemon worker; callers get a CompletableFuture and poll isDone() from their
+ * command instead of blocking. The worker runs on the background core (ThreadManager); how long
+ * a request waits for it is reported as "Threads/PathGeneration".
+ */
+public class PathGenerationService {
+    // slower than this counts as stopped when picking the start heading (m/s)
+    private static final double MOVING_SPEED = 0.1;
+
+    private final ExecutorService executor =
+        Executors.newSingleThreadExecutor(ThreadManager.backgroundThreadFactory("PathGeneration"));
+    private final ThreadManager.LatencyMonitor latency = ThreadManager.monitor("PathGeneration", 0);
+    // records submit-to-start time on the worker
+    private final Executor worker = task -> {
+        long submitted = RobotController.getFPGATime();
+        executor.execute(() -> {
+            latency.record(RobotController.getFPGATime() - submitted);
+            task.run();
+        });
+    };
+    private final double sampleDt;
+    private final FieldNavGraph navGraph;
+    private final TrajectoryConstraints constraints;
+
+    /**
+     * @param sampleDt time step of the generated SampledTrajectory (seconds)
+     * @param navGraph routes paths from an arbitrary pose around the field obstacles
+     * @param constraints re-times every generated path
+     */
+    public PathGenerationService(double sampleDt, FieldNavGraph navGraph, TrajectoryConstraints constraints) {
+        this.sampleDt = sampleDt;
+        this.navGraph = navGraph;
+        this.constraints = constraints;
+    }
+
+    /**
+     * Generate start -> waypoints -> end in the background. The points are immutable, so it's
+     * safe to hand them to the worker.
+     */
+    public CompletableFuture<SampledTrajectory> generate(Superstructure superstructure, PathPoint start,
+            List<PathPoint> waypoints, PathPoint end) {
+        List<PathPoint> points = new ArrayList<PathPoint>(waypoints.size() + 2);
+        points.add(start);
+        points.addAll(waypoints);
+        points.add(end);
+        return CompletableFuture.supplyAsync(() -> generate(superstructure, points, 0), worker);
+    }
+
+    public CompletableFuture<SampledTrajectory> generate(Superstructure superstructure, PathPoint start, PathPoint end) {
+        return generate(superstructure, start, List.of(), end);
+    }
+
+    /**
+     * Path from a robot pose and field-relative velocity (m/s) to a target around the field
+     * obstacles. Routing also runs on the worker. A moving robot starts along its velocity at its
+     * current speed; a stopped one heads for the first waypoint. Either way it keeps its rotation.
+     */
+    public CompletableFuture<SampledTrajectory> generateFrom(Superstructure superstructure, Pose2d start,
+            double fieldVx, double fieldVy, PathPoint end) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<PathPoint> points = new ArrayList<PathPoint>();
+            List<PathPoint> waypoints = navGraph.getWaypoints(start.getTranslation(), end);
+            double speed = Math.hypot(fieldVx, fieldVy);
+            Rotation2d heading;
+            if (speed > MOVING_SPEED) {
+                heading = new Rotation2d(fieldVx, fieldVy);
+            } else {
+                speed = 0;
+                Translation2d next = waypoints.isEmpty() ? end.position : waypoints.get(0).position;
+                heading = new Rotation2d(next.getX() - start.getX(), next.getY() - start.getY());
+            }
+            points.add(new PathPoint(start.getTranslation(), heading, start.getRotation(), speed));
+            points.addAll(waypoints);
+            points.add(end);
+            return generate(superstructure, points, speed);
+        }, worker);
+    }
+
+    /** Worker thread only. */
+    private SampledTrajectory generate(Superstructure superstructure, List<PathPoint> points, double startVelocity) {
+        return constraints.retime(PathPlanner.generatePath(constraints.getPathConstraints(), points),
+            superstructure, startVelocity, sampleDt);
+    }
+}
@@ -0,0 +1,143 @@
+package frc.robot.auton;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * A holonomic trajectory resampled at a fixed time step into flat primitive arrays.
+ *
+ * Built once when the auton is generated. Sampling at time t is then an index
+ * computation plus a lerp between two neighbouring samples - no search and no
+ * allocation - so it is cheap enough to call from the follower every loop.
+ *
+ * All values are field-relative: x/y in meters, vx/vy in m/s, heading is the
+ * holonomic (robot) rotation in radians and omega its rate in rad/s.
+ */
+public class SampledTrajectory {
+    private final double dt;
+    private final int count;
+    private final double[] x, y, vx, vy, heading, omega;
+
+    // last sample() result
+    private double sampleX, sampleY, sampleVx, sampleVy, sampleHeading, sampleOmega;
+
+    /** Arrays are used as-is, all must have the same length (at least 1). */
+    public SampledTrajectory(double dt, double[] x, double[] y, double[] vx, double[] vy, double[] heading, double[] omega) {
+        this.dt = dt;
+        this.count = x.length;
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+        this.heading = heading;
+        this.omega = omega;
+        sample(0);
+    }
+
+    /** Resample a PathPlanner trajectory every dt seconds (the last sample lands on the end state). */
+    public static SampledTrajectory fromPathPlanner(PathPlannerTrajectory trajectory, double dt) {
+        double totalTime = trajectory.getTotalTimeSeconds();
+        int count = (int) Math.ceil(totalTime / dt) + 1;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] vx = new double[count];
+        double[] vy = new double[count];
+        double[] heading = new double[count];
+        double[] omega = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            PathPlannerState state = (PathPlannerState) trajectory.sample(Math.min(i * dt, totalTime));
+            // poseMeters' rotation is the direction of travel, not where the robot faces
+            double direction = state.poseMeters.getRotation().getRadians();
+            x[i] = state.poseMeters.getX();
+            y[i] = state.poseMeters.getY();
+            vx[i] = state.velocityMetersPerSecond * Math.cos(direction);
+            vy[i] = state.velocityMetersPerSecond * Math.sin(direction);
+            heading[i] = state.holonomicRotation.getRadians();
+            omega[i] = state.holonomicAngularVelocityRadPerSec;
+        }
+        // the last sample may sit a little past totalTime, it must hold the end pose at rest
+        vx[count - 1] = 0;
+        vy[count - 1] = 0;
+        omega[count - 1] = 0;
+        return new SampledTrajectory(dt, x, y, vx, vy, heading, omega);
+    }
+
+    public double getTotalTimeSeconds() {
+        return (count - 1) * dt;
+    }
+
+    public double getTimeStep() {
+        return dt;
+    }
+
+    public int getNumSamples() {
+        return count;
+    }
+
+    /**
+     * Interpolate the trajectory at a time. Times outside the trajectory clamp to its
+     * start/end. Read the result with the getSample* methods.
+     */
+    public void sample(double timeSeconds) {
+        double position = timeSeconds / dt;
+        if (!(position > 0)) {
+            load(0, 0, 0);
+            return;
+        }
+        int i = (int) position;
+        if (i >= count - 1) {
+            load(count - 1, count - 1, 0);
+            return;
+        }
+        load(i, i + 1, position - i);
+    }
+
+    private void load(int a, int b, double t) {
+        sampleX = x[a] + (x[b] - x[a]) * t;
+        sampleY = y[a] + (y[b] - y[a]) * t;
+        sampleVx = vx[a] + (vx[b] - vx[a]) * t;
+        sampleVy = vy[a] + (vy[b] - vy[a]) * t;
+        sampleHeading = MathUtil.angleModulus(heading[a] + MathUtil.angleModulus(heading[b] - heading[a]) * t);
+        sampleOmega = omega[a] + (omega[b] - omega[a]) * t;
+    }
+
+    public double getSampleX() {
+        return sampleX;
+    }
+
+    public double getSampleY() {
+        return sampleY;
+    }
+
+    public double getSampleVx() {
+        return sampleVx;
+    }
+
+    public double getSampleVy() {
+        return sampleVy;
+    }
+
+    public double getSampleHeading() {
+        return sampleHeading;
+    }
+
+    public double getSampleOmega() {
+        return sampleOmega;
+    }
+
+    /** Raw sample access, e.g. for drawing or warm-up. */
+    public double getX(int index) {
+        return x[index];
+    }
+
+    public double getY(int index) {
+        return y[index];
+    }
+
+    public double getHeading(int index) {
+        return heading[index];
+    }
+}
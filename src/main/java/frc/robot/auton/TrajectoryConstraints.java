@@ -0,0 +1,286 @@
+package frc.robot.auton;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.Constants.SWERVE;
+import frc.robot.subsystems.arm.Arm.ArmPosition;
+import frc.robot.subsystems.arm.Telescope.TelescopePosition;
+import frc.robot.subsystems.drivetrain.TipLimiter;
+import frc.robot.util.DeployedConstants;
+
+/**
+ * Velocity/acceleration limits that vary along a path.
+ *
+ * PathPlanner only takes one PathConstraints per path, so a whole auton ran as slow as its
+ * slowest part. Here PathPlanner only provides the geometry (positions, curvature and robot
+ * rotation); retime() then works out the speed at every point from
+ *  - the global limits (see autonDefaults())
+ *  - field zones, e.g. slow down onto the charge station and when lining up on the grid
+ *  - the superstructure state while the path runs: the drivetrain's TipLimiter clamps speed and
+ *    acceleration from the arm pose, so every state's limits come from that same TipLimiter, at
+ *    the arm/telescope presets as tuned when the path is retimed.
+ *    A path planned faster than the clamp would leave the follower fighting it.
+ *  - curvature (centripetal acceleration within traction and within the tip limit) and how fast
+ *    the robot has to turn
+ * with a forward/backward pass, then resamples the result every dt into a SampledTrajectory.
+ *
+ * Until RouteOptimizer writes measured limits to auton_limits.properties the global limits are
+ * the 2 m/s, 2 m/s^2 placeholders, so open-field stretches don't run at full speed yet.
+ */
+public class TrajectoryConstraints {
+    private static final double FIELD_LENGTH = Units.inchesToMeters(651.22);
+
+    // auton limits come from deploy/auton_limits.properties, which ./gradlew runTool -Ptool=RouteOptimizer
+    // writes. PLACEHOLDERS if it has none: the limits from before re-timing (2 m/s, 2 m/s^2).
+    private static final double AUTON_MAX_VELOCITY = 2.0; // m/s
+    private static final double AUTON_MAX_ACCELERATION = 2.0; // m/s^2
+    // rotating takes wheel speed away from translating, don't plan on more than this
+    private static final double MAX_PATH_OMEGA = SWERVE.MAX_ROTATIONAL_SPEED / 2;
+
+    // blue side, meters; mirrored for red
+    private static final double CHARGE_ZONE_MARGIN = 0.5;
+    private static final double CHARGE_ZONE_VELOCITY = 1.5, CHARGE_ZONE_ACCELERATION = 2.0;
+    // scoring poses are 1.81 m out, start slowing down a robot length before
+    private static final double GRID_ZONE_DEPTH = 2.6;
+    private static final double GRID_ZONE_VELOCITY = 2.0, GRID_ZONE_ACCELERATION = 2.0;
+
+    /**
+     * Where the arm is while a path runs, as the presets it sits at. No path runs with the arm
+     * raised; add a state here (its limits follow from TipLimiter) before one does.
+     */
+    public enum Superstructure {
+        STOWED(ArmPosition.INSIDE, TelescopePosition.INSIDE),
+        // arm out low in front
+        FLOOR(ArmPosition.BULLDOZER, TelescopePosition.BULLDOZER);
+
+        public final ArmPosition arm;
+        public final TelescopePosition telescope;
+
+        private Superstructure(ArmPosition arm, TelescopePosition telescope) {
+            this.arm = arm;
+            this.telescope = telescope;
+        }
+    }
+
+    private final double maxVelocity, maxAcceleration, maxCentripetalAcceleration;
+    // field rectangles {minX, maxX, minY, maxY, velocity, acceleration}
+    private final List<double[]> zones = new ArrayList<double[]>();
+
+    public TrajectoryConstraints(double maxVelocity, double maxAcceleration, double maxCentripetalAcceleration) {
+        this.maxVelocity = maxVelocity;
+        this.maxAcceleration = maxAcceleration;
+        this.maxCentripetalAcceleration = maxCentripetalAcceleration;
+    }
+
+    /**
+     * Same model and wheel geometry as Drivetrain's TipLimiter, at the state's presets as they
+     * are tuned right now. A new one per call: retime() also runs on the path generation thread.
+     */
+    private static TipLimiter tipLimiterAt(Superstructure superstructure) {
+        TipLimiter tipLimiter = new TipLimiter(
+            Units.inchesToMeters(SWERVE.WHEEL_LENGTH) / 2, Units.inchesToMeters(SWERVE.WHEEL_WIDTH) / 2,
+            SWERVE.MAX_ACCELERATION, SWERVE.MAX_DIRECTION_SPEED);
+        tipLimiter.update(superstructure.arm.getDegrees(), superstructure.telescope.getInches());
+        return tipLimiter;
+    }
+
+    /** The auton limits RouteOptimizer found (see AUTON_MAX_VELOCITY) with the field zones. */
+    public static TrajectoryConstraints autonDefaults() {
+        return forField(
+            DeployedConstants.get(DeployedConstants.AUTON_LIMITS, "maxVelocity", AUTON_MAX_VELOCITY),
+            DeployedConstants.get(DeployedConstants.AUTON_LIMITS, "maxAcceleration", AUTON_MAX_ACCELERATION));
+    }
+
+    /** Global limits plus the charge station and grid zones of both alliances. */
+    public static TrajectoryConstraints forField(double maxVelocity, double maxAcceleration) {
+        // traction limits turning as much as speeding up
+        TrajectoryConstraints constraints = new TrajectoryConstraints(maxVelocity, maxAcceleration, maxAcceleration);
+        for (Alliance color : new Alliance[] {Alliance.Blue, Alliance.Red}) {
+            KnownLocations locations = new KnownLocations(color);
+            constraints.addZone(
+                locations.CHARGING_TOP_LEFT.position.getX() - CHARGE_ZONE_MARGIN,
+                locations.CHARGING_TOP_RIGHT.position.getX() + CHARGE_ZONE_MARGIN,
+                locations.CHARGING_BOTTOM_LEFT.position.getY() - CHARGE_ZONE_MARGIN,
+                locations.CHARGING_TOP_LEFT.position.getY() + CHARGE_ZONE_MARGIN,
+                CHARGE_ZONE_VELOCITY, CHARGE_ZONE_ACCELERATION);
+        }
+        constraints.addZone(0, GRID_ZONE_DEPTH, 0, Double.POSITIVE_INFINITY,
+            GRID_ZONE_VELOCITY, GRID_ZONE_ACCELERATION);
+        constraints.addZone(FIELD_LENGTH - GRID_ZONE_DEPTH, FIELD_LENGTH, 0, Double.POSITIVE_INFINITY,
+            GRID_ZONE_VELOCITY, GRID_ZONE_ACCELERATION);
+        return constraints;
+    }
+
+    /** Limit velocity/acceleration inside a field rectangle (meters). Overlapping zones take the lowest limits. */
+    public TrajectoryConstraints addZone(double minX, double maxX, double minY, double maxY,
+            double maxVelocity, double maxAcceleration) {
+        zones.add(new double[] {minX, maxX, minY, maxY, maxVelocity, maxAcceleration});
+        return this;
+    }
+
+    /** Constraints to hand PathPlanner for the geometry. Its timing is thrown away by retime(). */
+    public PathConstraints getPathConstraints() {
+        return new PathConstraints(maxVelocity, maxAcceleration);
+    }
+
+    public double getMaxVelocity() {
+        return maxVelocity;
+    }
+
+    public double getMaxAcceleration() {
+        return maxAcceleration;
+    }
+
+    /** @return the speed limit a path gets with the arm in this state, before zones and curvature (m/s) */
+    public double getMaxVelocity(Superstructure superstructure) {
+        return Math.min(maxVelocity, tipLimiterAt(superstructure).getMaxVelocity());
+    }
+
+    /** @return the acceleration limit a path gets with the arm in this state, before zones (m/s^2) */
+    public double getMaxAcceleration(Superstructure superstructure) {
+        return Math.min(maxAcceleration, tipLimiterAt(superstructure).getMaxAcceleration());
+    }
+
+    /**
+     * Re-time a path's geometry under these constraints and resample it every dt seconds.
+     * Starts and ends at rest.
+     */
+    public SampledTrajectory retime(PathPlannerTrajectory path, Superstructure superstructure, double dt) {
+        return retime(path, superstructure, 0, dt);
+    }
+
+    /**
+     * Same, starting at the robot's current speed along the path (m/s), clamped to the limits at
+     * the start, for paths generated while the robot is moving. Ends at rest.
+     */
+    public SampledTrajectory retime(PathPlannerTrajectory path, Superstructure superstructure,
+            double startVelocity, double dt) {
+        // geometry, dropping repeated points
+        List<Trajectory.State> states = path.getStates();
+        int n = 0;
+        double[] px = new double[states.size()];
+        double[] py = new double[states.size()];
+        double[] heading = new double[states.size()];
+        double[] curvature = new double[states.size()];
+        for (int i = 0; i < states.size(); i++) {
+            PathPlannerState state = (PathPlannerState) states.get(i);
+            double x = state.poseMeters.getX();
+            double y = state.poseMeters.getY();
+            if (n > 0 && Math.hypot(x - px[n - 1], y - py[n - 1]) < 1e-6) {
+                heading[n - 1] = state.holonomicRotation.getRadians();
+                continue;
+            }
+            px[n] = x;
+            py[n] = y;
+            heading[n] = state.holonomicRotation.getRadians();
+            curvature[n] = state.curvatureRadPerMeter;
+            n++;
+        }
+        if (n < 2) {
+            return new SampledTrajectory(dt, new double[] {px[0]}, new double[] {py[0]}, new double[1],
+                new double[1], new double[] {heading[0]}, new double[1]);
+        }
+
+        double[] ds = new double[n - 1];
+        double[] dHeading = new double[n - 1];
+        for (int i = 0; i < n - 1; i++) {
+            ds[i] = Math.hypot(px[i + 1] - px[i], py[i + 1] - py[i]);
+            dHeading[i] = MathUtil.angleModulus(heading[i + 1] - heading[i]);
+        }
+
+        // speed limit at each point
+        TipLimiter tipLimiter = tipLimiterAt(superstructure);
+        double globalVelocity = Math.min(maxVelocity, tipLimiter.getMaxVelocity());
+        double globalAcceleration = Math.min(maxAcceleration, tipLimiter.getMaxAcceleration());
+        // tipping doesn't care which way the acceleration points
+        double centripetalAcceleration = Math.min(maxCentripetalAcceleration, tipLimiter.getMaxAcceleration());
+        double[] velocityLimit = new double[n];
+        double[] accelerationLimit = new double[n];
+        for (int i = 0; i < n; i++) {
+            double velocity = globalVelocity;
+            double acceleration = globalAcceleration;
+            for (double[] zone : zones) {
+                if (px[i] >= zone[0] && px[i] <= zone[1] && py[i] >= zone[2] && py[i] <= zone[3]) {
+                    velocity = Math.min(velocity, zone[4]);
+                    acceleration = Math.min(acceleration, zone[5]);
+                }
+            }
+            if (Math.abs(curvature[i]) > 1e-9) {
+                velocity = Math.min(velocity, Math.sqrt(centripetalAcceleration / Math.abs(curvature[i])));
+            }
+            velocityLimit[i] = velocity;
+            accelerationLimit[i] = acceleration;
+        }
+        // the rotation has to finish over the same distance
+        for (int i = 0; i < n - 1; i++) {
+            if (Math.abs(dHeading[i]) > 1e-9) {
+                double velocity = ds[i] * MAX_PATH_OMEGA / Math.abs(dHeading[i]);
+                velocityLimit[i] = Math.min(velocityLimit[i], velocity);
+                velocityLimit[i + 1] = Math.min(velocityLimit[i + 1], velocity);
+            }
+        }
+
+        // forward pass (accelerating), backward pass (braking)
+        double[] v = new double[n];
+        v[0] = MathUtil.clamp(startVelocity, 0, velocityLimit[0]);
+        for (int i = 1; i < n; i++) {
+            v[i] = Math.min(velocityLimit[i], Math.sqrt(v[i - 1] * v[i - 1] + 2 * accelerationLimit[i - 1] * ds[i - 1]));
+        }
+        v[n - 1] = 0;
+        for (int i = n - 2; i >= 0; i--) {
+            v[i] = Math.min(v[i], Math.sqrt(v[i + 1] * v[i + 1] + 2 * accelerationLimit[i] * ds[i]));
+        }
+
+        // time at each point, constant acceleration between points
+        double[] t = new double[n];
+        for (int i = 0; i < n - 1; i++) {
+            double sum = v[i] + v[i + 1];
+            t[i + 1] = t[i] + (sum > 1e-9 ? 2 * ds[i] / sum : 2 * Math.sqrt(ds[i] / accelerationLimit[i]));
+        }
+
+        double totalTime = t[n - 1];
+        int count = (int) Math.ceil(totalTime / dt) + 1;
+        double[] x = new double[count];
+        double[] y = new double[count];
+        double[] vx = new double[count];
+        double[] vy = new double[count];
+        double[] theta = new double[count];
+        double[] omega = new double[count];
+        int segment = 0;
+        for (int k = 0; k < count; k++) {
+            double time = Math.min(k * dt, totalTime);
+            while (segment < n - 2 && t[segment + 1] < time) {
+                segment++;
+            }
+            double tau = time - t[segment];
+            double segmentTime = t[segment + 1] - t[segment];
+            double a = (v[segment + 1] * v[segment + 1] - v[segment] * v[segment]) / (2 * ds[segment]);
+            double distance = MathUtil.clamp(v[segment] * tau + 0.5 * a * tau * tau, 0, ds[segment]);
+            double fraction = distance / ds[segment];
+            double speed = Math.max(v[segment] + a * tau, 0);
+            double ux = (px[segment + 1] - px[segment]) / ds[segment];
+            double uy = (py[segment + 1] - py[segment]) / ds[segment];
+
+            x[k] = px[segment] + ux * distance;
+            y[k] = py[segment] + uy * distance;
+            vx[k] = ux * speed;
+            vy[k] = uy * speed;
+            theta[k] = MathUtil.angleModulus(heading[segment] + dHeading[segment] * fraction);
+            omega[k] = segmentTime > 0 ? dHeading[segment] / segmentTime : 0;
+        }
+        // hold the end pose at rest
+        vx[count - 1] = 0;
+        vy[count - 1] = 0;
+        omega[count - 1] = 0;
+        return new SampledTrajectory(dt, x, y, vx, vy, theta, omega);
+    }
+}
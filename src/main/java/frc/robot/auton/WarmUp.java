@@ -0,0 +1,217 @@
+package frc.robot.auton;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.WaitUntilCommand;
+import frc.robot.Constants.SWERVE;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.subsystems.drivetrain.SwervePoseEstimator;
+import frc.robot.subsystems.drivetrain.SwerveSetpointGenerator;
+import frc.robot.subsystems.drivetrain.TipLimiter;
+import frc.robot.util.Telemetry;
+
+/**
+ * Gets the auton hot paths JIT-compiled while disabled, so the first auton loops don't run
+ * interpreted.
+ *
+ * Drives a simulated robot along a built-in S-curve the way FollowSampledTrajectory does:
+ * follower, setpoint generator, pose estimator with vision corrections and past-pose lookups, tip
+ * limiter, kinematics, balance controller, and a small command group run by hand. Every object
+ * here is a private copy; nothing touches the subsystems or any motor. run() does as many
+ * simulated loops as fit in BUDGET_MS each disabled loop, until TARGET_LOOPS (well past the
+ * JIT's compile thresholds).
+ *
+ * "Warm Up": {simulated loops, first auton loop (ms), max over the first second of auton (ms),
+ * main loop mean before auton (ms)}
+ */
+public class WarmUp {
+    private static final double DT = 0.02;
+    private static final double BUDGET_MS = 5;
+    private static final int TARGET_LOOPS = 20_000;
+    // S-curve: x = t, y = AMPLITUDE * sin(t), turning at a constant rate
+    private static final double CURVE_SECONDS = 3;
+    private static final double AMPLITUDE = 0.5; // m
+    private static final double TURN_RATE = 0.3; // rad/s
+    private static final int VISION_EVERY = 10; // loops
+    private static final int AUTON_TIMING_LOOPS = 50; // the first second at 50 Hz
+
+    private final SampledTrajectory trajectory;
+    private final HolonomicFollower follower;
+    private final SwerveSetpointGenerator generator;
+    private final SwervePoseEstimator estimator;
+    private final SwerveDriveKinematics kinematics;
+    private final TipLimiter tipLimiter;
+    private final BalanceController balance = new BalanceController();
+    private final Command commandGroup;
+    private final int numModules;
+    private final double[] distances, angles;
+    private final double[] pastPose = new double[3];
+
+    private int loops;
+    private boolean done;
+    // simulated robot, field-relative pose and robot-relative velocity
+    private double time, x, y, theta, vx, vy, omega;
+
+    private int autonLoops = AUTON_TIMING_LOOPS;
+    private double firstAutonMs, maxAutonMs, steadyMeanMs;
+
+    private final Telemetry.DoubleArrayChannel telemetry =
+        Telemetry.doubleArrayChannel("Warm Up", 4, TELEMETRY.LOW);
+
+    /** @param moduleLocations the drivetrain's, so the math runs on the same sizes */
+    public WarmUp(Translation2d[] moduleLocations) {
+        trajectory = sCurve();
+        PIDController turning = new PIDController(1, 0, 0);
+        turning.enableContinuousInput(-Math.PI, Math.PI);
+        follower = new HolonomicFollower(new PIDController(1, 0, 0), new PIDController(1, 0, 0), turning);
+        generator = new SwerveSetpointGenerator(
+            SWERVE.MAX_DIRECTION_SPEED, SWERVE.MAX_ACCELERATION, SWERVE.MAX_DECELERATION,
+            SWERVE.MAX_ROTATIONAL_ACCELERATION, SWERVE.MAX_STEERING_SPEED, moduleLocations);
+        numModules = moduleLocations.length;
+        SwerveModulePosition[] positions = new SwerveModulePosition[numModules];
+        for (int i = 0; i < numModules; i++) {
+            positions[i] = new SwerveModulePosition();
+        }
+        estimator = new SwervePoseEstimator(moduleLocations, new Rotation2d(), positions, new Pose2d());
+        kinematics = new SwerveDriveKinematics(moduleLocations);
+        tipLimiter = new TipLimiter(Math.abs(moduleLocations[0].getX()), Math.abs(moduleLocations[0].getY()),
+            SWERVE.MAX_ACCELERATION, SWERVE.MAX_DECELERATION, SWERVE.MAX_DIRECTION_SPEED);
+        distances = new double[numModules];
+        angles = new double[numModules];
+        // composed once; run by hand below, never scheduled, so it requires nothing
+        commandGroup = new SequentialCommandGroup(
+            new InstantCommand(),
+            new ParallelCommandGroup(new InstantCommand(), new WaitUntilCommand(() -> true)));
+        restart();
+    }
+
+    private static SampledTrajectory sCurve() {
+        int count = (int) Math.round(CURVE_SECONDS / DT) + 1;
+        double[] x = new double[count], y = new double[count], vx = new double[count], vy = new double[count];
+        double[] heading = new double[count], omega = new double[count];
+        for (int i = 0; i < count; i++) {
+            double t = i * DT;
+            x[i] = t;
+            y[i] = AMPLITUDE * Math.sin(t);
+            vx[i] = 1;
+            vy[i] = AMPLITUDE * Math.cos(t);
+            heading[i] = MathUtil.angleModulus(TURN_RATE * t);
+            omega[i] = TURN_RATE;
+        }
+        return new SampledTrajectory(DT, x, y, vx, vy, heading, omega);
+    }
+
+    private void restart() {
+        time = 0;
+        x = y = theta = vx = vy = omega = 0;
+        follower.reset();
+        generator.reset(new double[numModules]);
+        for (int i = 0; i < numModules; i++) {
+            distances[i] = 0;
+            angles[i] = 0;
+        }
+        balance.reset(1);
+    }
+
+    /** Simulate loops for up to BUDGET_MS. Call from disabledPeriodic; does nothing once warm. */
+    public void run() {
+        if (done) {
+            return;
+        }
+        long deadline = RobotController.getFPGATime() + (long) (BUDGET_MS * 1000);
+        while (RobotController.getFPGATime() < deadline && loops < TARGET_LOOPS) {
+            step();
+            loops++;
+        }
+        telemetry.set(0, loops);
+        if (loops >= TARGET_LOOPS) {
+            done = true;
+            DataLogManager.log("Warm Up: done, " + loops + " simulated loops");
+        }
+    }
+
+    private void step() {
+        follower.calculate(trajectory, time, x, y, theta);
+        tipLimiter.update(45 + 45 * Math.sin(time), 6 + 6 * Math.cos(time));
+        generator.setLimits(tipLimiter.getMaxVelocity(), tipLimiter.getMaxAcceleration(),
+            tipLimiter.getMaxDeceleration(), SWERVE.MAX_ROTATIONAL_ACCELERATION, SWERVE.MAX_STEERING_SPEED);
+        generator.generate(follower.getVx(), follower.getVy(), follower.getOmega(), DT);
+        vx = generator.getVx();
+        vy = generator.getVy();
+        omega = generator.getOmega();
+        // what Drivetrain.setModuleStates() would get
+        SwerveModuleState[] states = kinematics.toSwerveModuleStates(new ChassisSpeeds(vx, vy, omega));
+        SwerveDriveKinematics.desaturateWheelSpeeds(states, SWERVE.MAX_DIRECTION_SPEED);
+
+        double heading = theta + omega * DT / 2;
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        x += (vx * cos - vy * sin) * DT;
+        y += (vx * sin + vy * cos) * DT;
+        theta = MathUtil.angleModulus(theta + omega * DT);
+        time += DT;
+
+        for (int i = 0; i < numModules; i++) {
+            distances[i] += generator.getModuleSpeed(i) * DT;
+            angles[i] = generator.getModuleAngle(i);
+        }
+        estimator.update(time, theta, distances, angles);
+        if (loops % VISION_EVERY == 0) {
+            estimator.addVisionMeasurement(new Pose2d(x, y, new Rotation2d(theta)), time - DT);
+        }
+        estimator.getPoseAt(time - DT / 2, pastPose);
+
+        balance.update(10 * Math.sin(time), 10 * Math.cos(time), 0, DT);
+
+        commandGroup.initialize();
+        // a few executes at most: an instant command, then the parallel group
+        for (int i = 0; i < 5 && !commandGroup.isFinished(); i++) {
+            commandGroup.execute();
+        }
+        commandGroup.end(false);
+
+        if (time >= trajectory.getTotalTimeSeconds()) {
+            restart();
+        }
+    }
+
+    /** @param mainLoopMeanMs the main loop's mean while disabled, to compare the auton loops against */
+    public void startAutonTiming(double mainLoopMeanMs) {
+        autonLoops = 0;
+        maxAutonMs = 0;
+        steadyMeanMs = mainLoopMeanMs;
+        telemetry.set(3, steadyMeanMs);
+    }
+
+    /** Call every auton loop with the main loop's time; only the first second is kept. */
+    public void recordAutonLoop(double loopMs) {
+        if (autonLoops >= AUTON_TIMING_LOOPS) {
+            return;
+        }
+        if (autonLoops == 0) {
+            firstAutonMs = loopMs;
+            telemetry.set(1, firstAutonMs);
+        }
+        maxAutonMs = Math.max(maxAutonMs, loopMs);
+        telemetry.set(2, maxAutonMs);
+        autonLoops++;
+        if (autonLoops == AUTON_TIMING_LOOPS) {
+            DataLogManager.log(String.format("Warm Up: first auton loop %.2f ms, max %.2f ms in the first second,"
+                + " mean before auton %.2f ms (%s)", firstAutonMs, maxAutonMs, steadyMeanMs,
+                done ? "warm" : "warm-up not finished: " + loops + " loops"));
+        }
+    }
+}
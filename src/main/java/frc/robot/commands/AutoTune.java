@@ -0,0 +1,106 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.util.AutoTunable;
+import frc.robot.util.RelayTuner;
+import frc.robot.util.Telemetry;
+import frc.robot.util.TunedGains;
+
+/**
+ * Auto-tune a mechanism's position loop with RelayTuner.
+ *
+ * Holds the setpoint with the current gains first and averages the output it takes (gravity),
+ * then relays around that. On success the new gains are applied and saved; if the mechanism
+ * wanders past maxExcursion or it takes too long, nothing changes. Run from test mode.
+ */
+public class AutoTune extends CommandBase {
+  private static final double HOLD_SECONDS = 1.5;
+  // average the output over the end of the hold, once it has settled
+  private static final double BIAS_SECONDS = 0.5;
+  private static final double TIMEOUT_SECONDS = 20.0;
+
+  private final AutoTunable mechanism;
+  private final double setpoint, amplitude, hysteresis, maxExcursion;
+  private final Timer timer = new Timer();
+  private RelayTuner tuner;
+  private double biasSum;
+  private int biasSamples;
+
+  private static final Telemetry.StringChannel statusTelemetry =
+    Telemetry.stringChannel("Auto Tune", TELEMETRY.NORMAL);
+
+  /**
+   * @param setpoint closed loop units, with at least maxExcursion of travel on both sides
+   * @param amplitude relay output, percent output
+   * @param hysteresis closed loop units, above the sensor noise
+   * @param maxExcursion closed loop units
+   */
+  public AutoTune(AutoTunable mechanism, Subsystem requirement,
+      double setpoint, double amplitude, double hysteresis, double maxExcursion) {
+    setName("AutoTune " + mechanism.getTuningName());
+    addRequirements(requirement);
+    this.mechanism = mechanism;
+    this.setpoint = setpoint;
+    this.amplitude = amplitude;
+    this.hysteresis = hysteresis;
+    this.maxExcursion = maxExcursion;
+  }
+
+  @Override
+  public void initialize() {
+    tuner = null;
+    biasSum = 0;
+    biasSamples = 0;
+    timer.restart();
+    statusTelemetry.set(mechanism.getTuningName() + ": holding");
+  }
+
+  @Override
+  public void execute() {
+    if (tuner == null) {
+      mechanism.holdTuningPosition(setpoint);
+      if (timer.get() > HOLD_SECONDS - BIAS_SECONDS) {
+        biasSum += mechanism.getTuningOutput();
+        biasSamples++;
+      }
+      if (timer.get() >= HOLD_SECONDS) {
+        tuner = new RelayTuner(setpoint, biasSum / biasSamples, amplitude, hysteresis, maxExcursion);
+        statusTelemetry.set(mechanism.getTuningName() + ": relay");
+      }
+      return;
+    }
+    mechanism.setTuningOutput(tuner.update(mechanism.getTuningPosition(), timer.get()));
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    mechanism.setTuningOutput(0);
+
+    String status;
+    if (tuner != null && tuner.isDone()) {
+      TunedGains gains = TunedGains.fromPercentOutput(tuner.getP(), 0, tuner.getD());
+      mechanism.applyTunedGains(gains);
+      status = String.format("%s: Ku %.4f, Tu %.3f s, bias %.3f -> %s",
+        mechanism.getTuningName(), tuner.getUltimateGain(), tuner.getUltimatePeriod(), tuner.getBias(), gains);
+    } else if (tuner != null && tuner.isAborted()) {
+      status = mechanism.getTuningName() + ": aborted, moved past " + maxExcursion + " from the setpoint";
+    } else {
+      status = mechanism.getTuningName() + (interrupted ? ": interrupted" : ": timed out");
+    }
+    statusTelemetry.set(status);
+    DataLogManager.log("AutoTune " + status);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return tuner != null && (tuner.isDone() || tuner.isAborted()) || timer.hasElapsed(TIMEOUT_SECONDS);
+  }
+}
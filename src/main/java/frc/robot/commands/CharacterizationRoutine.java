@@ -0,0 +1,149 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands;
+
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import edu.wpi.first.wpilibj2.command.WaitCommand;
+import frc.robot.util.Characterizable;
+
+/**
+ * One SysId-style test on a mechanism: a quasistatic voltage ramp or a dynamic voltage step,
+ * forward or reverse.
+ *
+ * The voltage is set and {applied voltage, position, velocity} logged from a 5 ms Notifier,
+ * not the 20 ms robot loop, to "/sysid/<mechanism>/<test>" in the DataLog (metadata has the
+ * gravity model and units). Pull the .wpilog off the roboRIO and fit it with
+ *   ./gradlew runTool -Ptool=CharacterizationFitter -PtoolArgs=<file.wpilog>
+ * which writes the gains to src/main/deploy/feedforward.properties.
+ *
+ * Ends after maxSeconds; disable the robot to stop early. Soft limits and limit switches on
+ * the motor controllers still apply.
+ */
+public class CharacterizationRoutine extends CommandBase {
+  private static final double PERIOD = 0.005; // s
+  // let the mechanism come to rest between tests
+  private static final double REST_SECONDS = 2.0;
+
+  public enum Test {
+    QUASISTATIC_FORWARD("quasistatic-forward", 1, false),
+    QUASISTATIC_REVERSE("quasistatic-reverse", -1, false),
+    DYNAMIC_FORWARD("dynamic-forward", 1, true),
+    DYNAMIC_REVERSE("dynamic-reverse", -1, true);
+
+    public final String key;
+    public final double direction;
+    public final boolean dynamic;
+
+    Test(String key, double direction, boolean dynamic) {
+      this.key = key;
+      this.direction = direction;
+      this.dynamic = dynamic;
+    }
+  }
+
+  private final Characterizable mechanism;
+  private final Test test;
+  private final double rampVoltsPerSecond, stepVolts, maxSeconds;
+  // voltage, position, velocity; the log copies it on append
+  private final double[] sample = new double[3];
+
+  private DoubleArrayLogEntry entry;
+  private Notifier notifier;
+  private long startMicros;
+  private boolean running;
+  private volatile boolean done;
+
+  /**
+   * @param rampVoltsPerSecond quasistatic ramp rate
+   * @param stepVolts dynamic step voltage
+   * @param maxSeconds how long the test may run
+   * @param requirements the subsystem that owns the mechanism, and any that must hold still meanwhile
+   */
+  public CharacterizationRoutine(Characterizable mechanism, Test test,
+      double rampVoltsPerSecond, double stepVolts, double maxSeconds, Subsystem... requirements) {
+    setName("Characterize " + mechanism.getCharacterizationName() + " " + test.key);
+    addRequirements(requirements);
+    this.mechanism = mechanism;
+    this.test = test;
+    this.rampVoltsPerSecond = rampVoltsPerSecond;
+    this.stepVolts = stepVolts;
+    this.maxSeconds = maxSeconds;
+  }
+
+  /** All four tests, forward/reverse alternating so the mechanism ends up about where it started. */
+  public static Command fullSequence(Characterizable mechanism, double rampVoltsPerSecond, double stepVolts,
+      double quasistaticSeconds, double dynamicSeconds, Subsystem... requirements) {
+    // the rests hold the requirements too, so nothing moves the mechanism between tests
+    return new SequentialCommandGroup(
+      new CharacterizationRoutine(mechanism, Test.QUASISTATIC_FORWARD, rampVoltsPerSecond, stepVolts, quasistaticSeconds, requirements),
+      new WaitCommand(REST_SECONDS),
+      new CharacterizationRoutine(mechanism, Test.QUASISTATIC_REVERSE, rampVoltsPerSecond, stepVolts, quasistaticSeconds, requirements),
+      new WaitCommand(REST_SECONDS),
+      new CharacterizationRoutine(mechanism, Test.DYNAMIC_FORWARD, rampVoltsPerSecond, stepVolts, dynamicSeconds, requirements),
+      new WaitCommand(REST_SECONDS),
+      new CharacterizationRoutine(mechanism, Test.DYNAMIC_REVERSE, rampVoltsPerSecond, stepVolts, dynamicSeconds, requirements)
+    ).withName("Characterize " + mechanism.getCharacterizationName());
+  }
+
+  @Override
+  public void initialize() {
+    entry = new DoubleArrayLogEntry(DataLogManager.getLog(),
+      "/sysid/" + mechanism.getCharacterizationName() + "/" + test.key,
+      "gravity=" + mechanism.getGravity() + ";units=" + mechanism.getCharacterizationUnits());
+    mechanism.setFastFeedback(true);
+    done = false;
+    startMicros = RobotController.getFPGATime();
+    synchronized (this) {
+      running = true;
+    }
+    notifier = new Notifier(this::step);
+    notifier.setName("Characterization");
+    notifier.startPeriodic(PERIOD);
+  }
+
+  private synchronized void step() {
+    if (!running) {
+      return;
+    }
+    long now = RobotController.getFPGATime();
+    double elapsed = (now - startMicros) / 1e6;
+    if (elapsed >= maxSeconds) {
+      mechanism.setCharacterizationVoltage(0);
+      done = true;
+      return;
+    }
+    double volts = test.direction * (test.dynamic ? stepVolts : rampVoltsPerSecond * elapsed);
+    mechanism.setCharacterizationVoltage(volts);
+
+    sample[0] = mechanism.getAppliedVoltage();
+    sample[1] = mechanism.getCharacterizationPosition();
+    sample[2] = mechanism.getCharacterizationVelocity();
+    entry.append(sample, now);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    notifier.stop();
+    notifier.close();
+    // a step() that was already running finishes before this
+    synchronized (this) {
+      running = false;
+      mechanism.setCharacterizationVoltage(0);
+    }
+    mechanism.setFastFeedback(false);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return done;
+  }
+}
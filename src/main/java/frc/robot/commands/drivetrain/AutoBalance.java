@@ -0,0 +1,80 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.drivetrain;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.auton.BalanceController;
+import frc.robot.subsystems.drivetrain.Drivetrain;
+import frc.robot.util.Telemetry;
+
+/**
+ * Balance on the charge station with BalanceController (tilt plus the pigeon's raw gyro rates).
+ * Holds still while level and ends once it has stayed level, with the modules locked in an X.
+ * The lock needs nothing after this command: the setpoint generator restarts from the X, so a
+ * stopped drive request afterwards keeps the wheels there.
+ * Time-to-level against the old P controller on roll: ./gradlew runTool -Ptool=BalanceSimulation
+ */
+public class AutoBalance extends CommandBase {
+  private final Drivetrain drivetrain;
+  private final double approachDirection;
+  private final BalanceController controller = new BalanceController();
+  private double lastTimestamp;
+
+  private final Telemetry.StringChannel stateTelemetry;
+
+  /**
+   * @param approachDirection +1 / -1 to drive onto the station forward / backward (robot-relative)
+   *     from the floor, 0 if the robot is already on it
+   * @param stateTelemetry from {@link #stateChannel()}, registered once while the robot is
+   *     constructed; autons build a new AutoBalance each time they're regenerated
+   */
+  public AutoBalance(Drivetrain drivetrain, double approachDirection, Telemetry.StringChannel stateTelemetry) {
+    setName("AutoBalance");
+    addRequirements(drivetrain);
+    this.drivetrain = drivetrain;
+    this.approachDirection = approachDirection;
+    this.stateTelemetry = stateTelemetry;
+  }
+
+  /** "Balance State": the BalanceController state. Call once, before Telemetry.start(). */
+  public static Telemetry.StringChannel stateChannel() {
+    return Telemetry.stringChannel("Balance State", TELEMETRY.NORMAL);
+  }
+
+  @Override
+  public void initialize() {
+    controller.reset(approachDirection);
+    lastTimestamp = Timer.getFPGATimestamp();
+  }
+
+  @Override
+  public void execute() {
+    double now = Timer.getFPGATimestamp();
+    controller.update(
+      drivetrain.getRoll() - drivetrain.ROLL_WHEN_LEVEL,
+      drivetrain.getRollRate(), drivetrain.getPitchRate(),
+      now - lastTimestamp);
+    lastTimestamp = now;
+    stateTelemetry.set(controller.getState().name());
+
+    if (controller.getState() == BalanceController.State.HOLD) {
+      drivetrain.lockSwerve();
+    } else {
+      drivetrain.drive(controller.getVx(), 0, 0);
+    }
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    drivetrain.lockSwerve();
+  }
+
+  @Override
+  public boolean isFinished() {
+    return controller.isBalanced();
+  }
+}
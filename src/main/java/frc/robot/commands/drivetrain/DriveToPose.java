@@ -0,0 +1,79 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.drivetrain;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.drivetrain.Drivetrain;
+
+/**
+ * Drive straight to a field pose with holonomic P control, for short alignment moves
+ * where generating a path isn't worth it. Speed is capped here; acceleration is already
+ * limited by the drivetrain's setpoint generator. Ends once within tolerance.
+ */
+public class DriveToPose extends CommandBase {
+  private final double TRANSLATION_P = 3.0, ROTATION_P = 4.0;
+  private final double MAX_SPEED = 2.0; // m/s
+  private final double MAX_ANGULAR_SPEED = Math.PI; // rad/s
+  private final double TRANSLATION_TOLERANCE = 0.03; // m
+  private final double ROTATION_TOLERANCE = Math.toRadians(2.0);
+
+  private final Drivetrain drivetrain;
+  private final double targetX, targetY, targetRotation;
+  private final PIDController xController = new PIDController(TRANSLATION_P, 0, 0);
+  private final PIDController yController = new PIDController(TRANSLATION_P, 0, 0);
+  private final PIDController thetaController = new PIDController(ROTATION_P, 0, 0);
+
+  public DriveToPose(Drivetrain drivetrain, Pose2d target) {
+    setName("DriveToPose");
+    addRequirements(drivetrain);
+    this.drivetrain = drivetrain;
+    this.targetX = target.getX();
+    this.targetY = target.getY();
+    this.targetRotation = target.getRotation().getRadians();
+    xController.setTolerance(TRANSLATION_TOLERANCE);
+    yController.setTolerance(TRANSLATION_TOLERANCE);
+    thetaController.setTolerance(ROTATION_TOLERANCE);
+    thetaController.enableContinuousInput(-Math.PI, Math.PI);
+  }
+
+  @Override
+  public void initialize() {
+    xController.reset();
+    yController.reset();
+    thetaController.reset();
+  }
+
+  @Override
+  public void execute() {
+    double poseTheta = drivetrain.getPoseRotationRadians();
+    double fieldVx = xController.calculate(drivetrain.getPoseX(), targetX);
+    double fieldVy = yController.calculate(drivetrain.getPoseY(), targetY);
+    double omega = MathUtil.clamp(thetaController.calculate(poseTheta, targetRotation), -MAX_ANGULAR_SPEED, MAX_ANGULAR_SPEED);
+
+    // cap the speed without changing the direction
+    double speed = Math.hypot(fieldVx, fieldVy);
+    if (speed > MAX_SPEED) {
+      fieldVx *= MAX_SPEED / speed;
+      fieldVy *= MAX_SPEED / speed;
+    }
+
+    double cos = Math.cos(poseTheta);
+    double sin = Math.sin(poseTheta);
+    drivetrain.drive(fieldVx * cos + fieldVy * sin, -fieldVx * sin + fieldVy * cos, omega);
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    drivetrain.drive(0, 0, 0);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return xController.atSetpoint() && yController.atSetpoint() && thetaController.atSetpoint();
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.drivetrain;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.pathplanner.lib.PathPoint;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
+import edu.wpi.first.wpilibj2.command.InstantCommand;
+import edu.wpi.first.wpilibj2.command.ProxyCommand;
+import edu.wpi.first.wpilibj2.command.SequentialCommandGroup;
+import frc.robot.auton.PathGenerationService;
+import frc.robot.auton.SampledTrajectory;
+import frc.robot.auton.TrajectoryConstraints.Superstructure;
+import frc.robot.subsystems.drivetrain.Drivetrain;
+
+/**
+ * Drive from wherever the robot is to a target, generating the path when the command starts.
+ *
+ * Generation runs on the PathGenerationService worker. While it does, this command requires
+ * nothing, so whatever had the drivetrain (the driver's default command, the previous command)
+ * keeps driving it. The path starts from the robot's pose and field velocity when it's requested;
+ * if the robot has moved more than REPLAN_DISTANCE from that start by the time the path is ready,
+ * it's generated again from where the robot is now (up to MAX_REPLANS times, after that the
+ * follower's feedback takes up the difference). Only then does a FollowSampledTrajectory take the
+ * drivetrain, through a ProxyCommand. Ends early if generation fails; an unfinished request is
+ * cancelled if the command is interrupted.
+ */
+public class FollowGeneratedPath extends SequentialCommandGroup {
+  private static final double REPLAN_DISTANCE = 0.1; // meters
+  private static final int MAX_REPLANS = 2;
+
+  private final PathGenerationService pathService;
+  private final Drivetrain drivetrain;
+  private final PathPoint target;
+  private final Superstructure superstructure;
+
+  private CompletableFuture<SampledTrajectory> pendingPath;
+  private SampledTrajectory trajectory;
+  private boolean failed;
+  private int replans;
+
+  public FollowGeneratedPath(PathGenerationService pathService, Drivetrain drivetrain, PathPoint target,
+      Superstructure superstructure, PIDController xController, PIDController yController, PIDController turningPIDController) {
+    setName("FollowGeneratedPath");
+    this.pathService = pathService;
+    this.drivetrain = drivetrain;
+    this.target = target;
+    this.superstructure = superstructure;
+
+    addCommands(
+      // no requirements: the drivetrain isn't ours until there's a path to follow
+      new FunctionalCommand(this::start, this::checkPath, this::cancelPath, () -> trajectory != null || failed),
+      new ProxyCommand(() -> trajectory == null ? new InstantCommand()
+        : new FollowSampledTrajectory(trajectory, drivetrain, xController, yController, turningPIDController))
+    );
+  }
+
+  private void start() {
+    trajectory = null;
+    failed = false;
+    replans = 0;
+    requestPath();
+  }
+
+  private void requestPath() {
+    // routed around the field obstacles from where we are now, at the speed we're going
+    pendingPath = pathService.generateFrom(superstructure, drivetrain.getPose(),
+      drivetrain.getFieldVelocityX(), drivetrain.getFieldVelocityY(), target);
+  }
+
+  private void checkPath() {
+    if (!pendingPath.isDone()) {
+      return;
+    }
+    if (pendingPath.isCompletedExceptionally() || pendingPath.isCancelled()) {
+      failed = true;
+      return;
+    }
+    SampledTrajectory path = pendingPath.join();
+    double drift = Math.hypot(path.getX(0) - drivetrain.getPoseX(), path.getY(0) - drivetrain.getPoseY());
+    if (drift > REPLAN_DISTANCE && replans < MAX_REPLANS) {
+      replans++;
+      requestPath();
+      return;
+    }
+    trajectory = path;
+  }
+
+  private void cancelPath(boolean interrupted) {
+    if (interrupted) {
+      pendingPath.cancel(false);
+    }
+  }
+}
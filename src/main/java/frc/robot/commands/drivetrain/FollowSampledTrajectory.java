@@ -0,0 +1,54 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.commands.drivetrain;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.auton.HolonomicFollower;
+import frc.robot.auton.SampledTrajectory;
+import frc.robot.subsystems.drivetrain.Drivetrain;
+
+/** Follows a SampledTrajectory with a HolonomicFollower, allocation-free every loop. */
+public class FollowSampledTrajectory extends CommandBase {
+  private final SampledTrajectory trajectory;
+  private final Drivetrain drivetrain;
+  private final HolonomicFollower follower;
+  private final Timer timer = new Timer();
+
+  public FollowSampledTrajectory(SampledTrajectory trajectory, Drivetrain drivetrain,
+      PIDController xController, PIDController yController, PIDController turningPIDController) {
+    setName("FollowSampledTrajectory");
+    addRequirements(drivetrain);
+    this.trajectory = trajectory;
+    this.drivetrain = drivetrain;
+    this.follower = new HolonomicFollower(xController, yController, turningPIDController);
+  }
+
+  @Override
+  public void initialize() {
+    follower.reset();
+    timer.reset();
+    timer.start();
+  }
+
+  @Override
+  public void execute() {
+    follower.calculate(trajectory, timer.get(),
+      drivetrain.getPoseX(), drivetrain.getPoseY(), drivetrain.getPoseRotationRadians());
+    drivetrain.drive(follower.getVx(), follower.getVy(), follower.getOmega());
+  }
+
+  @Override
+  public void end(boolean interrupted) {
+    timer.stop();
+    drivetrain.drive(0, 0, 0);
+  }
+
+  @Override
+  public boolean isFinished() {
+    return timer.hasElapsed(trajectory.getTotalTimeSeconds());
+  }
+}
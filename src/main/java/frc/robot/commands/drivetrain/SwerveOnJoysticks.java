@@ -4,20 +4,25 @@
 
 package frc.robot.commands.drivetrain;
 
-import java.util.function.Supplier;
+import java.util.function.DoubleSupplier;
 
-import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.CommandBase;
 import frc.robot.Constants.SWERVE;
+import frc.robot.Constants.TELEMETRY;
 import frc.robot.subsystems.drivetrain.Drivetrain;
+import frc.robot.util.DriveInputShaper;
+import frc.robot.util.Telemetry;
 
 public class SwerveOnJoysticks extends CommandBase {
   Drivetrain drivetrain;
-  Supplier<Double> leftJoyX, leftJoyY, rightJoyX;
-  double xSpeed, ySpeed, angularSpeed;
+  DoubleSupplier leftJoyX, leftJoyY, rightJoyX;
+  DriveInputShaper shaper;
+
+  // "Drive Joystick": {x, y, rotation} after shaping
+  private final Telemetry.DoubleArrayChannel joystickTelemetry;
+
   /** Creates a new SwerveOnJoysticks. */
-  public SwerveOnJoysticks(Drivetrain drivetrain, Supplier<Double> leftJoyX, Supplier<Double> leftJoyY, Supplier<Double> rightJoyX) {
+  public SwerveOnJoysticks(Drivetrain drivetrain, DoubleSupplier leftJoyX, DoubleSupplier leftJoyY, DoubleSupplier rightJoyX) {
     // Use addRequirements() here to declare subsystem dependencies.
     setName("SwerveOnJoysticks");
     addRequirements(drivetrain);
@@ -25,33 +30,26 @@ public class SwerveOnJoysticks extends CommandBase {
     this.leftJoyX = leftJoyX;
     this.leftJoyY = leftJoyY;
     this.rightJoyX = rightJoyX;
+    this.shaper = new DriveInputShaper(SWERVE.JOYSTICK_DEADBAND, SWERVE.JOYSTICK_EXPO);
+
+    // only for the drive team to glance at
+    joystickTelemetry = Telemetry.doubleArrayChannel("Drive Joystick", 3, TELEMETRY.LOW);
   }
 
   // Called when the command is initially scheduled.
   @Override
-  public void initialize() {
-
-  }
+  public void initialize() {}
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
-    // 0 if in deadband
-    // (speed - deadband) / (1 - deadband)
-    xSpeed = MathUtil.applyDeadband(leftJoyY.get(), SWERVE.JOYSTICK_DEADBAND);
-    ySpeed = MathUtil.applyDeadband(leftJoyX.get(), SWERVE.JOYSTICK_DEADBAND);
-    angularSpeed = MathUtil.applyDeadband(-rightJoyX.get(), SWERVE.JOYSTICK_DEADBAND);
+    // deadband + expo; the drivetrain's setpoint generator limits acceleration
+    shaper.calculate(leftJoyY.getAsDouble(), leftJoyX.getAsDouble(), -rightJoyX.getAsDouble());
 
-    xSpeed = xSpeed > 0.0 ? Math.pow(xSpeed, 2) : -Math.pow(xSpeed, 2);
-    ySpeed = ySpeed > 0.0 ? Math.pow(ySpeed, 2) : -Math.pow(ySpeed, 2);
-    angularSpeed = angularSpeed > 0.0 ? Math.pow(angularSpeed, 2) : -Math.pow(angularSpeed, 2);
-    
-    
-    SmartDashboard.putNumber("xSpeedJoystick", xSpeed);
-    SmartDashboard.putNumber("ySpeedJoystick", ySpeed);
-    SmartDashboard.putNumber("angularSpeedJoystick", angularSpeed);
-    this.drivetrain.joyDrive(xSpeed, ySpeed, angularSpeed);
-    
+    joystickTelemetry.set(0, shaper.getX());
+    joystickTelemetry.set(1, shaper.getY());
+    joystickTelemetry.set(2, shaper.getRotation());
+    this.drivetrain.joyDrive(shaper.getX(), shaper.getY(), shaper.getRotation());
   }
 
   // Called once the command ends or is interrupted.
@@ -20,6 +20,7 @@ import edu.wpi.first.math.geometry.Rotation3d;
 import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.util.Units;
+import frc.robot.util.BootTracer;
 
 /** Wrapper for PhotonCamera class */
 public class AprilTagCamera extends PhotonCamera {
@@ -37,15 +38,18 @@ public class AprilTagCamera extends PhotonCamera {
 
     public AprilTagCamera() {
         super(DEFAULT_CAM_NAME);
+        long layoutStart = BootTracer.start();
         try {
             fieldLayout = AprilTagFieldLayout.loadFromResource(AprilTagFields.k2023ChargedUp.m_resourceFile);
         } catch (IOException e) {
             fieldLayout = null;
         }
+        BootTracer.end("AprilTagFieldLayout.loadFromResource", layoutStart);
         Transform3d robotToCam = new Transform3d(
             new Translation3d(DEFAULT_CAM_X, DEFAULT_CAM_Y, DEFAULT_CAM_Z), new Rotation3d(0, 0, 0)
         );
-        estimator = new PhotonPoseEstimator(fieldLayout, PoseStrategy.MULTI_TAG_PNP, this, robotToCam);
+        estimator = BootTracer.trace("PhotonPoseEstimator",
+            () -> new PhotonPoseEstimator(fieldLayout, PoseStrategy.MULTI_TAG_PNP, this, robotToCam));
     }
 
     public double getDistanceToTarget() {
@@ -5,17 +5,20 @@
 package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.motorcontrol.Spark;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.util.Telemetry;
 
 public class GamePieceLEDs extends SubsystemBase {
 
   private Spark blinkin;
   private LEDState gamePieceState;
+  private final Telemetry.StringChannel colorTelemetry;
   /** Creates a new GamePieceLEDs. */
   public GamePieceLEDs() {
     this.blinkin = new Spark(0);
     gamePieceState = LEDState.OFF;
+    colorTelemetry = Telemetry.stringChannel("LED Color", TELEMETRY.LOW);
 
   }
 
@@ -52,8 +55,8 @@ public class GamePieceLEDs extends SubsystemBase {
     CONE
   }
 
-  @Override
-  public void periodic() {
-    SmartDashboard.putString("LED Color", gamePieceState.toString());
+  /** LEDs rate group (see RobotContainer.scheduleRateGroups). */
+  public void update() {
+    colorTelemetry.set(gamePieceState.name());
   }
 }
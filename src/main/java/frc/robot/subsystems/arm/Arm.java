@@ -13,14 +13,21 @@ import com.ctre.phoenix.motorcontrol.StatusFrame;
 import com.ctre.phoenix.motorcontrol.can.TalonFX;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Constants.CAN;
 import frc.robot.Constants.SWERVE;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.util.AutoTunable;
+import frc.robot.util.BootTracer;
+import frc.robot.util.CANHealthMonitor;
+import frc.robot.util.Characterizable;
+import frc.robot.util.Telemetry;
+import frc.robot.util.TunableNumber;
+import frc.robot.util.TunedGains;
 
 
-public class Arm extends SubsystemBase {
+public class Arm extends SubsystemBase implements Characterizable, AutoTunable {
   /** Creates a new Arm. */
   public static final int
     ARM_PID_SLOT = 0;
@@ -38,66 +45,92 @@ public class Arm extends SubsystemBase {
     PEAK_OUTPUT_REVERSE = -1.0;
 
   public final double GEAR_RATIO = 1;
-  public final double THRESHOLD_DEGREES = 2.0;
+  private static final double THRESHOLD_DEGREES = 2.0;
 
   private TalonFX arm;
+  // config results and status freshness (CANHealthMonitor)
+  private final CANHealthMonitor.Device health = CANHealthMonitor.register("Arm Talon", Constants.CAN_STATUS_FREQ.NORMAL);
+
+  // live tuning, pushed to the Talon only when changed (see TunableNumber)
+  private final TunableNumber kP, kI, kD, nominalForward, nominalReverse;
+  private final TunableNumber threshold = new TunableNumber("Arm/Threshold (deg)", THRESHOLD_DEGREES);
+
+  // read once per superstructure rate group run (refreshSensors)
+  private double sensorPosition, closedLoopError;
+  private int revLimitClosed;
+
+  // "Arm State": {encoder, closed loop error, rev limit}
+  private final Telemetry.DoubleArrayChannel stateTelemetry;
+  private final Telemetry.BooleanChannel isFinishedTelemetry, atPositionTelemetry;
 
   public Arm() {
     arm = new TalonFX(CAN.ARM_TALON);
 
-    arm.configFactoryDefault();
+    long configStart = BootTracer.start();
+    health.config(arm.configFactoryDefault());
 
     // Account for motor orientation.
     arm.setSensorPhase(true);
     arm.setInverted(true);
 
-    SmartDashboard.putNumber("ARM P", ARM_NORMAL_P_VAL);
-    SmartDashboard.putNumber("ARM I", ARM_NORMAL_I_VAL);
-    SmartDashboard.putNumber("ARM D", ARM_NORMAL_D_VAL);
-    SmartDashboard.putNumber("ARM MIN REV", NOMINAL_OUTPUT_REVERSE);
-    SmartDashboard.putNumber("ARM MIN FWD", NOMINAL_OUTPUT_FORWARD);
-
-    arm.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, ARM_PID_SLOT, Constants.CTRE.TIMEOUT_MS);
+    health.config(arm.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, ARM_PID_SLOT, Constants.CTRE.TIMEOUT_MS));
     // arm.configSelectedFeedbackCoefficient(50.0 / 290000.0);
-    arm.configSelectedFeedbackCoefficient(100.0 / 410400.0);
+    health.config(arm.configSelectedFeedbackCoefficient(100.0 / 410400.0));
 
-    arm.configForwardSoftLimitThreshold(100.0);
-    arm.configForwardSoftLimitEnable(true);
+    health.config(arm.configForwardSoftLimitThreshold(100.0));
+    health.config(arm.configForwardSoftLimitEnable(true));
 
-    arm.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH);
+    health.config(arm.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH));
     arm.setNeutralMode(NeutralMode.Brake);
 
 
-    arm.configClearPositionOnLimitR(true, Constants.CTRE.TIMEOUT_MS);
+    health.config(arm.configClearPositionOnLimitR(true, Constants.CTRE.TIMEOUT_MS));
 
-    arm.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    arm.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
-    arm.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    arm.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
+    health.config(arm.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
     
-    arm.configAllowableClosedloopError(ARM_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS);
-
-    arm.config_kP(ARM_PID_SLOT, ARM_NORMAL_P_VAL, Constants.CTRE.TIMEOUT_MS);
-    arm.config_kI(ARM_PID_SLOT, ARM_NORMAL_I_VAL, Constants.CTRE.TIMEOUT_MS);
-    arm.config_kD(ARM_PID_SLOT, ARM_NORMAL_D_VAL, Constants.CTRE.TIMEOUT_MS);
-    arm.config_kF(ARM_PID_SLOT, ARM_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS);
+    health.config(arm.configAllowableClosedloopError(ARM_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS));
+
+    // auto-tuned gains if there are any (AutoTune)
+    TunedGains gains = TunedGains.load(getTuningName(), ARM_NORMAL_P_VAL, ARM_NORMAL_I_VAL, ARM_NORMAL_D_VAL);
+    health.config(arm.config_kP(ARM_PID_SLOT, gains.p, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.config_kI(ARM_PID_SLOT, gains.i, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.config_kD(ARM_PID_SLOT, gains.d, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.config_kF(ARM_PID_SLOT, ARM_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS));
+    BootTracer.end("Arm Talon config", configStart);
+
+    kP = new TunableNumber("Arm/kP", gains.p);
+    kI = new TunableNumber("Arm/kI", gains.i);
+    kD = new TunableNumber("Arm/kD", gains.d);
+    nominalForward = new TunableNumber("Arm/Nominal Fwd", NOMINAL_OUTPUT_FORWARD);
+    nominalReverse = new TunableNumber("Arm/Nominal Rev", NOMINAL_OUTPUT_REVERSE);
+    TunableNumber.onChange(
+      () -> configPID(kP.get(), kI.get(), kD.get(), nominalForward.get(), nominalReverse.get()),
+      kP, kI, kD, nominalForward, nominalReverse);
 
     arm.selectProfileSlot(ARM_PID_SLOT, Constants.CTRE.PRIMARY_PID_LOOP);
+
+    stateTelemetry = Telemetry.doubleArrayChannel("Arm State", 3, TELEMETRY.HIGH);
+    isFinishedTelemetry = Telemetry.booleanChannel("arm isFinished", TELEMETRY.RATE_GROUP);
+    atPositionTelemetry = Telemetry.booleanChannel("arm atPosition", TELEMETRY.RATE_GROUP);
+    refreshSensors();
   }
 
   public void configPID(double P, double I, double D, double nomFwd, double nomRev) {
-    arm.config_kP(ARM_PID_SLOT, P, Constants.CTRE.TIMEOUT_MS);
-    arm.config_kI(ARM_PID_SLOT, I, Constants.CTRE.TIMEOUT_MS);
-    arm.config_kD(ARM_PID_SLOT, D, Constants.CTRE.TIMEOUT_MS);
+    health.config(arm.config_kP(ARM_PID_SLOT, P, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.config_kI(ARM_PID_SLOT, I, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.config_kD(ARM_PID_SLOT, D, Constants.CTRE.TIMEOUT_MS));
     
-    arm.configNominalOutputForward(nomFwd, Constants.CTRE.TIMEOUT_MS);
-    arm.configNominalOutputReverse(nomRev, Constants.CTRE.TIMEOUT_MS);
+    health.config(arm.configNominalOutputForward(nomFwd, Constants.CTRE.TIMEOUT_MS));
+    health.config(arm.configNominalOutputReverse(nomRev, Constants.CTRE.TIMEOUT_MS));
   }
 
   /**  sets the position of the entire arm */
   public void setPosition(ArmPosition armPos) {
-    arm.set(ControlMode.Position, armPos.degreePos);
-    // arm.set(ControlMode.Position, (290000.0 / 50.0) * armPos.degreePos);
+    arm.set(ControlMode.Position, armPos.getDegrees());
+    // arm.set(ControlMode.Position, (290000.0 / 50.0) * armPos.getDegrees());
   }
 
   public void setSpeed(Supplier<Double> speedSupplier) {
@@ -107,38 +140,118 @@ public class Arm extends SubsystemBase {
   }
 
   public double getError() {
-    return arm.getClosedLoopError(ARM_PID_SLOT);
+    return closedLoopError;
   }
 
   public boolean isFinishedMoving() {
-    return getError() < THRESHOLD_DEGREES;
+    return getError() < threshold.get();
   }
 
   public boolean isAtPosition(ArmPosition pos) {
-    return Math.abs(getArmPosition() - pos.degreePos) < THRESHOLD_DEGREES;
+    return Math.abs(getArmPosition() - pos.getDegrees()) < threshold.get();
   }
 
   public double getArmPosition() {
+    return sensorPosition;
+  }
+
+  /** Read the Talon. Main loop, before the scheduler (see RobotContainer.refreshSensors). */
+  public void refreshSensors() {
+    sensorPosition = arm.getSelectedSensorPosition();
+    health.read(arm.getLastError());
+    closedLoopError = arm.getClosedLoopError(ARM_PID_SLOT);
+    revLimitClosed = arm.isRevLimitSwitchClosed();
+    // TELEMETRY.HIGH, faster than the telemetry group
+    stateTelemetry.set(0, sensorPosition);
+    stateTelemetry.set(1, closedLoopError);
+    stateTelemetry.set(2, revLimitClosed);
+  }
+
+  /** Telemetry rate group. */
+  public void updateTelemetry() {
+    isFinishedTelemetry.set(isFinishedMoving());
+    atPositionTelemetry.set(isAtPosition(ArmPosition.BULLDOZER));
+  }
+
+  // AutoTunable
+
+  @Override
+  public String getTuningName() {
+    return "Arm";
+  }
+
+  @Override
+  public double getTuningPosition() {
     return arm.getSelectedSensorPosition();
   }
 
   @Override
-  public void periodic() {
-    // This method will be called once per scheduler run
-    SmartDashboard.putNumber("arm encoder", getArmPosition());
-    SmartDashboard.putNumber("arm error", getError());
-    SmartDashboard.putNumber("arm rev limit", arm.isRevLimitSwitchClosed());
-    SmartDashboard.putBoolean("arm isFinished", isFinishedMoving());
-    SmartDashboard.putBoolean("arm atPosition", isAtPosition(ArmPosition.BULLDOZER));
+  public void holdTuningPosition(double position) {
+    arm.set(ControlMode.Position, position);
+  }
+
+  @Override
+  public void setTuningOutput(double percentOutput) {
+    arm.set(ControlMode.PercentOutput, percentOutput);
+  }
 
-    // configPID(
-    //   SmartDashboard.getNumber("ARM P", ARM_LOWER_LIMIT),
-    //   SmartDashboard.getNumber("ARM I", ARM_LOWER_LIMIT),
-    //   SmartDashboard.getNumber("ARM D", ARM_LOWER_LIMIT),
-    //   SmartDashboard.getNumber("ARM MIN REV", ARM_LOWER_LIMIT),
-    //   SmartDashboard.getNumber("ARM MIN FWD", ARM_LOWER_LIMIT)
-    // );
+  @Override
+  public double getTuningOutput() {
+    return arm.getMotorOutputPercent();
+  }
 
+  @Override
+  public void applyTunedGains(TunedGains gains) {
+    kP.set(gains.p);
+    kI.set(gains.i);
+    kD.set(gains.d);
+    configPID(gains.p, gains.i, gains.d, nominalForward.get(), nominalReverse.get());
+    gains.save(getTuningName());
+  }
+
+  // Characterizable, position in radians from horizontal
+  @Override
+  public String getCharacterizationName() {
+    return "arm";
+  }
+
+  @Override
+  public String getCharacterizationUnits() {
+    return "rad";
+  }
+
+  @Override
+  public Gravity getGravity() {
+    return Gravity.COSINE;
+  }
+
+  @Override
+  public void setCharacterizationVoltage(double volts) {
+    arm.set(ControlMode.PercentOutput, volts / arm.getBusVoltage());
+  }
+
+  @Override
+  public double getAppliedVoltage() {
+    return arm.getMotorOutputVoltage();
+  }
+
+  @Override
+  public double getCharacterizationPosition() {
+    // 0 degrees is hanging straight down
+    return Math.toRadians(arm.getSelectedSensorPosition() - 90.0);
+  }
+
+  @Override
+  public double getCharacterizationVelocity() {
+    // sensor units per 100 ms
+    return Math.toRadians(arm.getSelectedSensorVelocity() * 10.0);
+  }
+
+  @Override
+  public void setFastFeedback(boolean enabled) {
+    int framePeriod = enabled ? Constants.CAN_STATUS_FREQ.XTRA_HIGH : Constants.CAN_STATUS_FREQ.NORMAL;
+    health.config(arm.setStatusFramePeriod(StatusFrame.Status_2_Feedback0, framePeriod));
+    health.setFramePeriod(framePeriod);
   }
 
   public enum ArmPosition {
@@ -153,11 +266,16 @@ public class Arm extends SubsystemBase {
     BULLDOZER(17.0),
     FELL_OVER(0); // lol
 
-    public final double degreePos;
+    // overridable from the dashboard, "Arm/Presets/<name>"
+    private final TunableNumber degreePos;
+
+    ArmPosition(double degreePos) {
+      this.degreePos = new TunableNumber("Arm/Presets/" + name(), degreePos);
+    }
 
-        ArmPosition(double degreePos) {
-          this.degreePos = degreePos;
-        }
+    public double getDegrees() {
+      return degreePos.get();
+    }
   }
  
 }
\ No newline at end of file
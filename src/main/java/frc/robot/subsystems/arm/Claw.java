@@ -11,18 +11,24 @@ import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.StatusFrame;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Constants.CAN;
+import frc.robot.Constants.TELEMETRY;
 import frc.robot.subsystems.GamePieceLEDs;
 import frc.robot.subsystems.GamePieceLEDs.GamePiece;
+import frc.robot.util.AutoTunable;
+import frc.robot.util.BootTracer;
+import frc.robot.util.CANHealthMonitor;
+import frc.robot.util.Telemetry;
+import frc.robot.util.TunableNumber;
+import frc.robot.util.TunedGains;
 
-public class Claw extends SubsystemBase {
+public class Claw extends SubsystemBase implements AutoTunable {
 
   public static final int CLAW_PID_SLOT = 0;
 
-  public final double THRESHOLD = 5.0;
+  private static final double THRESHOLD = 5.0;
 
   private static final double
     CLAW_NORMAL_P_VAL = 1.0 / 25.0 * 1024.0,
@@ -40,39 +46,65 @@ public class Claw extends SubsystemBase {
     SPROCKET_DIAMETER_INCHES = 1.5;
     
   private TalonSRX claw;
+  // config results and status freshness (CANHealthMonitor)
+  private final CANHealthMonitor.Device health = CANHealthMonitor.register("Claw Talon", Constants.CAN_STATUS_FREQ.NORMAL);
+
+  // live tuning, pushed to the motor controller only when changed (see TunableNumber)
+  private final TunableNumber kP, kI, kD;
+  private final TunableNumber threshold = new TunableNumber("Claw/Threshold", THRESHOLD);
+
+  // read once per superstructure rate group run (refreshSensors)
+  private double sensorPosition, supplyCurrent;
+  private boolean revLimitClosed;
+
+  // "Claw State": {position, supply current, closed}
+  private final Telemetry.DoubleArrayChannel stateTelemetry;
   /** Creates a new Claw. */
   public Claw() {
     claw = new TalonSRX(CAN.CLAW_TALON);
 
-    claw.configFactoryDefault();
+    long configStart = BootTracer.start();
+    health.config(claw.configFactoryDefault());
 
     claw.setSensorPhase(true);
     claw.setInverted(false);
     
-    claw.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative, CLAW_PID_SLOT, Constants.CTRE.TIMEOUT_MS);
+    health.config(claw.configSelectedFeedbackSensor(FeedbackDevice.CTRE_MagEncoder_Relative, CLAW_PID_SLOT, Constants.CTRE.TIMEOUT_MS));
     // claw.configSelectedFeedbackCoefficient(2*(SPROCKET_DIAMETER_INCHES * Math.PI) / Constants.UNITS.MAG_ENCODER_TICKS_PER_REVOLUTION, CLAW_PID_SLOT, Constants.CTRE_TIMEOUT);
-    claw.configSelectedFeedbackCoefficient(100/6200.0, CLAW_PID_SLOT, Constants.CTRE.TIMEOUT_MS);
+    health.config(claw.configSelectedFeedbackCoefficient(100/6200.0, CLAW_PID_SLOT, Constants.CTRE.TIMEOUT_MS));
     // claw.setSelectedSensorPosition(ClawPosition.CONE.position + 10);
     
-    claw.configForwardSoftLimitThreshold(99.0);
-    claw.configForwardSoftLimitEnable(true, Constants.CTRE.TIMEOUT_MS);
-
-    claw.configClearPositionOnLimitR(true, Constants.CTRE.TIMEOUT_MS);
-    claw.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH);
-
-    claw.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    claw.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
-    claw.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    claw.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
-
-    claw.configAllowableClosedloopError(CLAW_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS);
-
-    claw.config_kP(CLAW_PID_SLOT, CLAW_NORMAL_P_VAL, Constants.CTRE.TIMEOUT_MS);
-    claw.config_kI(CLAW_PID_SLOT, CLAW_NORMAL_I_VAL, Constants.CTRE.TIMEOUT_MS);
-    claw.config_kD(CLAW_PID_SLOT, CLAW_NORMAL_D_VAL, Constants.CTRE.TIMEOUT_MS);
-    claw.config_kF(CLAW_PID_SLOT, CLAW_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS);
+    health.config(claw.configForwardSoftLimitThreshold(99.0));
+    health.config(claw.configForwardSoftLimitEnable(true, Constants.CTRE.TIMEOUT_MS));
+
+    health.config(claw.configClearPositionOnLimitR(true, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH));
+
+    health.config(claw.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
+
+    health.config(claw.configAllowableClosedloopError(CLAW_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS));
+
+    // auto-tuned gains if there are any (AutoTune)
+    TunedGains gains = TunedGains.load(getTuningName(), CLAW_NORMAL_P_VAL, CLAW_NORMAL_I_VAL, CLAW_NORMAL_D_VAL);
+    health.config(claw.config_kP(CLAW_PID_SLOT, gains.p, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.config_kI(CLAW_PID_SLOT, gains.i, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.config_kD(CLAW_PID_SLOT, gains.d, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.config_kF(CLAW_PID_SLOT, CLAW_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS));
+    BootTracer.end("Claw Talon config", configStart);
+
+    kP = new TunableNumber("Claw/kP", gains.p);
+    kI = new TunableNumber("Claw/kI", gains.i);
+    kD = new TunableNumber("Claw/kD", gains.d);
+    TunableNumber.onChange(
+      () -> configPID(kP.get(), kI.get(), kD.get(), NOMINAL_OUTPUT_FORWARD, NOMINAL_OUTPUT_REVERSE),
+      kP, kI, kD);
 
     claw.selectProfileSlot(CLAW_PID_SLOT, Constants.CTRE.PRIMARY_PID_LOOP);
+
+    stateTelemetry = Telemetry.doubleArrayChannel("Claw State", 3, TELEMETRY.RATE_GROUP);
   }
 
   public void close(GamePieceLEDs leds) {
@@ -96,32 +128,90 @@ public class Claw extends SubsystemBase {
   }
 
   public boolean isAtPosition(ClawPosition pos) {
-    return Math.abs(claw.getSelectedSensorPosition() - pos.position) < THRESHOLD;
+    return Math.abs(sensorPosition - pos.getPosition()) < threshold.get();
   }
 
   public void setPosition(ClawPosition position) {
-    claw.set(ControlMode.Position, position.position);
+    claw.set(ControlMode.Position, position.getPosition());
   }
   
 
+  public void configPID(double P, double I, double D, double nomFwd, double nomRev) {
+    health.config(claw.config_kP(CLAW_PID_SLOT, P, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.config_kI(CLAW_PID_SLOT, I, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.config_kD(CLAW_PID_SLOT, D, Constants.CTRE.TIMEOUT_MS));
+
+    health.config(claw.configNominalOutputForward(nomFwd, Constants.CTRE.TIMEOUT_MS));
+    health.config(claw.configNominalOutputReverse(nomRev, Constants.CTRE.TIMEOUT_MS));
+  }
+
+  // AutoTunable
+
+  @Override
+  public String getTuningName() {
+    return "Claw";
+  }
+
+  @Override
+  public double getTuningPosition() {
+    return claw.getSelectedSensorPosition();
+  }
+
+  @Override
+  public void holdTuningPosition(double position) {
+    claw.set(ControlMode.Position, position);
+  }
+
+  @Override
+  public void setTuningOutput(double percentOutput) {
+    claw.set(ControlMode.PercentOutput, percentOutput);
+  }
+
+  @Override
+  public double getTuningOutput() {
+    return claw.getMotorOutputPercent();
+  }
+
+  @Override
+  public void applyTunedGains(TunedGains gains) {
+    kP.set(gains.p);
+    kI.set(gains.i);
+    kD.set(gains.d);
+    configPID(gains.p, gains.i, gains.d, NOMINAL_OUTPUT_FORWARD, NOMINAL_OUTPUT_REVERSE);
+    gains.save(getTuningName());
+  }
+
   public enum ClawPosition {
     OPEN(-2),
     CONE(87),
     CUBE(54),
     RAMP(25);
 
-    public final double position;
+    // overridable from the dashboard, "Claw/Presets/<name>"
+    private final TunableNumber position;
 
     private ClawPosition(double pos) {
-      this.position = pos;
+      this.position = new TunableNumber("Claw/Presets/" + name(), pos);
+    }
+
+    public double getPosition() {
+      return position.get();
     }
   }
 
 
-  @Override
-  public void periodic() {
-    SmartDashboard.putNumber("Claw Position", claw.getSelectedSensorPosition(CLAW_PID_SLOT));
-    SmartDashboard.putBoolean("claw closed", claw.isRevLimitSwitchClosed() == 1);
-    SmartDashboard.putNumber("claw supply current", claw.getSupplyCurrent());
+  /** Read the Talon. Main loop, before the scheduler (see RobotContainer.refreshSensors). */
+  public void refreshSensors() {
+    sensorPosition = claw.getSelectedSensorPosition(CLAW_PID_SLOT);
+    health.read(claw.getLastError());
+    supplyCurrent = claw.getSupplyCurrent();
+    revLimitClosed = claw.isRevLimitSwitchClosed() == 1;
+  }
+
+  /** Telemetry rate group. */
+  public void updateTelemetry() {
+    stateTelemetry.set(0, sensorPosition);
+    stateTelemetry.set(1, supplyCurrent);
+    stateTelemetry.set(2, revLimitClosed);
   }
 }
\ No newline at end of file
@@ -11,12 +11,19 @@ import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.StatusFrame;
 import com.ctre.phoenix.motorcontrol.can.TalonFX;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Constants.CAN;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.util.AutoTunable;
+import frc.robot.util.BootTracer;
+import frc.robot.util.CANHealthMonitor;
+import frc.robot.util.Characterizable;
+import frc.robot.util.Telemetry;
+import frc.robot.util.TunableNumber;
+import frc.robot.util.TunedGains;
 
-public class Telescope extends SubsystemBase {
+public class Telescope extends SubsystemBase implements Characterizable, AutoTunable {
   /** Creates a new Telescope. */
   public static final int TELESCOPE_PID_SLOT = 0;
 
@@ -38,43 +45,72 @@ public class Telescope extends SubsystemBase {
     NOMINAL_OUTPUT_REVERSE = -0.02,
     PEAK_OUTPUT_REVERSE = -1;
 
-  public final double THRESHOLD_INCHES = 1.0;
+  private static final double THRESHOLD_INCHES = 1.0;
 
   private TalonFX telescope;
+  // config results and status freshness (CANHealthMonitor)
+  private final CANHealthMonitor.Device health = CANHealthMonitor.register("Telescope Talon", Constants.CAN_STATUS_FREQ.NORMAL);
+
+  // live tuning, pushed to the motor controller only when changed (see TunableNumber)
+  private final TunableNumber kP, kI, kD;
+  private final TunableNumber threshold = new TunableNumber("Telescope/Threshold (in)", THRESHOLD_INCHES);
+
+  // read once per superstructure rate group run (refreshSensors)
+  private double sensorPosition, closedLoopError;
+  private int fwdLimitClosed, revLimitClosed;
+
+  // "Telescope State": {encoder, closed loop error, fwd limit, rev limit}
+  private final Telemetry.DoubleArrayChannel stateTelemetry;
+  private final Telemetry.BooleanChannel isAtPositionTelemetry;
 
   public Telescope() {
     telescope = new TalonFX(CAN.TELESCOPE_TALON);
 
-    telescope.configFactoryDefault();
+    long configStart = BootTracer.start();
+    health.config(telescope.configFactoryDefault());
 
     telescope.setInverted(false);
     telescope.setSensorPhase(false);
 
-    telescope.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, TELESCOPE_PID_SLOT, Constants.CTRE.TIMEOUT_MS);
-    telescope.configSelectedFeedbackCoefficient((SPROCKET_DIAMETER_INCHES * Math.PI) / (GEAR_RATIO * Constants.UNITS.FALCON_ENCODER_TICKS_PER_REVOLUTION),
-    TELESCOPE_PID_SLOT, Constants.CTRE.TIMEOUT_MS);
+    health.config(telescope.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, TELESCOPE_PID_SLOT, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.configSelectedFeedbackCoefficient((SPROCKET_DIAMETER_INCHES * Math.PI) / (GEAR_RATIO * Constants.UNITS.FALCON_ENCODER_TICKS_PER_REVOLUTION),
+    TELESCOPE_PID_SLOT, Constants.CTRE.TIMEOUT_MS));
 
-    telescope.configForwardSoftLimitThreshold(13.0);
-    telescope.configForwardSoftLimitEnable(true);
+    health.config(telescope.configForwardSoftLimitThreshold(13.0));
+    health.config(telescope.configForwardSoftLimitEnable(true));
     
-    telescope.configClearPositionOnLimitR(true, Constants.CTRE.TIMEOUT_MS);
+    health.config(telescope.configClearPositionOnLimitR(true, Constants.CTRE.TIMEOUT_MS));
   
-    telescope.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH);
+    health.config(telescope.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH));
     telescope.setNeutralMode(NeutralMode.Brake);
 
-    telescope.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    telescope.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
-    telescope.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    telescope.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
+    health.config(telescope.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
+
+    health.config(telescope.configAllowableClosedloopError(TELESCOPE_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS));
 
-    telescope.configAllowableClosedloopError(TELESCOPE_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS);
+    // auto-tuned gains if there are any (AutoTune)
+    TunedGains gains = TunedGains.load(getTuningName(), TELESCOPE_NORMAL_P_VAL, TELESCOPE_NORMAL_I_VAL, TELESCOPE_NORMAL_D_VAL);
+    health.config(telescope.config_kP(TELESCOPE_PID_SLOT, gains.p, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.config_kI(TELESCOPE_PID_SLOT, gains.i, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.config_kD(TELESCOPE_PID_SLOT, gains.d, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.config_kF(TELESCOPE_PID_SLOT, TELESCOPE_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS));
+    BootTracer.end("Telescope Talon config", configStart);
 
-    telescope.config_kP(TELESCOPE_PID_SLOT, TELESCOPE_NORMAL_P_VAL, Constants.CTRE.TIMEOUT_MS);
-    telescope.config_kI(TELESCOPE_PID_SLOT, TELESCOPE_NORMAL_I_VAL, Constants.CTRE.TIMEOUT_MS);
-    telescope.config_kD(TELESCOPE_PID_SLOT, TELESCOPE_NORMAL_D_VAL, Constants.CTRE.TIMEOUT_MS);
-    telescope.config_kF(TELESCOPE_PID_SLOT, TELESCOPE_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS);
+    kP = new TunableNumber("Telescope/kP", gains.p);
+    kI = new TunableNumber("Telescope/kI", gains.i);
+    kD = new TunableNumber("Telescope/kD", gains.d);
+    TunableNumber.onChange(
+      () -> configPID(kP.get(), kI.get(), kD.get(), NOMINAL_OUTPUT_FORWARD, NOMINAL_OUTPUT_REVERSE),
+      kP, kI, kD);
 
     telescope.selectProfileSlot(TELESCOPE_PID_SLOT, Constants.CTRE.PRIMARY_PID_LOOP);
+
+    stateTelemetry = Telemetry.doubleArrayChannel("Telescope State", 4, TELEMETRY.HIGH);
+    isAtPositionTelemetry = Telemetry.booleanChannel("telescope isAtPosition", TELEMETRY.RATE_GROUP);
+    refreshSensors();
   }
 
   public void setSpeed(Supplier<Double> speedSupplier) {
@@ -82,35 +118,133 @@ public class Telescope extends SubsystemBase {
   }
 
   public void setPosition(TelescopePosition telePos) {
-    telescope.set(ControlMode.Position, telePos.encPos);
+    telescope.set(ControlMode.Position, telePos.getInches());
     
   }
 
   public double getError() {
-    return telescope.getClosedLoopError(TELESCOPE_PID_SLOT);
+    return closedLoopError;
   }
 
   public boolean isFinishedMoving() {
-    return getError() < THRESHOLD_INCHES;
+    return getError() < threshold.get();
   }
   
   public double getTelescopePosition() {
-    return telescope.getSelectedSensorPosition();
+    return sensorPosition;
   }
 
   public boolean isAtPosition(TelescopePosition position) {
-    return Math.abs(getTelescopePosition() - position.encPos) < THRESHOLD_INCHES;
+    return Math.abs(getTelescopePosition() - position.getInches()) < threshold.get();
+  }
+
+  /** Read the Talon. Main loop, before the scheduler (see RobotContainer.refreshSensors). */
+  public void refreshSensors() {
+    sensorPosition = telescope.getSelectedSensorPosition(TELESCOPE_PID_SLOT);
+    health.read(telescope.getLastError());
+    closedLoopError = telescope.getClosedLoopError(TELESCOPE_PID_SLOT);
+    fwdLimitClosed = telescope.isFwdLimitSwitchClosed();
+    revLimitClosed = telescope.isRevLimitSwitchClosed();
+    // TELEMETRY.HIGH, faster than the telemetry group
+    stateTelemetry.set(0, sensorPosition);
+    stateTelemetry.set(1, closedLoopError);
+    stateTelemetry.set(2, fwdLimitClosed);
+    stateTelemetry.set(3, revLimitClosed);
   }
 
+  /** Telemetry rate group. */
+  public void updateTelemetry() {
+    isAtPositionTelemetry.set(isAtPosition(TelescopePosition.INSIDE));
+  }
+
+  public void configPID(double P, double I, double D, double nomFwd, double nomRev) {
+    health.config(telescope.config_kP(TELESCOPE_PID_SLOT, P, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.config_kI(TELESCOPE_PID_SLOT, I, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.config_kD(TELESCOPE_PID_SLOT, D, Constants.CTRE.TIMEOUT_MS));
+
+    health.config(telescope.configNominalOutputForward(nomFwd, Constants.CTRE.TIMEOUT_MS));
+    health.config(telescope.configNominalOutputReverse(nomRev, Constants.CTRE.TIMEOUT_MS));
+  }
+
+  // AutoTunable
+
   @Override
-  public void periodic() {
-    // This method will be called once per scheduler run
-    SmartDashboard.putNumber("telescope encoder", telescope.getSelectedSensorPosition(TELESCOPE_PID_SLOT));
-    SmartDashboard.putNumber("telescope error", getError());
-    SmartDashboard.putNumber("Foward limit switch", telescope.isFwdLimitSwitchClosed());
-    SmartDashboard.putNumber("Reverse limit switch", telescope.isRevLimitSwitchClosed());
+  public String getTuningName() {
+    return "Telescope";
+  }
 
-    SmartDashboard.putBoolean("telescope isAtPosition", isAtPosition(TelescopePosition.INSIDE));
+  @Override
+  public double getTuningPosition() {
+    return telescope.getSelectedSensorPosition();
+  }
+
+  @Override
+  public void holdTuningPosition(double position) {
+    telescope.set(ControlMode.Position, position);
+  }
+
+  @Override
+  public void setTuningOutput(double percentOutput) {
+    telescope.set(ControlMode.PercentOutput, percentOutput);
+  }
+
+  @Override
+  public double getTuningOutput() {
+    return telescope.getMotorOutputPercent();
+  }
+
+  @Override
+  public void applyTunedGains(TunedGains gains) {
+    kP.set(gains.p);
+    kI.set(gains.i);
+    kD.set(gains.d);
+    configPID(gains.p, gains.i, gains.d, NOMINAL_OUTPUT_FORWARD, NOMINAL_OUTPUT_REVERSE);
+    gains.save(getTuningName());
+  }
+
+  // Characterizable: the arm angle sets how much of gravity pulls along it; run with the arm held still
+
+  @Override
+  public String getCharacterizationName() {
+    return "telescope";
+  }
+
+  @Override
+  public String getCharacterizationUnits() {
+    return "in";
+  }
+
+  @Override
+  public Gravity getGravity() {
+    return Gravity.CONSTANT;
+  }
+
+  @Override
+  public void setCharacterizationVoltage(double volts) {
+    telescope.set(ControlMode.PercentOutput, volts / telescope.getBusVoltage());
+  }
+
+  @Override
+  public double getAppliedVoltage() {
+    return telescope.getMotorOutputVoltage();
+  }
+
+  @Override
+  public double getCharacterizationPosition() {
+    return telescope.getSelectedSensorPosition();
+  }
+
+  @Override
+  public double getCharacterizationVelocity() {
+    // sensor units per 100 ms
+    return telescope.getSelectedSensorVelocity() * 10.0;
+  }
+
+  @Override
+  public void setFastFeedback(boolean enabled) {
+    int framePeriod = enabled ? Constants.CAN_STATUS_FREQ.XTRA_HIGH : Constants.CAN_STATUS_FREQ.NORMAL;
+    health.config(telescope.setStatusFramePeriod(StatusFrame.Status_2_Feedback0, framePeriod));
+    health.setFramePeriod(framePeriod);
   }
 
   public enum TelescopePosition {
@@ -123,10 +257,15 @@ public class Telescope extends SubsystemBase {
     BULLDOZER(12),
     FELL_OVER(0); // lol
 
-    public final double encPos;
+    // overridable from the dashboard, "Telescope/Presets/<name>"
+    private final TunableNumber encPos;
 
     TelescopePosition(double encPos) {
-      this.encPos = encPos;
+      this.encPos = new TunableNumber("Telescope/Presets/" + name(), encPos);
+    }
+
+    public double getInches() {
+      return encPos.get();
     }
   }
 }
@@ -17,15 +17,21 @@ import com.ctre.phoenix.sensors.PigeonIMU_StatusFrame;
 import com.ctre.phoenix.sensors.PigeonIMU.CalibrationMode;
 import com.ctre.phoenix.sensors.PigeonIMU.PigeonState;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
 import frc.robot.Constants.CAN;
-
-public class Wrist extends SubsystemBase {
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.util.AutoTunable;
+import frc.robot.util.BootTracer;
+import frc.robot.util.CANHealthMonitor;
+import frc.robot.util.Telemetry;
+import frc.robot.util.TunableNumber;
+import frc.robot.util.TunedGains;
+
+public class Wrist extends SubsystemBase implements AutoTunable {
   /** Creates a new wrist. */
 
-  public final double THRESHOLD_DEGREES = 3.0;
+  private static final double THRESHOLD_DEGREES = 3.0;
   public static final int 
     WRIST_PID_SLOT = 0;
 
@@ -54,39 +60,71 @@ public class Wrist extends SubsystemBase {
 
   private VictorSPX wrist;
   private PigeonIMU pigeon;
+  // config results and status freshness (CANHealthMonitor)
+  private final CANHealthMonitor.Device wristHealth = CANHealthMonitor.register("Wrist Victor", Constants.CAN_STATUS_FREQ.NORMAL);
+  private final CANHealthMonitor.Device pigeonHealth = CANHealthMonitor.register("Wrist Pigeon", Constants.CAN_STATUS_FREQ.HIGH);
+
+  // live tuning, pushed to the motor controller only when changed (see TunableNumber)
+  private final TunableNumber kP, kI, kD;
+  private final TunableNumber threshold = new TunableNumber("Wrist/Threshold (deg)", THRESHOLD_DEGREES);
+
+  // read once per superstructure rate group run (refreshSensors)
+  private double sensorPosition, closedLoopError;
+  private boolean ready;
+
+  // "Wrist State": {roll, closed loop error}
+  private final Telemetry.DoubleArrayChannel stateTelemetry;
+  private final Telemetry.BooleanChannel readyTelemetry;
 
   public Wrist() {
     wrist = new VictorSPX(CAN.WRIST_TALON);
     // Configure Gyro
     pigeon = new PigeonIMU(CAN.ARM_GYRO);
-    pigeon.configFactoryDefault();
-    pigeon.setStatusFramePeriod(PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, Constants.CTRE.TIMEOUT_MS);
+    long pigeonStart = BootTracer.start();
+    pigeonHealth.config(pigeon.configFactoryDefault());
+    pigeonHealth.config(pigeon.setStatusFramePeriod(PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, Constants.CAN_STATUS_FREQ.HIGH));
+    BootTracer.end("Wrist Pigeon config", pigeonStart);
 
-    wrist.configFactoryDefault();
+    long configStart = BootTracer.start();
+    wristHealth.config(wrist.configFactoryDefault());
 
     wrist.setSensorPhase(true);
     wrist.setInverted(false);
     wrist.setNeutralMode(NeutralMode.Brake);
-    wrist.configRemoteFeedbackFilter(pigeon.getDeviceID(), RemoteSensorSource.Pigeon_Roll, REMOTE_DEVICE_0);
-    wrist.configSelectedFeedbackSensor(FeedbackDevice.RemoteSensor0, WRIST_PID_SLOT, Constants.CTRE.TIMEOUT_MS);
-    wrist.configSelectedFeedbackCoefficient(Constants.UNITS.MAX_ROLL_DEGREES / Constants.UNITS.PIGEON_ROLL_UNITS, WRIST_PID_SLOT, Constants.CTRE.TIMEOUT_MS);
+    wristHealth.config(wrist.configRemoteFeedbackFilter(pigeon.getDeviceID(), RemoteSensorSource.Pigeon_Roll, REMOTE_DEVICE_0));
+    wristHealth.config(wrist.configSelectedFeedbackSensor(FeedbackDevice.RemoteSensor0, WRIST_PID_SLOT, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.configSelectedFeedbackCoefficient(Constants.UNITS.MAX_ROLL_DEGREES / Constants.UNITS.PIGEON_ROLL_UNITS, WRIST_PID_SLOT, Constants.CTRE.TIMEOUT_MS));
 
-    wrist.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH);
+    wristHealth.config(wrist.setStatusFramePeriod(StatusFrame.Status_13_Base_PIDF0, Constants.CAN_STATUS_FREQ.HIGH));
 
-    wrist.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    wrist.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
-    wrist.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS);
-    wrist.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS);
+    wristHealth.config(wrist.configNominalOutputForward(NOMINAL_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.configNominalOutputReverse(NOMINAL_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.configPeakOutputForward(PEAK_OUTPUT_FORWARD, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.configPeakOutputReverse(PEAK_OUTPUT_REVERSE, Constants.CTRE.TIMEOUT_MS));
     //wrist.configSensorTerm(SensorTerm.Sum0, FeedbackDevice.RemoteSensor0); 
 
-    wrist.configAllowableClosedloopError(WRIST_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS);
-
-    wrist.config_kP(WRIST_PID_SLOT, WRIST_NORMAL_P_VAL, Constants.CTRE.TIMEOUT_MS);
-    wrist.config_kI(WRIST_PID_SLOT, WRIST_NORMAL_I_VAL, Constants.CTRE.TIMEOUT_MS);
-    wrist.config_kD(WRIST_PID_SLOT, WRIST_NORMAL_D_VAL, Constants.CTRE.TIMEOUT_MS);
-    wrist.config_kF(WRIST_PID_SLOT, WRIST_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS);
+    wristHealth.config(wrist.configAllowableClosedloopError(WRIST_PID_SLOT, 0, Constants.CTRE.TIMEOUT_MS));
+
+    // auto-tuned gains if there are any (AutoTune)
+    TunedGains gains = TunedGains.load(getTuningName(), WRIST_NORMAL_P_VAL, WRIST_NORMAL_I_VAL, WRIST_NORMAL_D_VAL);
+    wristHealth.config(wrist.config_kP(WRIST_PID_SLOT, gains.p, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.config_kI(WRIST_PID_SLOT, gains.i, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.config_kD(WRIST_PID_SLOT, gains.d, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.config_kF(WRIST_PID_SLOT, WRIST_NORMAL_F_VAL, Constants.CTRE.TIMEOUT_MS));
+    BootTracer.end("Wrist Victor config", configStart);
+
+    kP = new TunableNumber("Wrist/kP", gains.p);
+    kI = new TunableNumber("Wrist/kI", gains.i);
+    kD = new TunableNumber("Wrist/kD", gains.d);
+    TunableNumber.onChange(
+      () -> configPID(kP.get(), kI.get(), kD.get(), NOMINAL_OUTPUT_FORWARD, NOMINAL_OUTPUT_REVERSE),
+      kP, kI, kD);
     
     wrist.selectProfileSlot(WRIST_PID_SLOT, Constants.CTRE.PRIMARY_PID_LOOP);
+
+    stateTelemetry = Telemetry.doubleArrayChannel("Wrist State", 2, TELEMETRY.HIGH);
+    readyTelemetry = Telemetry.booleanChannel("Wrist Ready", TELEMETRY.LOW);
+    refreshSensors();
   }
 
   public void setSpeed(Supplier<Double> speedSupplier) {
@@ -98,7 +136,7 @@ public class Wrist extends SubsystemBase {
   }
 
   public void setPosition(WristPosition wristPos) {
-    wrist.set(ControlMode.Position, wristPos.degreePos);
+    wrist.set(ControlMode.Position, wristPos.getDegrees());
   }
 
   public void incrementWrist(double increment) {
@@ -106,11 +144,11 @@ public class Wrist extends SubsystemBase {
   }
 
   public double getWristPosition() {
-    return wrist.getSelectedSensorPosition();
+    return sensorPosition;
   }
 
   public boolean isAtPosition(WristPosition pos) {
-    return Math.abs(getWristPosition() - pos.degreePos) < THRESHOLD_DEGREES;
+    return Math.abs(getWristPosition() - pos.getDegrees()) < threshold.get();
   }
 
   public void calibrate() {
@@ -121,11 +159,66 @@ public class Wrist extends SubsystemBase {
     return (pigeon.getState() == PigeonState.Ready);
   }
 
+  /** Read the Victor. Main loop, before the scheduler (see RobotContainer.refreshSensors). */
+  public void refreshSensors() {
+    sensorPosition = wrist.getSelectedSensorPosition();
+    wristHealth.read(wrist.getLastError());
+    closedLoopError = wrist.getClosedLoopError(WRIST_PID_SLOT);
+    ready = isReady();
+    pigeonHealth.read(pigeon.getLastError());
+    // TELEMETRY.HIGH, faster than the telemetry group
+    stateTelemetry.set(0, sensorPosition);
+    stateTelemetry.set(1, closedLoopError);
+  }
+
+  /** Telemetry rate group. */
+  public void updateTelemetry() {
+    readyTelemetry.set(ready);
+  }
+
+  public void configPID(double P, double I, double D, double nomFwd, double nomRev) {
+    wristHealth.config(wrist.config_kP(WRIST_PID_SLOT, P, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.config_kI(WRIST_PID_SLOT, I, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.config_kD(WRIST_PID_SLOT, D, Constants.CTRE.TIMEOUT_MS));
+
+    wristHealth.config(wrist.configNominalOutputForward(nomFwd, Constants.CTRE.TIMEOUT_MS));
+    wristHealth.config(wrist.configNominalOutputReverse(nomRev, Constants.CTRE.TIMEOUT_MS));
+  }
+
+  // AutoTunable
+
   @Override
-  public void periodic() {
-    // This method will be called once per scheduler run
-    SmartDashboard.putNumber("Wrist Roll", getWristPosition());
-    SmartDashboard.putBoolean("Wrist Ready", isReady());
+  public String getTuningName() {
+    return "Wrist";
+  }
+
+  @Override
+  public double getTuningPosition() {
+    return wrist.getSelectedSensorPosition();
+  }
+
+  @Override
+  public void holdTuningPosition(double position) {
+    wrist.set(ControlMode.Position, position);
+  }
+
+  @Override
+  public void setTuningOutput(double percentOutput) {
+    wrist.set(ControlMode.PercentOutput, percentOutput);
+  }
+
+  @Override
+  public double getTuningOutput() {
+    return wrist.getMotorOutputPercent();
+  }
+
+  @Override
+  public void applyTunedGains(TunedGains gains) {
+    kP.set(gains.p);
+    kI.set(gains.i);
+    kD.set(gains.d);
+    configPID(gains.p, gains.i, gains.d, NOMINAL_OUTPUT_FORWARD, NOMINAL_OUTPUT_REVERSE);
+    gains.save(getTuningName());
   }
 
   public enum WristPosition {
@@ -138,10 +231,15 @@ public class Wrist extends SubsystemBase {
     RAMP(38),
     FELL_OVER(0);
 
-    public final double degreePos;
+    // overridable from the dashboard, "Wrist/Presets/<name>"
+    private final TunableNumber degreePos;
 
     WristPosition(double degreePos) {
-      this.degreePos = degreePos;
+      this.degreePos = new TunableNumber("Wrist/Presets/" + name(), degreePos);
+    }
+
+    public double getDegrees() {
+      return degreePos.get();
     }
   }
 }
@@ -5,6 +5,7 @@
 package frc.robot.subsystems.drivetrain;
 
 import java.util.Optional;
+import java.util.function.DoubleSupplier;
 
 import org.photonvision.EstimatedRobotPose;
 
@@ -12,7 +13,6 @@ import com.ctre.phoenix.sensors.PigeonIMU;
 import com.ctre.phoenix.sensors.PigeonIMU_StatusFrame;
 import com.ctre.phoenix.sensors.WPI_PigeonIMU;
 
-import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
@@ -22,48 +22,91 @@ import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 import edu.wpi.first.math.trajectory.Trajectory;
 import edu.wpi.first.math.util.Units;
-import edu.wpi.first.wpilibj.smartdashboard.Field2d;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants.CAN;
+import frc.robot.Constants.CAN_STATUS_FREQ;
 import frc.robot.Constants.SWERVE;
+import frc.robot.Constants.TELEMETRY;
 import frc.robot.sensors.AprilTagCamera;
+import frc.robot.util.BootTracer;
+import frc.robot.util.CANHealthMonitor;
+import frc.robot.util.Characterizable;
+import frc.robot.util.DashboardField;
+import frc.robot.util.Telemetry;
 
 public class Drivetrain extends SubsystemBase {
 
   private SwerveModule frontLeftModule, frontRightModule, backLeftModule, backRightModule;
   private WPI_PigeonIMU pigeon;
-  private SwerveDrivePoseEstimator odometry;
+  private final CANHealthMonitor.Device pigeonHealth = CANHealthMonitor.register("Drive Pigeon", CAN_STATUS_FREQ.HIGH);
+  // raw gyro rates about the pigeon's x, y, z (deg/s) and roll (deg), read once per loop
+  private final double[] gyroRates = new double[3];
+  private double roll = Double.NaN;
+  // getRollRate() axis/sign check, see checkRollRateAxis()
+  private static final double AXIS_CHECK_RATE = 10.0; // deg/s
+  private static final int AXIS_CHECK_SAMPLES = 25;
+  private int rollRateAgree, rollRateDisagree;
+  private SwervePoseEstimator odometry;
+  // reused every loop for the allocation-free odometry update, filled by refreshSensors()
+  private final double[] moduleDistances = new double[4];
+  private final double[] moduleAngles = new double[4];
+  private double sensorTimestamp, odometryHeading, rollTimestamp;
+  private Translation2d[] moduleLocations;
   private SwerveDriveKinematics swerveKinematics;
+  private SwerveSetpointGenerator setpointGenerator;
+  private double lastSetpointTimestamp = -1;
+  // acceleration/speed limits from how far the arm sticks out
+  private TipLimiter tipLimiter;
+  private DoubleSupplier armDegrees = () -> 0.0;
+  private DoubleSupplier telescopeInches = () -> 0.0;
   private AprilTagCamera photonCam;
-  private Field2d smartdashField;
+  private DashboardField smartdashField;
   private final String fieldWidgetType = "Odometry";
   
-  private final double WHEEL_WIDTH = 27; // distance between front/back wheels (in inches)
-  private final double WHEEL_LENGTH = 27; // distance between left/right wheels (in inches)
+  // setpoint generator dt is clamped so a missed loop can't grant a huge acceleration step
+  private final double MAX_SETPOINT_DT = 0.04;
   public final double ROLL_WHEN_LEVEL = -1.75;
 
   private Pose2d testInitialPose; 
 
+  // "Drive State": {pose x (m), pose y (m), pose rotation (deg), angle, yaw, roll, pitch, fused heading (deg)}
+  private final Telemetry.DoubleArrayChannel stateTelemetry;
+  // "Drive Modules": {angle (rad), speed (m/s)} for FL, FR, BL, BR - the layout AdvantageScope's swerve view reads
+  private final Telemetry.DoubleArrayChannel moduleTelemetry;
+  // "Drive Limits": {cog x (m), cog height (m), max acceleration (m/s^2), max speed (m/s),
+  // max deceleration (m/s^2)}
+  private final Telemetry.DoubleArrayChannel limitTelemetry;
+
 
   /** Creates a new Drivetrain. */
   public Drivetrain() {
     // configure swerve modules
-    frontLeftModule = new SwerveModule(CAN.DRIVING_FRONT_LEFT, CAN.TURNING_FRONT_LEFT, -Math.PI / 2);
-    frontRightModule = new SwerveModule(CAN.DRIVING_FRONT_RIGHT, CAN.TURNING_FRONT_RIGHT, 0);
-    backLeftModule = new SwerveModule(CAN.DRIVING_BACK_LEFT, CAN.TURNING_BACK_LEFT, Math.PI);
-    backRightModule = new SwerveModule(CAN.DRIVING_BACK_RIGHT, CAN.TURNING_BACK_RIGHT, Math.PI / 2);
+    frontLeftModule = BootTracer.trace("Front left module",
+      () -> new SwerveModule(CAN.DRIVING_FRONT_LEFT, CAN.TURNING_FRONT_LEFT, -Math.PI / 2));
+    frontRightModule = BootTracer.trace("Front right module",
+      () -> new SwerveModule(CAN.DRIVING_FRONT_RIGHT, CAN.TURNING_FRONT_RIGHT, 0));
+    backLeftModule = BootTracer.trace("Back left module",
+      () -> new SwerveModule(CAN.DRIVING_BACK_LEFT, CAN.TURNING_BACK_LEFT, Math.PI));
+    backRightModule = BootTracer.trace("Back right module",
+      () -> new SwerveModule(CAN.DRIVING_BACK_RIGHT, CAN.TURNING_BACK_RIGHT, Math.PI / 2));
 
     //configure gyro
     pigeon = new WPI_PigeonIMU(CAN.PIGEON_DRIVETRAIN);
-    pigeon.configFactoryDefault();
-    pigeon.setStatusFramePeriod(PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, 10);
+    long pigeonStart = BootTracer.start();
+    pigeonHealth.config(pigeon.configFactoryDefault());
+    pigeonHealth.config(pigeon.setStatusFramePeriod(PigeonIMU_StatusFrame.CondStatus_9_SixDeg_YPR, CAN_STATUS_FREQ.HIGH));
+    // auto-balance reacts to tilt rate
+    pigeonHealth.config(pigeon.setStatusFramePeriod(PigeonIMU_StatusFrame.BiasedStatus_2_Gyro, CAN_STATUS_FREQ.HIGH));
+    BootTracer.end("Drive Pigeon config", pigeonStart);
 
     // photonvision wrapper
-    photonCam = new AprilTagCamera();
+    photonCam = BootTracer.trace("AprilTagCamera", AprilTagCamera::new);
 
-    smartdashField = new Field2d();
-    SmartDashboard.putData("Swerve Odometry", smartdashField);
+    smartdashField = new DashboardField("Swerve Odometry", TELEMETRY.FIELD_TRAJECTORY_POINTS, TELEMETRY.FIELD_POSE_PERIOD_MS);
 
    // testInitialPose = new Pose2d(Units.inchesToMeters(54.93), Units.inchesToMeters(199.65), getPigeonRotation());
     testInitialPose = new Pose2d(0, 0, getPigeonRotation()); //  will be reset by setManualPose()
@@ -73,17 +116,25 @@ public class Drivetrain extends SubsystemBase {
      * swerve modules relative to robot center --> kinematics object --> odometry object 
      */
 
-    double widthFromCenter = Units.inchesToMeters(WHEEL_WIDTH) / 2;
-    double lengthFromCenter = Units.inchesToMeters(WHEEL_LENGTH) / 2;
+    double widthFromCenter = Units.inchesToMeters(SWERVE.WHEEL_WIDTH) / 2;
+    double lengthFromCenter = Units.inchesToMeters(SWERVE.WHEEL_LENGTH) / 2;
 
-    swerveKinematics = new SwerveDriveKinematics(
+    moduleLocations = new Translation2d[] {
       new Translation2d(lengthFromCenter, widthFromCenter),
       new Translation2d(lengthFromCenter, -widthFromCenter),
       new Translation2d(-lengthFromCenter, widthFromCenter),
       new Translation2d(-lengthFromCenter, -widthFromCenter)
-    );
-    odometry = new SwerveDrivePoseEstimator(
-      swerveKinematics, 
+    };
+    swerveKinematics = new SwerveDriveKinematics(moduleLocations);
+    setpointGenerator = new SwerveSetpointGenerator(
+      SWERVE.MAX_DIRECTION_SPEED, SWERVE.MAX_ACCELERATION, SWERVE.MAX_DECELERATION,
+      SWERVE.MAX_ROTATIONAL_ACCELERATION, SWERVE.MAX_STEERING_SPEED,
+      moduleLocations);
+    tipLimiter = new TipLimiter(lengthFromCenter, widthFromCenter,
+      SWERVE.MAX_ACCELERATION, SWERVE.MAX_DECELERATION, SWERVE.MAX_DIRECTION_SPEED);
+    resetSetpoint();
+    odometry = new SwervePoseEstimator(
+      moduleLocations,
       getPigeonRotation(),
       new SwerveModulePosition[] {
         frontLeftModule.getPosition(),
@@ -93,9 +144,18 @@ public class Drivetrain extends SubsystemBase {
       },
       getInitialPose());
 
-    SmartDashboard.putNumber("CurrentPose X", getPose().getX());
-    SmartDashboard.putNumber("CurrentPose Y", getPose().getY());
-    SmartDashboard.putNumber("CurrentPose Rotation", getPose().getRotation().getDegrees());
+    stateTelemetry = Telemetry.doubleArrayChannel("Drive State", 8, TELEMETRY.RATE_GROUP);
+    moduleTelemetry = Telemetry.doubleArrayChannel("Drive Modules", 8, TELEMETRY.RATE_GROUP);
+    limitTelemetry = Telemetry.doubleArrayChannel("Drive Limits", 5, TELEMETRY.RATE_GROUP);
+  }
+
+  /**
+   * Where to read the arm angle (degrees) and telescope extension (inches) from. Every loop the
+   * drive acceleration and speed limits are lowered as the center of gravity rises and moves out.
+   */
+  public void setSuperstructureSource(DoubleSupplier armDegrees, DoubleSupplier telescopeInches) {
+    this.armDegrees = armDegrees;
+    this.telescopeInches = telescopeInches;
   }
 
   public void resetYaw() {
@@ -107,7 +167,22 @@ public class Drivetrain extends SubsystemBase {
   }
 
   public double getRoll() {
-    return pigeon.getRoll();
+    return roll;
+  }
+
+  /**
+   * @return rate of getRoll() from the raw gyro (deg/s). PigeonIMU's roll is the rotation about
+   *     its own x axis and getRawGyro() is x, y, z in that same frame, so this is gyroRates[0] with
+   *     no sign flip (the body rate equals d(roll)/dt at the small pitch on the charge station).
+   *     checkRollRateAxis() confirms it on the robot.
+   */
+  public double getRollRate() {
+    return gyroRates[0];
+  }
+
+  /** @return pitch rate from the raw gyro (deg/s) */
+  public double getPitchRate() {
+    return gyroRates[1];
   }
 
   public Pose2d getInitialPose() {
@@ -129,6 +204,42 @@ public class Drivetrain extends SubsystemBase {
     frontRightModule.setDesiredState(new SwerveModuleState(0, Rotation2d.fromRadians(-Math.PI / 4)));
     backLeftModule.setDesiredState(new SwerveModuleState(0, Rotation2d.fromRadians(- Math.PI / 4)));
     backRightModule.setDesiredState(new SwerveModuleState(0, Rotation2d.fromRadians(Math.PI / 4)));
+    // next drive() starts from a stopped robot with the wheels in the X
+    setpointGenerator.reset(Math.PI / 4, -Math.PI / 4, -Math.PI / 4, Math.PI / 4);
+  }
+
+  /** Restart the setpoint generator from the modules' measured angles and zero speed. */
+  public void resetSetpoint() {
+    setpointGenerator.reset(
+      frontLeftModule.getAngleRadians(),
+      frontRightModule.getAngleRadians(),
+      backLeftModule.getAngleRadians(),
+      backRightModule.getAngleRadians());
+    lastSetpointTimestamp = -1;
+  }
+
+  /**
+   * Drive at a robot-relative chassis speed. Goes through the setpoint generator,
+   * so acceleration and module steering rate are limited from the previous setpoint.
+   *
+   * @param vx forward (m/s)
+   * @param vy left (m/s)
+   * @param omega counter-clockwise (rad/s)
+   */
+  public void drive(double vx, double vy, double omega) {
+    double now = Timer.getFPGATimestamp();
+    double dt = lastSetpointTimestamp < 0 ? TimedRobot.kDefaultPeriod : Math.min(now - lastSetpointTimestamp, MAX_SETPOINT_DT);
+    lastSetpointTimestamp = now;
+
+    setpointGenerator.generate(vx, vy, omega, dt);
+    frontLeftModule.setDesiredState(setpointGenerator.getModuleSpeed(0), setpointGenerator.getModuleAngle(0));
+    frontRightModule.setDesiredState(setpointGenerator.getModuleSpeed(1), setpointGenerator.getModuleAngle(1));
+    backLeftModule.setDesiredState(setpointGenerator.getModuleSpeed(2), setpointGenerator.getModuleAngle(2));
+    backRightModule.setDesiredState(setpointGenerator.getModuleSpeed(3), setpointGenerator.getModuleAngle(3));
+  }
+
+  public void drive(ChassisSpeeds speeds) {
+    drive(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond);
   }
 
   public void setModuleStates(SwerveModuleState[] desiredStates) {
@@ -149,6 +260,47 @@ public class Drivetrain extends SubsystemBase {
     return odometry.getEstimatedPosition();
   }
 
+  /** Field-relative velocity (m/s) the modules were last set to, from the setpoint generator. */
+  public double getFieldVelocityX() {
+    double heading = odometry.getRotationRadians();
+    return setpointGenerator.getVx() * Math.cos(heading) - setpointGenerator.getVy() * Math.sin(heading);
+  }
+
+  public double getFieldVelocityY() {
+    double heading = odometry.getRotationRadians();
+    return setpointGenerator.getVx() * Math.sin(heading) + setpointGenerator.getVy() * Math.cos(heading);
+  }
+
+  /** Allocation-free pose accessors for per-loop consumers like path followers. */
+  public double getPoseX() {
+    return odometry.getX();
+  }
+
+  public double getPoseY() {
+    return odometry.getY();
+  }
+
+  public double getPoseRotationRadians() {
+    return odometry.getRotationRadians();
+  }
+
+  /**
+   * Where the robot was at a past time, e.g. when a camera frame was captured.
+   * Safe to call from any thread.
+   *
+   * @param timestampSeconds FPGA timestamp (same timebase as Timer.getFPGATimestamp())
+   * @return interpolated pose, including vision corrections made since, or empty if the
+   *     timestamp is older than the estimator's ~2.5 s of history
+   */
+  public Optional<Pose2d> getPoseAt(double timestampSeconds) {
+    return odometry.getPoseAt(timestampSeconds);
+  }
+
+  /** Allocation-free {@link #getPoseAt(double)}; fills out with {x, y, theta}. */
+  public boolean getPoseAt(double timestampSeconds, double[] out) {
+    return odometry.getPoseAt(timestampSeconds, out);
+  }
+
   public void resetEncoders() {
     frontLeftModule.resetEncoders();
     backLeftModule.resetEncoders();
@@ -161,22 +313,20 @@ public class Drivetrain extends SubsystemBase {
   }
 
   public void joyDrive(double xSpeed, double ySpeed, double angularSpeed, boolean fieldRelative) {
-    xSpeed *= SWERVE.MAX_DIRECTION_SPEED;
-    ySpeed *= SWERVE.MAX_DIRECTION_SPEED;
+    // full stick is the fastest we can safely go with the arm where it is
+    xSpeed *= tipLimiter.getMaxVelocity();
+    ySpeed *= tipLimiter.getMaxVelocity();
     angularSpeed *= SWERVE.MAX_ROTATIONAL_SPEED;
 
-    ChassisSpeeds fieldRelativeSpeeds;
-
     if (fieldRelative) {
-      fieldRelativeSpeeds = ChassisSpeeds.fromFieldRelativeSpeeds(xSpeed, ySpeed, angularSpeed, getPigeonRotation());
+      // same as ChassisSpeeds.fromFieldRelativeSpeeds(), rotate the field vector by -heading
+      double heading = Math.toRadians(-pigeon.getAngle());
+      double cos = Math.cos(heading);
+      double sin = Math.sin(heading);
+      drive(xSpeed * cos + ySpeed * sin, -xSpeed * sin + ySpeed * cos, angularSpeed);
     } else {
-      fieldRelativeSpeeds = new ChassisSpeeds(xSpeed, ySpeed, angularSpeed);
+      drive(xSpeed, ySpeed, angularSpeed);
     }
-    
-    // general swerve speeds --> speed per module
-    SwerveModuleState[] moduleStates = swerveKinematics.toSwerveModuleStates(fieldRelativeSpeeds);
-
-    setModuleStates(moduleStates);
   }
 
   public void joyDrive(double xSpeed, double ySpeed, double angularSpeed) {
@@ -184,9 +334,14 @@ public class Drivetrain extends SubsystemBase {
   }
 
 
-  /** update smartdash with trajectory */
+  /** update smartdash with trajectory, only sent if it changed */
   public void setTrajectorySmartdash(Trajectory trajectory, String type) {
-    smartdashField.getObject(type).setTrajectory(trajectory);
+    smartdashField.setTrajectory(type, trajectory);
+  }
+
+  /** remove a trajectory from the smartdash field */
+  public void clearTrajectorySmartdash(String type) {
+    smartdashField.clear(type);
   }
 
   /**
@@ -213,6 +368,11 @@ public class Drivetrain extends SubsystemBase {
   }
 
 
+  /** Front left, front right, back left, back right, relative to the robot center (m). */
+  public Translation2d[] getModuleLocations() {
+    return moduleLocations.clone();
+  }
+
   public Rotation2d getPigeonRotation() {
     /* return the pigeon's yaw as Rotation2d object */
 
@@ -220,39 +380,222 @@ public class Drivetrain extends SubsystemBase {
     return Rotation2d.fromDegrees(-(pigeon.getAngle()));
   }
 
+  /**
+   * Read the modules and the gyro for this loop's odometry. Runs on a ParallelRefresh worker
+   * before the scheduler (see RobotContainer.refreshSensors); touches nothing else.
+   */
+  public void refreshSensors() {
+    sensorTimestamp = Timer.getFPGATimestamp();
+    // extrapolated for modules whose CAN status is stale
+    moduleDistances[0] = frontLeftModule.getOdometryDistance(sensorTimestamp);
+    moduleDistances[1] = frontRightModule.getOdometryDistance(sensorTimestamp);
+    moduleDistances[2] = backLeftModule.getOdometryDistance(sensorTimestamp);
+    moduleDistances[3] = backRightModule.getOdometryDistance(sensorTimestamp);
+    moduleAngles[0] = frontLeftModule.getOdometryAngle();
+    moduleAngles[1] = frontRightModule.getOdometryAngle();
+    moduleAngles[2] = backLeftModule.getOdometryAngle();
+    moduleAngles[3] = backRightModule.getOdometryAngle();
+    pigeonHealth.read(pigeon.getRawGyro(gyroRates));
+    double previousRoll = roll;
+    double previousTimestamp = rollTimestamp;
+    roll = pigeon.getRoll();
+    rollTimestamp = sensorTimestamp;
+    checkRollRateAxis((roll - previousRoll) / (rollTimestamp - previousTimestamp));
+    odometryHeading = Math.toRadians(-pigeon.getAngle());
+  }
+
+  /**
+   * AutoBalance trusts getRollRate() to be d(roll)/dt. Whenever the robot is clearly tilting,
+   * compare the sign of the differentiated roll against the gyro rate and log the result once,
+   * so a mismatch (pigeon remounted, wrong axis) shows up in the first match log.
+   */
+  private void checkRollRateAxis(double differentiatedRate) {
+    if (!(Math.abs(differentiatedRate) > AXIS_CHECK_RATE) || rollRateAgree + rollRateDisagree >= AXIS_CHECK_SAMPLES) {
+      return;
+    }
+    if (Math.signum(differentiatedRate) == Math.signum(gyroRates[0])) {
+      rollRateAgree++;
+    } else {
+      rollRateDisagree++;
+    }
+    if (rollRateAgree + rollRateDisagree == AXIS_CHECK_SAMPLES) {
+      DataLogManager.log("Drivetrain: roll rate axis check, pigeon x rate agrees with d(roll)/dt in "
+        + rollRateAgree + " of " + AXIS_CHECK_SAMPLES + " samples"
+        + (rollRateDisagree > rollRateAgree ? " - WRONG AXIS OR SIGN, AutoBalance will misbehave" : ""));
+    }
+  }
+
   @Override
   public void periodic() {
-    // This method will be called once per scheduler run
-    odometry.update(
-    getPigeonRotation(),
-    new SwerveModulePosition[] {
-      frontLeftModule.getPosition(),
-      frontRightModule.getPosition(),
-      backLeftModule.getPosition(),
-      backRightModule.getPosition()
-    });
-
-    if (fieldWidgetType.equals("Odometry")) {
-      smartdashField.setRobotPose(getPose());
-    } else if (fieldWidgetType.equals("photonvision")) {
-      smartdashField.setRobotPose(getInitialPose());
+    // Stays on the scheduler: commands drive right after this with this loop's odometry and limits.
+    // Telemetry is in updateTelemetry().
+    if (DriverStation.isDisabled()) {
+      // wheels may have been pushed around; don't steer from a stale setpoint when we enable
+      resetSetpoint();
     }
+    double now = sensorTimestamp;
 
-    SmartDashboard.putNumber("CurrentPose X", getPose().getX());
-    SmartDashboard.putNumber("CurrentPose Y", getPose().getY());
-    SmartDashboard.putNumber("CurrentPose Rotation", getPose().getRotation().getDegrees());
-    SmartDashboard.putNumber("Drive Angle", getPigeonRotation().getDegrees());
-    SmartDashboard.putNumber("Drive Yaw", pigeon.getYaw());
-    SmartDashboard.putNumber("Drive Roll", getRoll());
-    SmartDashboard.putNumber("Drive Pitch", pigeon.getPitch());
-    SmartDashboard.putNumber("Drive fused heading", pigeon.getFusedHeading());
+    // commands drive after this, so they get this loop's limits
+    tipLimiter.update(armDegrees.getAsDouble(), telescopeInches.getAsDouble());
+    setpointGenerator.setLimits(
+      tipLimiter.getMaxVelocity(), tipLimiter.getMaxAcceleration(), tipLimiter.getMaxDeceleration(),
+      SWERVE.MAX_ROTATIONAL_ACCELERATION, SWERVE.MAX_STEERING_SPEED);
 
+    odometry.update(now, odometryHeading, moduleDistances, moduleAngles);
 
     Optional<EstimatedRobotPose> result = photonCam.getGlobalPose();
-    if (result.isEmpty()) {
-      return;
+    if (result.isPresent()) {
+      odometry.addVisionMeasurement(result.get().estimatedPose.toPose2d(), result.get().timestampSeconds);
     }
-    odometry.addVisionMeasurement(result.get().estimatedPose.toPose2d(), result.get().timestampSeconds);
 
+    // throttled to the dashboard rate inside DashboardField
+    if (fieldWidgetType.equals("Odometry")) {
+      smartdashField.setRobotPose(odometry.getX(), odometry.getY(), odometry.getRotationRadians());
+    } else if (fieldWidgetType.equals("photonvision") && smartdashField.isRobotPoseDue()) {
+      smartdashField.setRobotPose(getInitialPose());
+    }
+  }
+
+  /** Telemetry rate group (see RobotContainer.scheduleRateGroups). */
+  public void updateTelemetry() {
+    stateTelemetry.set(0, odometry.getX());
+    stateTelemetry.set(1, odometry.getY());
+    stateTelemetry.set(2, Math.toDegrees(odometry.getRotationRadians()));
+    stateTelemetry.set(3, -pigeon.getAngle());
+    stateTelemetry.set(4, pigeon.getYaw());
+    stateTelemetry.set(5, getRoll());
+    stateTelemetry.set(6, pigeon.getPitch());
+    stateTelemetry.set(7, pigeon.getFusedHeading());
+
+    moduleTelemetry.set(0, moduleAngles[0]);
+    moduleTelemetry.set(1, frontLeftModule.getVelocity());
+    moduleTelemetry.set(2, moduleAngles[1]);
+    moduleTelemetry.set(3, frontRightModule.getVelocity());
+    moduleTelemetry.set(4, moduleAngles[2]);
+    moduleTelemetry.set(5, backLeftModule.getVelocity());
+    moduleTelemetry.set(6, moduleAngles[3]);
+    moduleTelemetry.set(7, backRightModule.getVelocity());
+
+    limitTelemetry.set(0, tipLimiter.getCogX());
+    limitTelemetry.set(1, tipLimiter.getCogHeight());
+    limitTelemetry.set(2, tipLimiter.getMaxAcceleration());
+    limitTelemetry.set(3, tipLimiter.getMaxVelocity());
+    limitTelemetry.set(4, tipLimiter.getMaxDeceleration());
+  }
+
+  /**
+   * Drive motors for CharacterizationRoutine: every wheel pointed forward, same voltage.
+   * Position and velocity are averaged over the four modules (m, m/s).
+   */
+  public Characterizable getDriveCharacterization() {
+    SwerveModule[] modules = {frontLeftModule, frontRightModule, backLeftModule, backRightModule};
+    return new Characterizable() {
+      @Override
+      public String getCharacterizationName() { return "drive"; }
+
+      @Override
+      public String getCharacterizationUnits() { return "m"; }
+
+      @Override
+      public Gravity getGravity() { return Gravity.NONE; }
+
+      @Override
+      public void setCharacterizationVoltage(double volts) {
+        for (SwerveModule module : modules) {
+          module.setDriveVoltage(volts, 0);
+        }
+      }
+
+      @Override
+      public double getAppliedVoltage() {
+        double sum = 0;
+        for (SwerveModule module : modules) {
+          sum += module.getDriveAppliedVoltage();
+        }
+        return sum / modules.length;
+      }
+
+      @Override
+      public double getCharacterizationPosition() {
+        double sum = 0;
+        for (SwerveModule module : modules) {
+          sum += module.getDistance();
+        }
+        return sum / modules.length;
+      }
+
+      @Override
+      public double getCharacterizationVelocity() {
+        double sum = 0;
+        for (SwerveModule module : modules) {
+          sum += module.getVelocity();
+        }
+        return sum / modules.length;
+      }
+
+      @Override
+      public void setFastFeedback(boolean enabled) {
+        for (SwerveModule module : modules) {
+          module.setFastStatusFrames(enabled);
+        }
+      }
+    };
+  }
+
+  /** Steering motors for CharacterizationRoutine, drive motors stopped (rad, rad/s, averaged). */
+  public Characterizable getSteerCharacterization() {
+    SwerveModule[] modules = {frontLeftModule, frontRightModule, backLeftModule, backRightModule};
+    return new Characterizable() {
+      @Override
+      public String getCharacterizationName() { return "steer"; }
+
+      @Override
+      public String getCharacterizationUnits() { return "rad"; }
+
+      @Override
+      public Gravity getGravity() { return Gravity.NONE; }
+
+      @Override
+      public void setCharacterizationVoltage(double volts) {
+        for (SwerveModule module : modules) {
+          module.setSteerVoltage(volts);
+        }
+      }
+
+      @Override
+      public double getAppliedVoltage() {
+        double sum = 0;
+        for (SwerveModule module : modules) {
+          sum += module.getSteerAppliedVoltage();
+        }
+        return sum / modules.length;
+      }
+
+      // the absolute encoder wraps; the fitter only differentiates velocity, so that's harmless
+      @Override
+      public double getCharacterizationPosition() {
+        double sum = 0;
+        for (SwerveModule module : modules) {
+          sum += module.getAngleRadians();
+        }
+        return sum / modules.length;
+      }
+
+      @Override
+      public double getCharacterizationVelocity() {
+        double sum = 0;
+        for (SwerveModule module : modules) {
+          sum += module.getSteerVelocity();
+        }
+        return sum / modules.length;
+      }
+
+      @Override
+      public void setFastFeedback(boolean enabled) {
+        for (SwerveModule module : modules) {
+          module.setFastStatusFrames(enabled);
+        }
+      }
+    };
   }
 }
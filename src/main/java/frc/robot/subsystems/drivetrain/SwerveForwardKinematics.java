@@ -0,0 +1,104 @@
+package frc.robot.subsystems.drivetrain;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Least-squares module vectors --> chassis motion, with the pseudo-inverse
+ * worked out once up front so every call is a handful of multiply-adds.
+ *
+ * Same math as SwerveDriveKinematics.toChassisSpeeds()/toTwist2d() but
+ * without building SimpleMatrix/ChassisSpeeds objects each loop.
+ */
+class SwerveForwardKinematics {
+    private final int numModules;
+    private final double[] moduleX, moduleY;
+    // 3 x 2n pseudo-inverse of the inverse kinematics matrix
+    private final double[][] pseudoInverse;
+
+    private double vx, vy, omega;
+
+    SwerveForwardKinematics(Translation2d... moduleLocations) {
+        numModules = moduleLocations.length;
+        moduleX = new double[numModules];
+        moduleY = new double[numModules];
+
+        // A has rows [1, 0, -y] and [0, 1, x] per module; M = A^T A
+        double sumX = 0, sumY = 0, sumR2 = 0;
+        for (int i = 0; i < numModules; i++) {
+            moduleX[i] = moduleLocations[i].getX();
+            moduleY[i] = moduleLocations[i].getY();
+            sumX += moduleX[i];
+            sumY += moduleY[i];
+            sumR2 += moduleX[i] * moduleX[i] + moduleY[i] * moduleY[i];
+        }
+        double n = numModules;
+        double[][] m = {
+            {n, 0, -sumY},
+            {0, n, sumX},
+            {-sumY, sumX, sumR2}
+        };
+        double[][] mInv = invert3x3(m);
+
+        pseudoInverse = new double[3][2 * numModules];
+        for (int r = 0; r < 3; r++) {
+            for (int i = 0; i < numModules; i++) {
+                // column 2i is A^T's [1, 0, -y], column 2i+1 is [0, 1, x]
+                pseudoInverse[r][2 * i] = mInv[r][0] - mInv[r][2] * moduleY[i];
+                pseudoInverse[r][2 * i + 1] = mInv[r][1] + mInv[r][2] * moduleX[i];
+            }
+        }
+    }
+
+    int getNumModules() {
+        return numModules;
+    }
+
+    double getModuleX(int module) {
+        return moduleX[module];
+    }
+
+    double getModuleY(int module) {
+        return moduleY[module];
+    }
+
+    /**
+     * Solve for chassis motion from per-module vectors (velocities or position deltas).
+     * Results are read back with {@link #getVx()}, {@link #getVy()}, {@link #getOmega()}.
+     */
+    void solve(double[] moduleVx, double[] moduleVy) {
+        double rx = 0, ry = 0, rw = 0;
+        for (int i = 0; i < numModules; i++) {
+            rx += pseudoInverse[0][2 * i] * moduleVx[i] + pseudoInverse[0][2 * i + 1] * moduleVy[i];
+            ry += pseudoInverse[1][2 * i] * moduleVx[i] + pseudoInverse[1][2 * i + 1] * moduleVy[i];
+            rw += pseudoInverse[2][2 * i] * moduleVx[i] + pseudoInverse[2][2 * i + 1] * moduleVy[i];
+        }
+        vx = rx;
+        vy = ry;
+        omega = rw;
+    }
+
+    double getVx() {
+        return vx;
+    }
+
+    double getVy() {
+        return vy;
+    }
+
+    double getOmega() {
+        return omega;
+    }
+
+    private static double[][] invert3x3(double[][] a) {
+        double c00 = a[1][1] * a[2][2] - a[1][2] * a[2][1];
+        double c01 = a[1][2] * a[2][0] - a[1][0] * a[2][2];
+        double c02 = a[1][0] * a[2][1] - a[1][1] * a[2][0];
+        double det = a[0][0] * c00 + a[0][1] * c01 + a[0][2] * c02;
+        double invDet = 1.0 / det;
+        return new double[][] {
+            {c00 * invDet, (a[0][2] * a[2][1] - a[0][1] * a[2][2]) * invDet, (a[0][1] * a[1][2] - a[0][2] * a[1][1]) * invDet},
+            {c01 * invDet, (a[0][0] * a[2][2] - a[0][2] * a[2][0]) * invDet, (a[0][2] * a[1][0] - a[0][0] * a[1][2]) * invDet},
+            {c02 * invDet, (a[0][1] * a[2][0] - a[0][0] * a[2][1]) * invDet, (a[0][0] * a[1][1] - a[0][1] * a[1][0]) * invDet}
+        };
+    }
+}
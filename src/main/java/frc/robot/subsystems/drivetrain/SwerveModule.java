@@ -1,12 +1,19 @@
 package frc.robot.subsystems.drivetrain;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.CAN_STATUS_FREQ;
 import frc.robot.Constants.SWERVE;
+import frc.robot.util.BootTracer;
+import frc.robot.util.CANHealthMonitor;
+import frc.robot.util.DeployedConstants;
+import frc.robot.util.TunableNumber;
 
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
 import com.revrobotics.SparkMaxAbsoluteEncoder.Type;
 import com.revrobotics.SparkMaxPIDController;
 import com.revrobotics.CANSparkMax.IdleMode;
@@ -23,15 +30,41 @@ public class SwerveModule {
     private final SparkMaxPIDController drivingPIDController;
     private final SparkMaxPIDController turningPIDController;
 
-    private final double DRIVING_PVAL = 0.04;
-    private final double DRIVING_IVAL = 0.0;
-    private final double DRIVING_DVAL = 0.0;
-    private final double DRIVING_FFVAL = 1 / SWERVE.DRIVE_WHEEL_FREE_SPEED;
-    private final double TURNING_PVAL = 1;
-    private final double TURNING_IVAL = 0;
-    private final double TURNING_DVAL = 0;
-    private final double TURNING_FFVAL = 0;
+    private static final double DRIVING_PVAL = 0.04;
+    private static final double DRIVING_IVAL = 0.0;
+    private static final double DRIVING_DVAL = 0.0;
+    // duty cycle per m/s: the fitted kV (V per m/s) over 12 V, or full output at free speed until fitted
+    private static final double DRIVING_FFVAL =
+        DeployedConstants.get(DeployedConstants.FEEDFORWARD, "drive.kV", 12 / SWERVE.DRIVE_WHEEL_FREE_SPEED) / 12;
+    private static final double TURNING_PVAL = 1;
+    private static final double TURNING_IVAL = 0;
+    private static final double TURNING_DVAL = 0;
+    private static final double TURNING_FFVAL = 0;
 
+    // live tuning shared by all four modules, sent to the SPARK MAXes only when changed
+    private static final TunableNumber
+        drivingP = new TunableNumber("Swerve/Drive kP", DRIVING_PVAL),
+        drivingI = new TunableNumber("Swerve/Drive kI", DRIVING_IVAL),
+        drivingD = new TunableNumber("Swerve/Drive kD", DRIVING_DVAL),
+        drivingFF = new TunableNumber("Swerve/Drive kFF", DRIVING_FFVAL),
+        turningP = new TunableNumber("Swerve/Turn kP", TURNING_PVAL),
+        turningI = new TunableNumber("Swerve/Turn kI", TURNING_IVAL),
+        turningD = new TunableNumber("Swerve/Turn kD", TURNING_DVAL),
+        turningFF = new TunableNumber("Swerve/Turn kFF", TURNING_FFVAL);
+
+    // REVLib defaults; characterization speeds them up while it logs
+    private static final int DEFAULT_VELOCITY_FRAME_MS = 20;
+    private static final int DEFAULT_POSITION_FRAME_MS = 20;
+    private static final int DEFAULT_ABSOLUTE_ENCODER_FRAME_MS = 200;
+    private static final int FAST_FRAME_MS = CAN_STATUS_FREQ.XTRA_HIGH;
+
+    // config results and status freshness (CANHealthMonitor)
+    private final CANHealthMonitor.Device driveHealth, turnHealth;
+    // last fresh odometry reading, extrapolated from while the drive motor's status is stale
+    private double lastDistance, lastVelocity, lastTimestamp, lastAngle;
+    private static final double MAX_EXTRAPOLATION = 0.25; // s
+    // faster than this, a fresh position frame always differs from the last one
+    private static final double MOVING_VELOCITY = 0.05; // m/s
 
     // the module position relative to robot chassis
     private double chassisAngularOffset = 0;
@@ -40,19 +73,22 @@ public class SwerveModule {
     public SwerveModule(int driveCAN, int turnCan, double chassisAngularOffset) {
         drivingSparkMax = new CANSparkMax(driveCAN, MotorType.kBrushless);
         turningSparkMax = new CANSparkMax(turnCan, MotorType.kBrushless);
+        driveHealth = CANHealthMonitor.register("Drive SparkMax " + driveCAN, DEFAULT_POSITION_FRAME_MS);
+        turnHealth = CANHealthMonitor.register("Turn SparkMax " + turnCan, DEFAULT_ABSOLUTE_ENCODER_FRAME_MS);
 
+        long configStart = BootTracer.start();
         // Factory reset, so we get the SPARKS MAX to a known state before configuring
     // them. This is useful in case a SPARK MAX is swapped out.
-        drivingSparkMax.restoreFactoryDefaults();
-        turningSparkMax.restoreFactoryDefaults();
+        driveHealth.config(drivingSparkMax.restoreFactoryDefaults());
+        turnHealth.config(turningSparkMax.restoreFactoryDefaults());
 
         // Setup encoders and PID controllers for the driving and turning SPARKS MAX.
         drivingEncoder = drivingSparkMax.getEncoder();
         turningEncoder = turningSparkMax.getAbsoluteEncoder(Type.kDutyCycle);
         drivingPIDController = drivingSparkMax.getPIDController();
         turningPIDController = turningSparkMax.getPIDController();
-        drivingPIDController.setFeedbackDevice(drivingEncoder);
-        turningPIDController.setFeedbackDevice(turningEncoder);
+        driveHealth.config(drivingPIDController.setFeedbackDevice(drivingEncoder));
+        turnHealth.config(turningPIDController.setFeedbackDevice(turningEncoder));
 
         /*
          * WPILib needs: 
@@ -60,55 +96,73 @@ public class SwerveModule {
          * RADIANS for rotation
          */
         // rotations --> meters
-        drivingEncoder.setPositionConversionFactor(SWERVE.METERS_CONVERSION); 
+        driveHealth.config(drivingEncoder.setPositionConversionFactor(SWERVE.METERS_CONVERSION)); 
         // rpm --> m/s
-        drivingEncoder.setVelocityConversionFactor(SWERVE.VELOCITY_CONVERSION);
+        driveHealth.config(drivingEncoder.setVelocityConversionFactor(SWERVE.VELOCITY_CONVERSION));
 
         // deg --> radians
-        turningEncoder.setPositionConversionFactor(SWERVE.RADIANS_CONVERSION);
+        turnHealth.config(turningEncoder.setPositionConversionFactor(SWERVE.RADIANS_CONVERSION));
         // dps --> rad/sec
-        turningEncoder.setVelocityConversionFactor(SWERVE.RADIANS_VELOCITY_CONVERSION);
+        turnHealth.config(turningEncoder.setVelocityConversionFactor(SWERVE.RADIANS_VELOCITY_CONVERSION));
 
         // Invert the turning encoder, since the output shaft rotates in the opposite direction of
         // the steering motor in the MAXSwerve Module.
-        turningEncoder.setInverted(true);
+        turnHealth.config(turningEncoder.setInverted(true));
 
         // allow PID controller to shortcut thru 0 
         // (e.g 0 --> 350 means it only rotates -10 as it can cut thru 0)
-        turningPIDController.setPositionPIDWrappingEnabled(true);
+        turnHealth.config(turningPIDController.setPositionPIDWrappingEnabled(true));
         // min = 0, max = 1 rotation in radians (2pi)
-        turningPIDController.setPositionPIDWrappingMinInput(0);
-        turningPIDController.setPositionPIDWrappingMaxInput(SWERVE.RADIANS_CONVERSION);
+        turnHealth.config(turningPIDController.setPositionPIDWrappingMinInput(0));
+        turnHealth.config(turningPIDController.setPositionPIDWrappingMaxInput(SWERVE.RADIANS_CONVERSION));
 
         // Set the PID gains for the driving motor. Note these are example gains, and you
         // may need to tune them for your own robot!
-        drivingPIDController.setP(DRIVING_PVAL);
-        drivingPIDController.setI(DRIVING_IVAL);
-        drivingPIDController.setD(DRIVING_DVAL);
-        drivingPIDController.setFF(DRIVING_FFVAL);
-        drivingPIDController.setOutputRange(-1, 1);
+        driveHealth.config(drivingPIDController.setP(DRIVING_PVAL));
+        driveHealth.config(drivingPIDController.setI(DRIVING_IVAL));
+        driveHealth.config(drivingPIDController.setD(DRIVING_DVAL));
+        driveHealth.config(drivingPIDController.setFF(DRIVING_FFVAL));
+        driveHealth.config(drivingPIDController.setOutputRange(-1, 1));
 
         // Set the PID gains for the turning motor. Note these are example gains, and you
         // may need to tune them for your own robot!
-        turningPIDController.setP(TURNING_PVAL);
-        turningPIDController.setI(TURNING_IVAL);
-        turningPIDController.setD(TURNING_DVAL);
-        turningPIDController.setFF(TURNING_FFVAL);
-        turningPIDController.setOutputRange(-1, 1);
+        turnHealth.config(turningPIDController.setP(TURNING_PVAL));
+        turnHealth.config(turningPIDController.setI(TURNING_IVAL));
+        turnHealth.config(turningPIDController.setD(TURNING_DVAL));
+        turnHealth.config(turningPIDController.setFF(TURNING_FFVAL));
+        turnHealth.config(turningPIDController.setOutputRange(-1, 1));
 
-        drivingSparkMax.setIdleMode(IdleMode.kBrake);
-        turningSparkMax.setIdleMode(IdleMode.kBrake);
-        drivingSparkMax.setSmartCurrentLimit(SWERVE.DRIVING_MOTOR_CURRENT_LIMIT);
-        turningSparkMax.setSmartCurrentLimit(SWERVE.TURNING_MOTOR_CURRENT_LIMIT);
+        driveHealth.config(drivingSparkMax.setIdleMode(IdleMode.kBrake));
+        turnHealth.config(turningSparkMax.setIdleMode(IdleMode.kBrake));
+        driveHealth.config(drivingSparkMax.setSmartCurrentLimit(SWERVE.DRIVING_MOTOR_CURRENT_LIMIT));
+        turnHealth.config(turningSparkMax.setSmartCurrentLimit(SWERVE.TURNING_MOTOR_CURRENT_LIMIT));
+        BootTracer.end("SparkMax " + driveCAN + "/" + turnCan + " config", configStart);
 
         // Save the SPARK MAX configurations. If a SPARK MAX browns out during
         // operation, it will maintain the above configurations.
-        drivingSparkMax.burnFlash();
-        turningSparkMax.burnFlash();
+        long flashStart = BootTracer.start();
+        driveHealth.config(drivingSparkMax.burnFlash());
+        BootTracer.end("SparkMax " + driveCAN + " burnFlash", flashStart);
+        flashStart = BootTracer.start();
+        turnHealth.config(turningSparkMax.burnFlash());
+        BootTracer.end("SparkMax " + turnCan + " burnFlash", flashStart);
+
+        TunableNumber.onChange(() -> {
+            driveHealth.config(drivingPIDController.setP(drivingP.get()));
+            driveHealth.config(drivingPIDController.setI(drivingI.get()));
+            driveHealth.config(drivingPIDController.setD(drivingD.get()));
+            driveHealth.config(drivingPIDController.setFF(drivingFF.get()));
+        }, drivingP, drivingI, drivingD, drivingFF);
+        TunableNumber.onChange(() -> {
+            turnHealth.config(turningPIDController.setP(turningP.get()));
+            turnHealth.config(turningPIDController.setI(turningI.get()));
+            turnHealth.config(turningPIDController.setD(turningD.get()));
+            turnHealth.config(turningPIDController.setFF(turningFF.get()));
+        }, turningP, turningI, turningD, turningFF);
 
         this.chassisAngularOffset = chassisAngularOffset;
         desiredState.angle = new Rotation2d(turningEncoder.getPosition());
-        drivingEncoder.setPosition(0);
+        driveHealth.config(drivingEncoder.setPosition(0));
     }
 
     public SwerveModulePosition getPosition() {
@@ -120,23 +174,123 @@ public class SwerveModule {
     }
 
     public void resetEncoders() {
-        drivingEncoder.setPosition(0);
+        driveHealth.config(drivingEncoder.setPosition(0));
     }
 
     public void setDesiredState(SwerveModuleState speed) {
+        setDesiredState(speed.speedMetersPerSecond, speed.angle.getRadians());
+    }
 
-        SwerveModuleState desired = new SwerveModuleState();
-        desired.speedMetersPerSecond = speed.speedMetersPerSecond;
-        desired.angle = speed.angle.plus(
-            Rotation2d.fromRadians(chassisAngularOffset));
+    /**
+     * Same as {@link #setDesiredState(SwerveModuleState)} without the Rotation2d/SwerveModuleState
+     * objects, for callers that already have the setpoint as primitives.
+     *
+     * @param speedMetersPerSecond wheel speed
+     * @param angleRadians wheel angle relative to the chassis
+     */
+    public void setDesiredState(double speedMetersPerSecond, double angleRadians) {
+        double desiredAngle = angleRadians + chassisAngularOffset;
+        double currentAngle = turningEncoder.getPosition();
+
+        // optimize: never turn more than 90 degrees, reverse the wheel instead
+        double error = MathUtil.angleModulus(desiredAngle - currentAngle);
+        if (Math.abs(error) > Math.PI / 2) {
+            desiredAngle += Math.PI;
+            speedMetersPerSecond = -speedMetersPerSecond;
+        }
 
-        SwerveModuleState optimizedSpeed = SwerveModuleState.optimize(desired,
-            new Rotation2d(turningEncoder.getPosition()));
-    
         // Command driving and turning SPARKS MAX towards their respective setpoints.
-        // drivingSparkMax.getPIDController().setReference(optimizedSpeed, null)
-        drivingPIDController.setReference(optimizedSpeed.speedMetersPerSecond, CANSparkMax.ControlType.kVelocity);
-        turningPIDController.setReference(optimizedSpeed.angle.getRadians(), CANSparkMax.ControlType.kPosition);
+        drivingPIDController.setReference(speedMetersPerSecond, CANSparkMax.ControlType.kVelocity);
+        turningPIDController.setReference(MathUtil.angleModulus(desiredAngle), CANSparkMax.ControlType.kPosition);
+    }
+
+    /**
+     * Drive distance for odometry, once per loop. While the drive motor's status is stale this
+     * extrapolates from the last fresh distance and velocity (up to MAX_EXTRAPOLATION) instead
+     * of trusting a frozen value.
+     *
+     * @param timestamp seconds, FPGA time
+     */
+    public double getOdometryDistance(double timestamp) {
+        double distance = drivingEncoder.getPosition();
+        double velocity = drivingEncoder.getVelocity();
+        // a position that doesn't move while the wheel spins is a stale frame too
+        driveHealth.read(drivingSparkMax.getLastError(), distance, Math.abs(velocity) > MOVING_VELOCITY);
+        if (!driveHealth.isDegraded()) {
+            lastDistance = distance;
+            lastVelocity = velocity;
+            lastTimestamp = timestamp;
+            return distance;
+        }
+        return lastDistance + lastVelocity * Math.min(timestamp - lastTimestamp, MAX_EXTRAPOLATION);
+    }
+
+    /** Wheel angle for odometry (radians, relative to the chassis); the last fresh one while stale. */
+    public double getOdometryAngle() {
+        double angle = getAngleRadians();
+        turnHealth.read(turningSparkMax.getLastError());
+        if (!turnHealth.isDegraded()) {
+            lastAngle = angle;
+        }
+        return lastAngle;
+    }
+
+    /** Either motor's status is stale. */
+    public boolean isDegraded() {
+        return driveHealth.isDegraded() || turnHealth.isDegraded();
+    }
+
+    /** @return drive distance (meters) */
+    public double getDistance() {
+        return drivingEncoder.getPosition();
+    }
+
+    /** @return drive wheel speed (m/s) */
+    public double getVelocity() {
+        return drivingEncoder.getVelocity();
+    }
+
+    /** @return wheel angle relative to the chassis (radians) */
+    public double getAngleRadians() {
+        return turningEncoder.getPosition() - chassisAngularOffset;
+    }
+
+    /** @return steering speed (rad/s) */
+    public double getSteerVelocity() {
+        return turningEncoder.getVelocity();
+    }
+
+    /**
+     * Characterization: drive motor open loop at a voltage, wheel held at an angle.
+     *
+     * @param angleRadians wheel angle relative to the chassis
+     */
+    public void setDriveVoltage(double volts, double angleRadians) {
+        turningPIDController.setReference(MathUtil.angleModulus(angleRadians + chassisAngularOffset), CANSparkMax.ControlType.kPosition);
+        drivingSparkMax.setVoltage(volts);
     }
 
-}
\ No newline at end of file
+    /** Characterization: steering motor open loop at a voltage, drive motor stopped. */
+    public void setSteerVoltage(double volts) {
+        drivingSparkMax.setVoltage(0);
+        turningSparkMax.setVoltage(volts);
+    }
+
+    public double getDriveAppliedVoltage() {
+        return drivingSparkMax.getAppliedOutput() * drivingSparkMax.getBusVoltage();
+    }
+
+    public double getSteerAppliedVoltage() {
+        return turningSparkMax.getAppliedOutput() * turningSparkMax.getBusVoltage();
+    }
+
+    /** Send encoder position/velocity every 5 ms instead of the defaults (characterization). */
+    public void setFastStatusFrames(boolean fast) {
+        driveHealth.config(drivingSparkMax.setPeriodicFramePeriod(PeriodicFrame.kStatus1, fast ? FAST_FRAME_MS : DEFAULT_VELOCITY_FRAME_MS));
+        driveHealth.config(drivingSparkMax.setPeriodicFramePeriod(PeriodicFrame.kStatus2, fast ? FAST_FRAME_MS : DEFAULT_POSITION_FRAME_MS));
+        turnHealth.config(turningSparkMax.setPeriodicFramePeriod(PeriodicFrame.kStatus5, fast ? FAST_FRAME_MS : DEFAULT_ABSOLUTE_ENCODER_FRAME_MS));
+        turnHealth.config(turningSparkMax.setPeriodicFramePeriod(PeriodicFrame.kStatus6, fast ? FAST_FRAME_MS : DEFAULT_ABSOLUTE_ENCODER_FRAME_MS));
+        driveHealth.setFramePeriod(fast ? FAST_FRAME_MS : DEFAULT_POSITION_FRAME_MS);
+        turnHealth.setFramePeriod(fast ? FAST_FRAME_MS : DEFAULT_ABSOLUTE_ENCODER_FRAME_MS);
+    }
+}
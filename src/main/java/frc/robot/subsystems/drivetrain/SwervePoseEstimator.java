@@ -0,0 +1,329 @@
+package frc.robot.subsystems.drivetrain;
+
+import java.util.Optional;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Drop-in for WPILib's SwerveDrivePoseEstimator without the per-loop garbage.
+ *
+ * Odometry history lives in a fixed-size ring of primitive arrays (timestamp, x, y, heading)
+ * instead of a TreeMap of boxed records. Vision fusion uses the same Kalman-style gains as
+ * WPILib, but:
+ *  - the pose at the vision timestamp is found with a binary search over the ring
+ *  - instead of replaying every odometry update since then, the correction is applied as one
+ *    rigid transform to the newer history entries. Odometry increments are robot-relative, so
+ *    replaying them from a corrected start pose gives exactly that transform.
+ *
+ * getEstimatedPosition() still returns a Pose2d for existing callers; hot paths can use
+ * {@link #getX()}, {@link #getY()}, {@link #getRotationRadians()} instead.
+ *
+ * The same ring answers {@link #getPoseAt} (camera frames, logs), so past poses include the
+ * vision corrections made since. The robot thread updates the estimator; updates and
+ * getPoseAt() are synchronized so other threads can query it, uncontended almost always.
+ */
+public class SwervePoseEstimator {
+    // ~2.5 s of history at 50 Hz for getPoseAt(); vision only looks back 1.5 s, like WPILib
+    private static final int HISTORY_SIZE = 128;
+    private static final int HISTORY_MASK = HISTORY_SIZE - 1;
+    private static final double HISTORY_SECONDS = 1.5;
+
+    private final SwerveForwardKinematics kinematics;
+    private final int numModules;
+
+    // current odometry state
+    private double poseX, poseY, poseTheta;
+    private double gyroOffset;
+    private double previousHeading;
+    private final double[] previousDistances;
+
+    // scratch for module deltas
+    private final double[] deltaX, deltaY;
+
+    // vision gains per axis
+    private final double[] stateVariance = {0.1 * 0.1, 0.1 * 0.1, 0.1 * 0.1};
+    private final double[] visionK = new double[3];
+
+    // history ring, logical index 0 is the oldest sample
+    private final double[] historyTime = new double[HISTORY_SIZE];
+    private final double[] historyX = new double[HISTORY_SIZE];
+    private final double[] historyY = new double[HISTORY_SIZE];
+    private final double[] historyTheta = new double[HISTORY_SIZE];
+    private int historyStart = 0;
+    private int historyCount = 0;
+
+    // scratch results for interpolate/log/exp
+    private double sampleX, sampleY, sampleTheta;
+    private double twistX, twistY, twistTheta;
+    private double expX, expY, expTheta;
+
+    public SwervePoseEstimator(Translation2d[] moduleLocations, Rotation2d gyroAngle,
+            SwerveModulePosition[] modulePositions, Pose2d initialPoseMeters) {
+        kinematics = new SwerveForwardKinematics(moduleLocations);
+        numModules = moduleLocations.length;
+        previousDistances = new double[numModules];
+        deltaX = new double[numModules];
+        deltaY = new double[numModules];
+        setVisionMeasurementStdDevs(0.9, 0.9, 0.9);
+        resetPosition(gyroAngle, modulePositions, initialPoseMeters);
+    }
+
+    /** Trust in vision measurements, same meaning as WPILib's visionMeasurementStdDevs. */
+    public void setVisionMeasurementStdDevs(double xMeters, double yMeters, double thetaRadians) {
+        double[] visionStdDevs = {xMeters, yMeters, thetaRadians};
+        for (int i = 0; i < 3; i++) {
+            double q = stateVariance[i];
+            double r = visionStdDevs[i] * visionStdDevs[i];
+            visionK[i] = q == 0.0 ? 0.0 : q / (q + Math.sqrt(q * r));
+        }
+    }
+
+    public synchronized void resetPosition(Rotation2d gyroAngle, SwerveModulePosition[] modulePositions, Pose2d poseMeters) {
+        poseX = poseMeters.getX();
+        poseY = poseMeters.getY();
+        poseTheta = poseMeters.getRotation().getRadians();
+        gyroOffset = poseTheta - gyroAngle.getRadians();
+        previousHeading = poseTheta;
+        for (int i = 0; i < numModules; i++) {
+            previousDistances[i] = modulePositions[i].distanceMeters;
+        }
+        historyStart = 0;
+        historyCount = 0;
+    }
+
+    public Pose2d getEstimatedPosition() {
+        return new Pose2d(poseX, poseY, new Rotation2d(poseTheta));
+    }
+
+    public double getX() {
+        return poseX;
+    }
+
+    public double getY() {
+        return poseY;
+    }
+
+    public double getRotationRadians() {
+        return poseTheta;
+    }
+
+    public Pose2d update(Rotation2d gyroAngle, SwerveModulePosition[] modulePositions) {
+        return updateWithTime(Timer.getFPGATimestamp(), gyroAngle, modulePositions);
+    }
+
+    public synchronized Pose2d updateWithTime(double currentTimeSeconds, Rotation2d gyroAngle, SwerveModulePosition[] modulePositions) {
+        for (int i = 0; i < numModules; i++) {
+            double delta = modulePositions[i].distanceMeters - previousDistances[i];
+            double angle = modulePositions[i].angle.getRadians();
+            deltaX[i] = delta * Math.cos(angle);
+            deltaY[i] = delta * Math.sin(angle);
+            previousDistances[i] = modulePositions[i].distanceMeters;
+        }
+        integrate(currentTimeSeconds, gyroAngle.getRadians());
+        return getEstimatedPosition();
+    }
+
+    /**
+     * Allocation-free update.
+     *
+     * @param distancesMeters drive distance of each module
+     * @param anglesRadians chassis-relative angle of each module
+     */
+    public synchronized void update(double currentTimeSeconds, double gyroAngleRadians, double[] distancesMeters, double[] anglesRadians) {
+        for (int i = 0; i < numModules; i++) {
+            double delta = distancesMeters[i] - previousDistances[i];
+            deltaX[i] = delta * Math.cos(anglesRadians[i]);
+            deltaY[i] = delta * Math.sin(anglesRadians[i]);
+            previousDistances[i] = distancesMeters[i];
+        }
+        integrate(currentTimeSeconds, gyroAngleRadians);
+    }
+
+    private void integrate(double timestamp, double gyroAngleRadians) {
+        double heading = gyroAngleRadians + gyroOffset;
+        kinematics.solve(deltaX, deltaY);
+        // like WPILib, the gyro is trusted for the heading change
+        exp(poseX, poseY, poseTheta, kinematics.getVx(), kinematics.getVy(),
+            MathUtil.angleModulus(heading - previousHeading));
+        poseX = expX;
+        poseY = expY;
+        poseTheta = MathUtil.angleModulus(heading);
+        previousHeading = heading;
+
+        addToHistory(timestamp);
+    }
+
+    public synchronized void addVisionMeasurement(Pose2d visionRobotPoseMeters, double timestampSeconds) {
+        if (historyCount == 0) {
+            return;
+        }
+        double newest = historyTime[physical(historyCount - 1)];
+        if (timestampSeconds < newest - HISTORY_SECONDS || !sample(timestampSeconds)) {
+            return;
+        }
+
+        // twist from where odometry thought we were to where vision says, scaled by K
+        log(sampleX, sampleY, sampleTheta,
+            visionRobotPoseMeters.getX(), visionRobotPoseMeters.getY(), visionRobotPoseMeters.getRotation().getRadians());
+        exp(sampleX, sampleY, sampleTheta, visionK[0] * twistX, visionK[1] * twistY, visionK[2] * twistTheta);
+
+        // rigid transform T = corrected * sample^-1, applied to everything after the timestamp
+        double dTheta = expTheta - sampleTheta;
+        double cos = Math.cos(dTheta);
+        double sin = Math.sin(dTheta);
+        double offsetX = expX - (cos * sampleX - sin * sampleY);
+        double offsetY = expY - (sin * sampleX + cos * sampleY);
+
+        for (int i = historyCount - 1; i >= 0; i--) {
+            int p = physical(i);
+            if (historyTime[p] < timestampSeconds) {
+                break;
+            }
+            double x = historyX[p];
+            double y = historyY[p];
+            historyX[p] = cos * x - sin * y + offsetX;
+            historyY[p] = sin * x + cos * y + offsetY;
+            historyTheta[p] = MathUtil.angleModulus(historyTheta[p] + dTheta);
+        }
+        double x = poseX;
+        double y = poseY;
+        poseX = cos * x - sin * y + offsetX;
+        poseY = sin * x + cos * y + offsetY;
+        poseTheta = MathUtil.angleModulus(poseTheta + dTheta);
+        gyroOffset += dTheta;
+        previousHeading += dTheta;
+    }
+
+    /**
+     * Where the robot was at a past time, interpolated along the arc between samples, without
+     * allocating. Safe to call from any thread.
+     *
+     * @param timestampSeconds same timebase as the updates (FPGA time on the robot)
+     * @param out filled with {x, y, theta}
+     * @return false if the timestamp is older than the history (out is untouched).
+     *     Timestamps newer than the last update return the last update.
+     */
+    public synchronized boolean getPoseAt(double timestampSeconds, double[] out) {
+        if (historyCount == 0 || !sample(timestampSeconds)) {
+            return false;
+        }
+        out[0] = sampleX;
+        out[1] = sampleY;
+        out[2] = sampleTheta;
+        return true;
+    }
+
+    public Optional<Pose2d> getPoseAt(double timestampSeconds) {
+        double[] pose = new double[3];
+        if (!getPoseAt(timestampSeconds, pose)) {
+            return Optional.empty();
+        }
+        return Optional.of(new Pose2d(pose[0], pose[1], new Rotation2d(pose[2])));
+    }
+
+    private void addToHistory(double timestamp) {
+        int p;
+        if (historyCount < HISTORY_SIZE) {
+            p = physical(historyCount);
+            historyCount++;
+        } else {
+            // full, overwrite the oldest
+            p = historyStart;
+            historyStart = (historyStart + 1) & HISTORY_MASK;
+        }
+        historyTime[p] = timestamp;
+        historyX[p] = poseX;
+        historyY[p] = poseY;
+        historyTheta[p] = poseTheta;
+    }
+
+    private int physical(int logicalIndex) {
+        return (historyStart + logicalIndex) & HISTORY_MASK;
+    }
+
+    /** Pose at the timestamp into sampleX/Y/Theta. @return false if it is before our history */
+    private boolean sample(double timestamp) {
+        // binary search for the last entry at or before the timestamp
+        int low = 0;
+        int high = historyCount - 1;
+        if (timestamp < historyTime[physical(low)]) {
+            return false;
+        }
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (historyTime[physical(mid)] <= timestamp) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+
+        int before = physical(low);
+        if (low == historyCount - 1) {
+            sampleX = historyX[before];
+            sampleY = historyY[before];
+            sampleTheta = historyTheta[before];
+            return true;
+        }
+        int after = physical(low + 1);
+        double t = (timestamp - historyTime[before]) / (historyTime[after] - historyTime[before]);
+
+        // same as Pose2d.interpolate(): follow the constant-curvature arc between samples
+        log(historyX[before], historyY[before], historyTheta[before], historyX[after], historyY[after], historyTheta[after]);
+        exp(historyX[before], historyY[before], historyTheta[before], twistX * t, twistY * t, twistTheta * t);
+        sampleX = expX;
+        sampleY = expY;
+        sampleTheta = expTheta;
+        return true;
+    }
+
+    /** Primitive Pose2d.log(): twist taking start to end, into twistX/Y/Theta. */
+    private void log(double startX, double startY, double startTheta, double endX, double endY, double endTheta) {
+        // end relative to start
+        double cos = Math.cos(startTheta);
+        double sin = Math.sin(startTheta);
+        double dx = endX - startX;
+        double dy = endY - startY;
+        double relX = dx * cos + dy * sin;
+        double relY = -dx * sin + dy * cos;
+        double dTheta = MathUtil.angleModulus(endTheta - startTheta);
+
+        double halfDTheta = dTheta / 2.0;
+        double cosMinusOne = Math.cos(dTheta) - 1;
+        double halfThetaByTanOfHalfDTheta;
+        if (Math.abs(cosMinusOne) < 1e-9) {
+            halfThetaByTanOfHalfDTheta = 1.0 - 1.0 / 12.0 * dTheta * dTheta;
+        } else {
+            halfThetaByTanOfHalfDTheta = -(halfDTheta * Math.sin(dTheta)) / cosMinusOne;
+        }
+        twistX = relX * halfThetaByTanOfHalfDTheta + relY * halfDTheta;
+        twistY = -relX * halfDTheta + relY * halfThetaByTanOfHalfDTheta;
+        twistTheta = dTheta;
+    }
+
+    /** Primitive Pose2d.exp(): apply a robot-relative twist to a pose, into expX/Y/Theta. */
+    private void exp(double x, double y, double theta, double dx, double dy, double dTheta) {
+        double sinTheta = Math.sin(dTheta);
+        double cosTheta = Math.cos(dTheta);
+        double s, c;
+        if (Math.abs(dTheta) < 1e-9) {
+            s = 1.0 - 1.0 / 6.0 * dTheta * dTheta;
+            c = 0.5 * dTheta;
+        } else {
+            s = sinTheta / dTheta;
+            c = (1 - cosTheta) / dTheta;
+        }
+        double relX = dx * s - dy * c;
+        double relY = dx * c + dy * s;
+        double cos = Math.cos(theta);
+        double sin = Math.sin(theta);
+        expX = x + relX * cos - relY * sin;
+        expY = y + relX * sin + relY * cos;
+        expTheta = MathUtil.angleModulus(theta + dTheta);
+    }
+}
@@ -0,0 +1,189 @@
+package frc.robot.subsystems.drivetrain;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Translation2d;
+
+/**
+ * Sits between a requested chassis speed and the modules and only hands the modules
+ * something they can physically do from where they are now.
+ *
+ * Each call:
+ *  1. desaturates the request so no wheel exceeds max speed
+ *  2. limits chassis acceleration relative to the previous setpoint, with a separate
+ *     (normally higher) limit when the step slows the robot down, so releasing the
+ *     sticks stops it in v^2 / (2 * maxDeceleration) rather than coasting on the
+ *     acceleration limit
+ *  3. limits how far each module may steer this loop (flipping drive direction
+ *     instead of turning more than 90 degrees)
+ *  4. scales each wheel's speed by the cosine of its remaining steering error,
+ *     so a module that is still turning doesn't drive sideways and scrub
+ *
+ * The achieved chassis speed (from the limited module states) becomes the
+ * previous setpoint for the next loop. All state is primitive arrays.
+ */
+public class SwerveSetpointGenerator {
+    private static final double STOPPED_EPSILON = 1e-3; // m/s
+
+    private final SwerveForwardKinematics kinematics;
+    private final int numModules;
+
+    private double maxSpeed;
+    private double maxAcceleration;
+    private double maxDeceleration;
+    private double maxAngularAcceleration;
+    private double maxSteeringSpeed;
+
+    // previous setpoint
+    private double prevVx, prevVy, prevOmega;
+    private final double[] prevAngle;
+
+    // output
+    private final double[] moduleSpeed;
+    private final double[] moduleAngle;
+
+    // scratch for forward kinematics
+    private final double[] moduleVx;
+    private final double[] moduleVy;
+
+    /**
+     * @param maxSpeed max wheel speed (m/s)
+     * @param maxAcceleration max chassis translational acceleration (m/s^2)
+     * @param maxDeceleration max chassis translational acceleration while slowing down (m/s^2)
+     * @param maxAngularAcceleration max chassis angular acceleration (rad/s^2)
+     * @param maxSteeringSpeed max module steering rate (rad/s)
+     */
+    public SwerveSetpointGenerator(double maxSpeed, double maxAcceleration, double maxDeceleration,
+            double maxAngularAcceleration, double maxSteeringSpeed, Translation2d... moduleLocations) {
+        this.kinematics = new SwerveForwardKinematics(moduleLocations);
+        this.numModules = moduleLocations.length;
+        this.prevAngle = new double[numModules];
+        this.moduleSpeed = new double[numModules];
+        this.moduleAngle = new double[numModules];
+        this.moduleVx = new double[numModules];
+        this.moduleVy = new double[numModules];
+        setLimits(maxSpeed, maxAcceleration, maxDeceleration, maxAngularAcceleration, maxSteeringSpeed);
+    }
+
+    public void setLimits(double maxSpeed, double maxAcceleration, double maxDeceleration,
+            double maxAngularAcceleration, double maxSteeringSpeed) {
+        this.maxSpeed = maxSpeed;
+        this.maxAcceleration = maxAcceleration;
+        this.maxDeceleration = maxDeceleration;
+        this.maxAngularAcceleration = maxAngularAcceleration;
+        this.maxSteeringSpeed = maxSteeringSpeed;
+    }
+
+    /** Start over from a stopped robot with the modules at the given (chassis-relative) angles. */
+    public void reset(double... moduleAnglesRadians) {
+        prevVx = 0.0;
+        prevVy = 0.0;
+        prevOmega = 0.0;
+        for (int i = 0; i < numModules; i++) {
+            prevAngle[i] = moduleAnglesRadians[i];
+            moduleAngle[i] = moduleAnglesRadians[i];
+            moduleSpeed[i] = 0.0;
+        }
+    }
+
+    /**
+     * Compute the next module setpoint toward the requested robot-relative chassis speed.
+     * Read the result with {@link #getModuleSpeed(int)} / {@link #getModuleAngle(int)}.
+     *
+     * @param vx forward (m/s)
+     * @param vy left (m/s)
+     * @param omega counter-clockwise (rad/s)
+     * @param dt time since the last setpoint (s)
+     */
+    public void generate(double vx, double vy, double omega, double dt) {
+        // 1. desaturate
+        double fastestWheel = 0.0;
+        for (int i = 0; i < numModules; i++) {
+            double wx = vx - omega * kinematics.getModuleY(i);
+            double wy = vy + omega * kinematics.getModuleX(i);
+            fastestWheel = Math.max(fastestWheel, Math.sqrt(wx * wx + wy * wy));
+        }
+        if (fastestWheel > maxSpeed) {
+            double scale = maxSpeed / fastestWheel;
+            vx *= scale;
+            vy *= scale;
+            omega *= scale;
+        }
+
+        // 2. chassis acceleration, scaled along the straight line from the previous setpoint
+        double dvx = vx - prevVx;
+        double dvy = vy - prevVy;
+        double dOmega = omega - prevOmega;
+        double fraction = 1.0;
+        double translationStep = Math.sqrt(dvx * dvx + dvy * dvy);
+        // slowing down (by speed, not direction) may brake harder than we accelerate
+        boolean braking = vx * vx + vy * vy < prevVx * prevVx + prevVy * prevVy;
+        double translationLimit = (braking ? maxDeceleration : maxAcceleration) * dt;
+        if (translationStep > translationLimit) {
+            fraction = translationLimit / translationStep;
+        }
+        if (Math.abs(dOmega) > maxAngularAcceleration * dt) {
+            fraction = Math.min(fraction, maxAngularAcceleration * dt / Math.abs(dOmega));
+        }
+        vx = prevVx + fraction * dvx;
+        vy = prevVy + fraction * dvy;
+        omega = prevOmega + fraction * dOmega;
+
+        // 3 + 4. per-module steering limit and cosine compensation
+        double maxSteeringStep = maxSteeringSpeed * dt;
+        for (int i = 0; i < numModules; i++) {
+            double wx = vx - omega * kinematics.getModuleY(i);
+            double wy = vy + omega * kinematics.getModuleX(i);
+            double speed = Math.sqrt(wx * wx + wy * wy);
+
+            if (speed < STOPPED_EPSILON) {
+                // nowhere to go - leave the wheel pointed where it was instead of snapping to 0
+                moduleSpeed[i] = 0.0;
+                moduleAngle[i] = prevAngle[i];
+            } else {
+                double error = MathUtil.angleModulus(Math.atan2(wy, wx) - prevAngle[i]);
+                // never turn more than 90 degrees; drive backwards instead
+                if (Math.abs(error) > Math.PI / 2) {
+                    error -= Math.copySign(Math.PI, error);
+                    speed = -speed;
+                }
+                double steer = MathUtil.clamp(error, -maxSteeringStep, maxSteeringStep);
+                moduleAngle[i] = MathUtil.angleModulus(prevAngle[i] + steer);
+                moduleSpeed[i] = speed * Math.cos(error - steer);
+            }
+            prevAngle[i] = moduleAngle[i];
+            moduleVx[i] = moduleSpeed[i] * Math.cos(moduleAngle[i]);
+            moduleVy[i] = moduleSpeed[i] * Math.sin(moduleAngle[i]);
+        }
+
+        // what the modules will actually do is next loop's starting point
+        kinematics.solve(moduleVx, moduleVy);
+        prevVx = kinematics.getVx();
+        prevVy = kinematics.getVy();
+        prevOmega = kinematics.getOmega();
+    }
+
+    /** @return forward speed the modules will actually produce this loop (m/s) */
+    public double getVx() {
+        return prevVx;
+    }
+
+    /** @return left speed the modules will actually produce this loop (m/s) */
+    public double getVy() {
+        return prevVy;
+    }
+
+    /** @return counter-clockwise rate the modules will actually produce this loop (rad/s) */
+    public double getOmega() {
+        return prevOmega;
+    }
+
+    /** @return wheel speed for the module (m/s, may be negative) */
+    public double getModuleSpeed(int module) {
+        return moduleSpeed[module];
+    }
+
+    /** @return chassis-relative wheel angle for the module (radians) */
+    public double getModuleAngle(int module) {
+        return moduleAngle[module];
+    }
+}
@@ -0,0 +1,115 @@
+package frc.robot.subsystems.drivetrain;
+
+import edu.wpi.first.math.util.Units;
+import frc.robot.Constants.TIP_LIMITER;
+
+/**
+ * How hard the drivetrain may accelerate (and how fast it may go) without tipping, from where
+ * the arm and telescope are.
+ *
+ * The robot is three point masses in its side view: the chassis, the arm tube and the
+ * telescope stage (with wrist and claw). The arm angle is 0 hanging straight down inside the
+ * frame and increases swinging forward/up; telescope extension pushes the stage out along the
+ * arm. The robot tips when a * cogHeight exceeds g * (horizontal distance from the CoG to the
+ * wheels it would tip over), so
+ *
+ *   maxAcceleration = SAFETY_FACTOR * g * min(distance to front, back, side wheels) / cogHeight
+ *
+ * (minimum over directions because a swerve can accelerate any way). The max velocity is what
+ * can be stopped within STOPPING_TIME at that acceleration. The same tipping limit bounds
+ * braking, which has its own (higher) drivetrain cap. All are capped at the drivetrain's own
+ * limits, so when stowed nothing changes.
+ *
+ * The masses and lengths are Constants.TIP_LIMITER, estimates from CAD until they're measured.
+ * Allocation free.
+ */
+public class TipLimiter {
+    private static final double GRAVITY = 9.81;
+    private static final double TOTAL_MASS = TIP_LIMITER.BASE_MASS + TIP_LIMITER.ARM_MASS + TIP_LIMITER.TELESCOPE_MASS;
+
+    private final double halfWheelbase, halfTrack;
+    private final double accelerationCap, decelerationCap, velocityCap;
+
+    private double cogX, cogHeight;
+    private double maxAcceleration, maxDeceleration, maxVelocity;
+
+    /**
+     * @param halfWheelbase front/back wheel contact distance from the frame center (m)
+     * @param halfTrack left/right wheel contact distance from the frame center (m)
+     * @param accelerationCap the drivetrain's own acceleration limit (m/s^2)
+     * @param velocityCap the drivetrain's own speed limit (m/s)
+     */
+    public TipLimiter(double halfWheelbase, double halfTrack, double accelerationCap, double velocityCap) {
+        this(halfWheelbase, halfTrack, accelerationCap, accelerationCap, velocityCap);
+    }
+
+    /**
+     * @param halfWheelbase front/back wheel contact distance from the frame center (m)
+     * @param halfTrack left/right wheel contact distance from the frame center (m)
+     * @param accelerationCap the drivetrain's own acceleration limit (m/s^2)
+     * @param decelerationCap the drivetrain's own braking limit (m/s^2)
+     * @param velocityCap the drivetrain's own speed limit (m/s)
+     */
+    public TipLimiter(double halfWheelbase, double halfTrack, double accelerationCap, double decelerationCap,
+            double velocityCap) {
+        this.halfWheelbase = halfWheelbase;
+        this.halfTrack = halfTrack;
+        this.accelerationCap = accelerationCap;
+        this.decelerationCap = decelerationCap;
+        this.velocityCap = velocityCap;
+        update(0, 0);
+    }
+
+    /**
+     * Recompute the limits. Cheap enough to call every loop.
+     *
+     * @param armDegrees arm angle, 0 = straight down
+     * @param telescopeInches telescope extension
+     */
+    public void update(double armDegrees, double telescopeInches) {
+        double angle = Math.toRadians(armDegrees);
+        double sin = Math.sin(angle);
+        double cos = Math.cos(angle);
+        double telescopeRadius = TIP_LIMITER.TELESCOPE_COG_RADIUS + Units.inchesToMeters(Math.max(telescopeInches, 0));
+
+        cogX = (TIP_LIMITER.ARM_MASS * (TIP_LIMITER.PIVOT_X + TIP_LIMITER.ARM_COG_RADIUS * sin)
+            + TIP_LIMITER.TELESCOPE_MASS * (TIP_LIMITER.PIVOT_X + telescopeRadius * sin)) / TOTAL_MASS;
+        cogHeight = (TIP_LIMITER.BASE_MASS * TIP_LIMITER.BASE_COG_HEIGHT
+            + TIP_LIMITER.ARM_MASS * (TIP_LIMITER.PIVOT_HEIGHT - TIP_LIMITER.ARM_COG_RADIUS * cos)
+            + TIP_LIMITER.TELESCOPE_MASS * (TIP_LIMITER.PIVOT_HEIGHT - telescopeRadius * cos)) / TOTAL_MASS;
+        cogHeight = Math.max(cogHeight, TIP_LIMITER.BASE_COG_HEIGHT);
+
+        double margin = Math.min(Math.min(halfWheelbase - cogX, halfWheelbase + cogX), halfTrack);
+        margin = Math.max(margin, 0);
+
+        double tipAcceleration = TIP_LIMITER.SAFETY_FACTOR * GRAVITY * margin / cogHeight;
+        maxAcceleration = Math.min(accelerationCap, tipAcceleration);
+        maxDeceleration = Math.min(decelerationCap, tipAcceleration);
+        maxVelocity = Math.min(velocityCap, maxAcceleration * TIP_LIMITER.STOPPING_TIME);
+    }
+
+    /** @return max chassis acceleration for the last update (m/s^2) */
+    public double getMaxAcceleration() {
+        return maxAcceleration;
+    }
+
+    /** @return max chassis braking for the last update (m/s^2) */
+    public double getMaxDeceleration() {
+        return maxDeceleration;
+    }
+
+    /** @return max chassis speed for the last update (m/s) */
+    public double getMaxVelocity() {
+        return maxVelocity;
+    }
+
+    /** @return center of gravity height for the last update (m) */
+    public double getCogHeight() {
+        return cogHeight;
+    }
+
+    /** @return center of gravity forward of the frame center for the last update (m) */
+    public double getCogX() {
+        return cogX;
+    }
+}
@@ -0,0 +1,25 @@
+package frc.robot.util;
+
+/**
+ * A CTRE position loop the AutoTune command can run a relay experiment on. Positions are in
+ * the closed loop's units.
+ */
+public interface AutoTunable {
+
+    /** Name for the saved gains and telemetry, e.g. "Arm". */
+    String getTuningName();
+
+    double getTuningPosition();
+
+    /** Hold a position with the current gains (closed loop). */
+    void holdTuningPosition(double position);
+
+    /** Open loop, percent output. */
+    void setTuningOutput(double percentOutput);
+
+    /** @return the percent output the motor controller is applying */
+    double getTuningOutput();
+
+    /** Configure the closed loop with these gains and save them. */
+    void applyTunedGains(TunedGains gains);
+}
@@ -0,0 +1,119 @@
+package frc.robot.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Where robotInit time goes: constructors, device configuration, library loading.
+ *
+ * Wrap a stage as {@code long start = BootTracer.start(); ... BootTracer.end("name", start);}, or
+ * {@code arm = BootTracer.trace("Arm", Arm::new)}. Spans nest by time, so a subsystem's device
+ * configs show up inside its constructor. finish() (end of robotInit) writes every span as a
+ * Chrome trace to TRACE_FILE in the operating directory (/home/lvuser on the robot): open it in
+ * chrome://tracing or ui.perfetto.dev. It also logs the slowest spans. After finish() tracing
+ * is off, so spans in code that also runs later cost next to nothing.
+ */
+public final class BootTracer {
+    private static final String TRACE_FILE = "boot_trace.json";
+    private static final int LOGGED_SPANS = 5;
+
+    private static final List<Span> spans = new ArrayList<>();
+    // every timestamp is relative to this, the first start() (top of robotInit)
+    private static final long origin = System.nanoTime();
+    private static boolean finished;
+
+    private static final class Span {
+        final String name;
+        final long threadId;
+        final long start, duration;
+
+        Span(String name, long threadId, long start, long duration) {
+            this.name = name;
+            this.threadId = threadId;
+            this.start = start;
+            this.duration = duration;
+        }
+    }
+
+    private BootTracer() {
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void end(String name, long start) {
+        long end = System.nanoTime();
+        synchronized (spans) {
+            if (!finished) {
+                spans.add(new Span(name, Thread.currentThread().getId(), start - origin, end - start));
+            }
+        }
+    }
+
+    public static <T> T trace(String name, Supplier<T> stage) {
+        long start = start();
+        T result = stage.get();
+        end(name, start);
+        return result;
+    }
+
+    public static void trace(String name, Runnable stage) {
+        long start = start();
+        stage.run();
+        end(name, start);
+    }
+
+    /** Stop tracing and write the trace. Call once, at the end of robotInit. */
+    public static void finish() {
+        List<Span> recorded;
+        synchronized (spans) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            recorded = new ArrayList<>(spans);
+        }
+        Path path = Paths.get(Filesystem.getOperatingDirectory().getPath(), TRACE_FILE);
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeTrace(out, recorded);
+        } catch (IOException e) {
+            DataLogManager.log("Boot trace: couldn't write " + path + ": " + e.getMessage());
+        }
+
+        recorded.sort(Comparator.comparingLong((Span span) -> span.duration).reversed());
+        StringBuilder slowest = new StringBuilder("Boot trace:");
+        for (int i = 0; i < Math.min(LOGGED_SPANS, recorded.size()); i++) {
+            Span span = recorded.get(i);
+            slowest.append(String.format("%s %s %.1f ms", i == 0 ? "" : ",", span.name, span.duration / 1e6));
+        }
+        DataLogManager.log(slowest + " (" + path + ")");
+    }
+
+    // Chrome trace event format: complete ("X") events, microseconds
+    private static void writeTrace(Writer out, List<Span> recorded) throws IOException {
+        out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+        for (int i = 0; i < recorded.size(); i++) {
+            Span span = recorded.get(i);
+            out.write(String.format(Locale.ROOT, "%s\n{\"name\":\"%s\",\"ph\":\"X\",\"pid\":1,\"tid\":%d,\"ts\":%.3f,\"dur\":%.3f}",
+                i == 0 ? "" : ",", escape(span.name), span.threadId, span.start / 1e3, span.duration / 1e3));
+        }
+        out.write("\n]}\n");
+    }
+
+    private static String escape(String name) {
+        return name.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
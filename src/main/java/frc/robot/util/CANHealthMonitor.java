@@ -0,0 +1,202 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.ctre.phoenix.ErrorCode;
+import com.revrobotics.REVLibError;
+
+import edu.wpi.first.hal.can.CANJNI;
+import edu.wpi.first.hal.can.CANStatus;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.TELEMETRY;
+
+/**
+ * CAN health: per-device config errors and timeouts, status frame age and jitter, and bus
+ * errors / bus-off events.
+ *
+ * Subsystems register their devices in their constructor with the period of the status frame
+ * they read, pass every config call's return code to {@link Device#config} and the error of one
+ * status read per loop to {@link Device#read}. Neither CTRE nor REV expose frame timestamps, so
+ * "fresh" means the read came back without an error (a stale or missing frame is reported as
+ * one); frame age is the time since the last fresh read, jitter the average deviation of the
+ * interval between fresh reads. A device with no fresh read for STALE_PERIODS of its frame period
+ * (or of the robot loop, if the frame is faster) is degraded and callers should stop trusting
+ * its data.
+ *
+ * That getLastError() reports a stale frame is what the vendors document, not something we've
+ * seen on this robot yet. Until it has been checked (unplug one SPARK MAX / Talon's CAN on the
+ * cart while enabled: its "stale reads" should count up and "degraded" set within STALE_PERIODS
+ * frames), a reader that knows its value must be changing passes it to
+ * {@link Device#read(REVLibError, double, boolean)}, which also counts a frozen value as stale.
+ *
+ * Telemetry, at TELEMETRY.LOW: "CAN Bus" and "CAN Degraded", and "CAN/<device>" per device.
+ */
+public class CANHealthMonitor {
+    // status frames missed in a row before a device counts as degraded
+    private static final double STALE_PERIODS = 3;
+    // weight of the newest interval in the jitter average
+    private static final double JITTER_SMOOTHING = 0.1;
+
+    private static final List<Device> devices = new ArrayList<>();
+    private static final CANStatus canStatus = new CANStatus();
+    private static int lastBusOffCount = -1;
+
+    // "CAN Bus": {utilization (%), bus off count, tx full count, receive errors, transmit errors}
+    private static final Telemetry.DoubleArrayChannel busTelemetry =
+        Telemetry.doubleArrayChannel("CAN Bus", 5, TELEMETRY.LOW);
+    private static final Telemetry.StringChannel degradedTelemetry =
+        Telemetry.stringChannel("CAN Degraded", TELEMETRY.LOW);
+    private static final StringBuilder degraded = new StringBuilder();
+
+    /**
+     * One motor controller or sensor. read() runs on a ParallelRefresh worker while the robot
+     * thread is blocked in ParallelRefresh.run(); the phaser barrier orders those writes before
+     * anything the robot thread reads afterwards (isDegraded(), telemetry), so none of this needs
+     * locking. Everything else is for the robot thread.
+     */
+    public static final class Device {
+        private final String name;
+        private int configErrors, configTimeouts, staleReads;
+        private double lastFresh = Double.NaN;
+        private double meanInterval, jitter;
+        private double staleSeconds;
+        private double lastValue = Double.NaN;
+        private boolean wasDegraded;
+
+        // "CAN/<device>": {config errors, config timeouts, stale reads, frame age (ms), jitter (ms), degraded}
+        private final Telemetry.DoubleArrayChannel telemetry;
+
+        private Device(String name, int framePeriodMs) {
+            this.name = name;
+            setFramePeriod(framePeriodMs);
+            telemetry = Telemetry.doubleArrayChannel("CAN/" + name, 6, TELEMETRY.LOW);
+        }
+
+        /** The status frame we read changed period (e.g. faster frames while characterizing). */
+        public void setFramePeriod(int framePeriodMs) {
+            // we read once per loop, so a frame can't look fresher than that
+            staleSeconds = STALE_PERIODS * Math.max(framePeriodMs / 1000.0, TimedRobot.kDefaultPeriod);
+        }
+
+        /** Record a CTRE config call's result. */
+        public void config(ErrorCode code) {
+            if (code != ErrorCode.OK) {
+                configFailed(code.toString(), isTimeout(code));
+            }
+        }
+
+        /** Record a REV config call's result. */
+        public void config(REVLibError error) {
+            if (error != REVLibError.kOk) {
+                configFailed(error.toString(), error == REVLibError.kTimeout || error == REVLibError.kCANDisconnected);
+            }
+        }
+
+        private void configFailed(String error, boolean timeout) {
+            configErrors++;
+            if (timeout) {
+                configTimeouts++;
+            }
+            DataLogManager.log("CAN " + name + ": config failed, " + error);
+        }
+
+        /** Record the outcome of this loop's status read (getLastError() after the getter). */
+        public void read(ErrorCode code) {
+            read(code == ErrorCode.OK);
+        }
+
+        public void read(REVLibError error) {
+            read(error == REVLibError.kOk);
+        }
+
+        /**
+         * Same, also counting the read as stale if the value is bit-for-bit the last one while it
+         * should be changing (e.g. a drive encoder position while the wheel is spinning).
+         */
+        public void read(REVLibError error, double value, boolean changing) {
+            boolean frozen = changing && value == lastValue;
+            lastValue = value;
+            read(error == REVLibError.kOk && !frozen);
+        }
+
+        private void read(boolean fresh) {
+            if (!fresh) {
+                staleReads++;
+                return;
+            }
+            double now = Timer.getFPGATimestamp();
+            if (!Double.isNaN(lastFresh)) {
+                double interval = now - lastFresh;
+                meanInterval += JITTER_SMOOTHING * (interval - meanInterval);
+                jitter += JITTER_SMOOTHING * (Math.abs(interval - meanInterval) - jitter);
+            }
+            lastFresh = now;
+        }
+
+        /** @return seconds since the last fresh status read (infinite if there never was one) */
+        public double getFrameAge() {
+            return Double.isNaN(lastFresh) ? Double.POSITIVE_INFINITY : Timer.getFPGATimestamp() - lastFresh;
+        }
+
+        /** Its data is stale; don't trust it. */
+        public boolean isDegraded() {
+            return getFrameAge() > staleSeconds;
+        }
+
+        private void updateTelemetry() {
+            boolean isDegraded = isDegraded();
+            if (isDegraded != wasDegraded) {
+                DataLogManager.log("CAN " + name + (isDegraded ? ": degraded, no fresh status" : ": recovered"));
+                wasDegraded = isDegraded;
+            }
+            telemetry.set(0, configErrors);
+            telemetry.set(1, configTimeouts);
+            telemetry.set(2, staleReads);
+            telemetry.set(3, Math.min(getFrameAge(), 60) * 1000);
+            telemetry.set(4, jitter * 1000);
+            telemetry.set(5, isDegraded);
+        }
+    }
+
+    private static boolean isTimeout(ErrorCode code) {
+        return code == ErrorCode.SigNotUpdated || code == ErrorCode.RxTimeout || code == ErrorCode.TxTimeout
+            || code == ErrorCode.CAN_MSG_NOT_FOUND;
+    }
+
+    /**
+     * @param name unique, shown in telemetry (e.g. "Arm Talon")
+     * @param framePeriodMs period of the status frame read() checks, as configured on the device
+     */
+    public static Device register(String name, int framePeriodMs) {
+        Device device = new Device(name, framePeriodMs);
+        devices.add(device);
+        return device;
+    }
+
+    /** Bus status and telemetry. Call periodically, e.g. from the telemetry rate group. */
+    public static void update() {
+        // into a reused object; RobotController.getCANStatus() allocates one per call
+        CANJNI.getCANStatus(canStatus);
+        if (lastBusOffCount >= 0 && canStatus.busOffCount > lastBusOffCount) {
+            DataLogManager.log("CAN bus off (" + canStatus.busOffCount + " total)");
+        }
+        lastBusOffCount = canStatus.busOffCount;
+        busTelemetry.set(0, canStatus.percentBusUtilization * 100);
+        busTelemetry.set(1, canStatus.busOffCount);
+        busTelemetry.set(2, canStatus.txFullCount);
+        busTelemetry.set(3, canStatus.receiveErrorCount);
+        busTelemetry.set(4, canStatus.transmitErrorCount);
+
+        degraded.setLength(0);
+        for (Device device : devices) {
+            device.updateTelemetry();
+            if (device.wasDegraded) {
+                degraded.append(degraded.length() == 0 ? "" : ", ").append(device.name);
+            }
+        }
+        degradedTelemetry.set(degraded.toString());
+    }
+}
@@ -0,0 +1,41 @@
+package frc.robot.util;
+
+/**
+ * A mechanism that CharacterizationRoutine can drive open loop and measure, for a SysId-style
+ * feedforward fit (tools/CharacterizationFitter).
+ *
+ * Calls come from the routine's Notifier thread, every few milliseconds.
+ */
+public interface Characterizable {
+
+    /** Gravity term in the fit. */
+    enum Gravity {
+        /** drive, steering */
+        NONE,
+        /** elevator / telescope: kG */
+        CONSTANT,
+        /** arm: kG * cos(position), position in radians from horizontal */
+        COSINE
+    }
+
+    /** Name in the log, e.g. "arm". */
+    String getCharacterizationName();
+
+    /** Position units, for the log and the fitter's output (e.g. "m", "rad"). */
+    String getCharacterizationUnits();
+
+    Gravity getGravity();
+
+    /** Apply a voltage open loop, no feedback. 0 stops. */
+    void setCharacterizationVoltage(double volts);
+
+    /** @return the voltage the motor controller actually applied */
+    double getAppliedVoltage();
+
+    double getCharacterizationPosition();
+
+    double getCharacterizationVelocity();
+
+    /** Speed up the position/velocity status frames while logging; false restores them. */
+    default void setFastFeedback(boolean enabled) {}
+}
@@ -0,0 +1,98 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.smartdashboard.Field2d;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Field2d wrapper that keeps NetworkTables traffic down.
+ *
+ * <p>Trajectories are decimated to at most {@code maxTrajectoryPoints} poses and only
+ * re-sent when they change: the same Trajectory object is skipped outright, and a new
+ * object with the same decimated poses (e.g. an auton rebuilt from unchanged choosers)
+ * is skipped after comparing the primitives. Robot pose updates are throttled to
+ * {@code robotPosePeriodMs} no matter how often {@link #setRobotPose} is called.
+ */
+public class DashboardField {
+    private final Field2d field = new Field2d();
+    private final int maxTrajectoryPoints;
+    private final long robotPosePeriodMicros;
+    private long lastRobotPoseMicros = Long.MIN_VALUE / 2;
+
+    // per object name: last trajectory seen, and the flattened {x, y, theta} poses last published
+    private final Map<String, Trajectory> lastTrajectories = new HashMap<>();
+    private final Map<String, double[]> lastPoses = new HashMap<>();
+
+    public DashboardField(String key, int maxTrajectoryPoints, int robotPosePeriodMs) {
+        this.maxTrajectoryPoints = Math.max(2, maxTrajectoryPoints);
+        this.robotPosePeriodMicros = robotPosePeriodMs * 1000L;
+        SmartDashboard.putData(key, field);
+    }
+
+    /** @return true if the robot pose is due to be sent; callers can skip building an expensive pose otherwise */
+    public boolean isRobotPoseDue() {
+        return RobotController.getFPGATime() - lastRobotPoseMicros >= robotPosePeriodMicros;
+    }
+
+    public void setRobotPose(double xMeters, double yMeters, double thetaRadians) {
+        long now = RobotController.getFPGATime();
+        if (now - lastRobotPoseMicros < robotPosePeriodMicros) {
+            return;
+        }
+        lastRobotPoseMicros = now;
+        field.setRobotPose(xMeters, yMeters, new Rotation2d(thetaRadians));
+    }
+
+    public void setRobotPose(Pose2d pose) {
+        setRobotPose(pose.getX(), pose.getY(), pose.getRotation().getRadians());
+    }
+
+    /** Draw a trajectory under the given object name, decimated and only if it changed. */
+    public void setTrajectory(String name, Trajectory trajectory) {
+        if (lastTrajectories.get(name) == trajectory) {
+            return;
+        }
+        lastTrajectories.put(name, trajectory);
+
+        List<Trajectory.State> states = trajectory.getStates();
+        int count = Math.min(states.size(), maxTrajectoryPoints);
+        double[] poses = new double[count * 3];
+        for (int i = 0; i < count; i++) {
+            // evenly spaced, always keeping the first and last state
+            int index = count == 1 ? 0 : (int) Math.round((double) i * (states.size() - 1) / (count - 1));
+            Pose2d pose = states.get(index).poseMeters;
+            poses[i * 3] = pose.getX();
+            poses[i * 3 + 1] = pose.getY();
+            poses[i * 3 + 2] = pose.getRotation().getRadians();
+        }
+        publish(name, poses);
+    }
+
+    /** Remove a trajectory from the widget. */
+    public void clear(String name) {
+        lastTrajectories.remove(name);
+        publish(name, new double[0]);
+    }
+
+    private void publish(String name, double[] poses) {
+        if (Arrays.equals(lastPoses.get(name), poses)) {
+            return;
+        }
+        lastPoses.put(name, poses);
+
+        List<Pose2d> poseList = new ArrayList<>(poses.length / 3);
+        for (int i = 0; i < poses.length; i += 3) {
+            poseList.add(new Pose2d(poses[i], poses[i + 1], new Rotation2d(poses[i + 2])));
+        }
+        field.getObject(name).setPoses(poseList);
+    }
+}
@@ -0,0 +1,87 @@
+package frc.robot.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Numbers the desktop tools work out (RouteOptimizer, CharacterizationFitter), checked in as
+ * properties files in src/main/deploy and deployed with the code to /home/lvuser/deploy. The
+ * values in code are only the defaults until a tool has written the key.
+ *
+ * A missing file or key, or one that isn't a number, falls back to the default and is logged.
+ */
+public final class DeployedConstants {
+    /** "<mechanism>.kS" / "kV" / "kA" / "kG", as CharacterizationFitter names them. SwerveModule uses drive.kV. */
+    public static final String FEEDFORWARD = "feedforward.properties";
+    /** "maxVelocity", "maxAcceleration": RouteOptimizer's limits for every auton. */
+    public static final String AUTON_LIMITS = "auton_limits.properties";
+
+    // robot side, loaded on first use
+    private static final Map<String, Properties> loaded = new HashMap<>();
+
+    private DeployedConstants() {
+    }
+
+    /** @return the deployed value, or defaultValue if the file doesn't have one */
+    public static synchronized double get(String file, String key, double defaultValue) {
+        Properties values = loaded.computeIfAbsent(file, DeployedConstants::load);
+        String value = values.getProperty(key);
+        if (value == null) {
+            DataLogManager.log("Deployed constants: no " + key + " in " + file + ", using " + defaultValue);
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            DataLogManager.log("Deployed constants: " + key + " in " + file + " isn't a number, using " + defaultValue);
+            return defaultValue;
+        }
+    }
+
+    private static Properties load(String file) {
+        Path path = Paths.get(Filesystem.getDeployDirectory().getPath(), file);
+        try {
+            return read(path);
+        } catch (IOException e) {
+            DataLogManager.log("Deployed constants: couldn't read " + path + ": " + e.getMessage());
+            return new Properties();
+        }
+    }
+
+    /** Desktop tools: the checked-in file, or nothing if there isn't one yet. */
+    public static Properties read(Path path) throws IOException {
+        Properties values = new Properties();
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            values.load(in);
+        } catch (NoSuchFileException e) {
+            // first run of the tool
+        }
+        return values;
+    }
+
+    /**
+     * Desktop tools: replace the file, keys sorted so the diff only shows what changed.
+     * @param comment first line, e.g. which tool and which data
+     */
+    public static void write(Path path, Properties values, String comment) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            out.write("# " + comment + "\n");
+            for (String key : new TreeSet<>(values.stringPropertyNames())) {
+                out.write(key + "=" + values.getProperty(key) + "\n");
+            }
+        }
+    }
+}
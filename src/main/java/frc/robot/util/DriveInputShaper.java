@@ -0,0 +1,64 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Turns raw stick values into drive commands: deadband, then expo curve.
+ *
+ * <p>There is deliberately no slew limiting here. Drivetrain's setpoint generator limits
+ * acceleration, and braking at its separate, faster deceleration limit (both capped by the tip
+ * limiter); a symmetric stick slew in front of it would hold stops to the acceleration rate.
+ * Inside the deadband the output is exactly zero on the same loop. Call {@link #calculate} then
+ * read {@link #getX()}, {@link #getY()}, {@link #getRotation()}.
+ */
+public class DriveInputShaper {
+
+    private final double deadband;
+    private final double expo;
+
+    private double x, y, rotation;
+
+    /**
+     * @param deadband stick deadband (0 - 1)
+     * @param expo blend between linear (0) and cubic (1) response
+     */
+    public DriveInputShaper(double deadband, double expo) {
+        this.deadband = deadband;
+        this.expo = expo;
+    }
+
+    public void calculate(double rawX, double rawY, double rawRotation) {
+        x = shape(rawX);
+        y = shape(rawY);
+        rotation = shape(rawRotation);
+
+        // a full diagonal is still only full speed
+        double magnitude = Math.sqrt(x * x + y * y);
+        if (magnitude > 1.0) {
+            x /= magnitude;
+            y /= magnitude;
+        }
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getRotation() {
+        return rotation;
+    }
+
+    private double shape(double value) {
+        // 0 if in deadband, otherwise (value - deadband) / (1 - deadband)
+        value = MathUtil.applyDeadband(value, deadband);
+        return (1.0 - expo) * value + expo * value * value * value;
+    }
+}
@@ -0,0 +1,79 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+
+/**
+ * One copy of every driver station joystick we use, captured once per loop.
+ *
+ * <p>CommandJoystick / CommandXboxController triggers each go back to the
+ * DriverStation (and its lock) every time they are polled. Instead we call
+ * {@link #refresh()} once at the top of the loop and let every trigger and
+ * axis supplier read from plain arrays, so all bindings in a tick see the
+ * same inputs.
+ */
+public class HIDSnapshot {
+
+    private static final int MAX_AXES = 12;
+    private static final int NO_POV = -1;
+
+    private final boolean[] tracked = new boolean[DriverStation.kJoystickPorts];
+    private final int[] buttons = new int[DriverStation.kJoystickPorts];
+    private final int[] povs = new int[DriverStation.kJoystickPorts];
+    private final double[][] axes = new double[DriverStation.kJoystickPorts][MAX_AXES];
+
+    public HIDSnapshot(int... ports) {
+        for (int port : ports) {
+            tracked[port] = true;
+            povs[port] = NO_POV;
+        }
+    }
+
+    /** Copy the latest DriverStation data for every tracked port. Call once per loop. */
+    public void refresh() {
+        for (int port = 0; port < tracked.length; port++) {
+            if (!tracked[port]) {
+                continue;
+            }
+            buttons[port] = DriverStation.getStickButtons(port);
+            povs[port] = DriverStation.getStickPOVCount(port) > 0 ? DriverStation.getStickPOV(port, 0) : NO_POV;
+
+            // only ask for axes the device reports, otherwise DriverStation spams "axis missing"
+            double[] portAxes = axes[port];
+            int axisCount = Math.min(DriverStation.getStickAxisCount(port), MAX_AXES);
+            for (int axis = 0; axis < MAX_AXES; axis++) {
+                portAxes[axis] = axis < axisCount ? DriverStation.getStickAxis(port, axis) : 0.0;
+            }
+        }
+    }
+
+    /** @param button 1-indexed, matching the DS and JOYSTICK_BUTTONS */
+    public boolean getButton(int port, int button) {
+        return (buttons[port] & (1 << (button - 1))) != 0;
+    }
+
+    public double getAxis(int port, int axis) {
+        return axes[port][axis];
+    }
+
+    /** @return POV angle in degrees, or -1 when nothing is pressed */
+    public int getPOV(int port) {
+        return povs[port];
+    }
+
+    public Trigger button(int port, int button) {
+        return new Trigger(() -> getButton(port, button));
+    }
+
+    public Trigger pov(int port, int angle) {
+        return new Trigger(() -> povs[port] == angle);
+    }
+
+    public Trigger axisGreaterThan(int port, int axis, double threshold) {
+        return new Trigger(() -> axes[port][axis] > threshold);
+    }
+}
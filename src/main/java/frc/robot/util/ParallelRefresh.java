@@ -0,0 +1,144 @@
+package frc.robot.util;
+
+import java.util.concurrent.Phaser;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.Constants.THREADS;
+
+/**
+ * Reads independent device groups, either one after the other on the robot thread or at the
+ * same time on worker threads.
+ *
+ * Serial (the default, RATE_GROUPS.PARALLEL_REFRESH false): run() just runs each group in turn.
+ *
+ * Parallel: each group gets its own persistent worker thread. run() releases all of them and
+ * returns once every group is done, so the loop pays for the slowest group plus the Phaser
+ * wake-ups instead of the sum. The first worker runs at real-time priority on the control core
+ * (free while the robot thread waits); the others stay at normal priority on the background core,
+ * so they don't preempt telemetry or path generation there. The subsystems need no locking: a
+ * group only runs while the robot thread is blocked in run(), and the phasers order its writes
+ * before anything the robot thread does afterwards. Groups must not share devices or fields.
+ *
+ * Only turn parallel on if it measures faster: "stage" (what the loop paid, wake-ups included)
+ * has to beat "serial" (the groups' own run times added up) on the robot.
+ *
+ * A stage that takes longer than timeoutMs counts as an overrun. In parallel, run() keeps waiting
+ * for it: letting the loop continue would leave a worker writing fields the robot thread is reading.
+ *
+ * "Parallel Refresh": {stage (ms), serial equivalent (ms), overruns, then each group (ms)}; in
+ * parallel, each worker's wake-up latency on "Threads/Refresh <name>" (see ThreadManager).
+ */
+public class ParallelRefresh {
+    private final Runnable[] groups;
+    private final String[] names;
+    private final long[] groupMicros;
+    private final long timeoutMicros;
+    private final boolean parallel;
+    // workers + the robot thread; null when serial
+    private final Phaser start, done;
+    // wake-up latency, release to start of the group; ordered by the start phaser
+    private final ThreadManager.LatencyMonitor[] wakeUps;
+    private long released;
+    private int overruns;
+
+    private final Telemetry.DoubleArrayChannel telemetry;
+
+    /**
+     * @param parallel run each group on its own worker thread, otherwise in turn on the robot thread
+     * @param names one per group, for the worker threads
+     * @param groups each should read its devices and nothing else
+     */
+    public ParallelRefresh(boolean parallel, double timeoutMs, String[] names, Runnable... groups) {
+        this.groups = groups;
+        this.names = names;
+        this.groupMicros = new long[groups.length];
+        this.timeoutMicros = (long) (timeoutMs * 1e3);
+        this.parallel = parallel;
+        telemetry = Telemetry.doubleArrayChannel("Parallel Refresh", 3 + groups.length, TELEMETRY.LOW);
+        wakeUps = new ThreadManager.LatencyMonitor[groups.length];
+        if (!parallel) {
+            start = null;
+            done = null;
+            return;
+        }
+        start = new Phaser(groups.length + 1);
+        done = new Phaser(groups.length + 1);
+
+        for (int i = 0; i < groups.length; i++) {
+            int group = i;
+            // here rather than on the worker, so the channel is registered before Telemetry.start()
+            wakeUps[i] = ThreadManager.monitor("Refresh " + names[i], 0);
+            Thread worker = new Thread(() -> work(group), "Refresh " + names[i]);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    private void work(int group) {
+        // the robot thread is blocked while we run, so its core is free for one real-time worker.
+        // Wake-ups show up on "Threads/Refresh <name>".
+        if (group == 0) {
+            ThreadManager.makeControlThread(THREADS.CONTROL_CORE);
+        } else {
+            ThreadManager.makeBackgroundThread();
+        }
+        while (true) {
+            start.arriveAndAwaitAdvance();
+            wakeUps[group].record(RobotController.getFPGATime() - released);
+            try {
+                runGroup(group);
+            } finally {
+                done.arrive();
+            }
+        }
+    }
+
+    private void runGroup(int group) {
+        long begin = RobotController.getFPGATime();
+        try {
+            groups[group].run();
+        } catch (RuntimeException e) {
+            // don't take the worker down with it; the robot thread would wait forever
+            DriverStation.reportError("Refresh " + names[group] + ": " + e, e.getStackTrace());
+        } finally {
+            groupMicros[group] = RobotController.getFPGATime() - begin;
+        }
+    }
+
+    /** Refresh every group and wait for all of them. Robot thread only. */
+    public void run() {
+        long begin = RobotController.getFPGATime();
+        if (parallel) {
+            runParallel();
+        } else {
+            for (int i = 0; i < groups.length; i++) {
+                runGroup(i);
+            }
+        }
+        long elapsed = RobotController.getFPGATime() - begin;
+        if (elapsed > timeoutMicros) {
+            overruns++;
+            if (overruns == 1) {
+                DataLogManager.log("Parallel Refresh: overran " + timeoutMicros / 1000.0 + " ms");
+            }
+        }
+
+        long serial = 0;
+        for (int i = 0; i < groups.length; i++) {
+            serial += groupMicros[i];
+            telemetry.set(3 + i, groupMicros[i] / 1000.0);
+        }
+        telemetry.set(0, elapsed / 1000.0);
+        telemetry.set(1, serial / 1000.0);
+        telemetry.set(2, overruns);
+    }
+
+    private void runParallel() {
+        released = RobotController.getFPGATime();
+        start.arrive();
+        done.awaitAdvance(done.arrive());
+    }
+}
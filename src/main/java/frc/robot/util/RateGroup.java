@@ -0,0 +1,92 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.Constants.TELEMETRY;
+
+/**
+ * Work that runs at its own rate off the TimedRobot main thread, through addPeriodic(), instead
+ * of every 20 ms scheduler tick.
+ *
+ * Each group gets an offset within the main loop so the groups don't all land in the same
+ * slot. Timing goes to "Rate Group/<name>": {period (ms), last (ms), mean (ms), max over the
+ * last second (ms), load (% of the period), late starts, over-budget runs}.
+ */
+public class RateGroup {
+    private static final long STATS_WINDOW_MICROS = 1_000_000;
+    // weight of the newest run in the mean
+    private static final double MEAN_SMOOTHING = 0.05;
+
+    private final Runnable[] tasks;
+    private final double periodSeconds, offsetSeconds;
+    private final long periodMicros, budgetMicros;
+
+    private long lastStart = -1, lastMicros;
+    private double meanMicros;
+    private long windowMax, reportedMax, windowStart;
+    private int lateStarts, overBudget;
+
+    private final Telemetry.DoubleArrayChannel telemetry;
+
+    /**
+     * @param budgetMs how long one run may take before it counts as over budget
+     * @param tasks run in order
+     */
+    public RateGroup(String name, double periodSeconds, double offsetSeconds, double budgetMs, Runnable... tasks) {
+        this.tasks = tasks;
+        this.periodSeconds = periodSeconds;
+        this.offsetSeconds = offsetSeconds;
+        this.periodMicros = (long) (periodSeconds * 1e6);
+        this.budgetMicros = (long) (budgetMs * 1e3);
+        telemetry = Telemetry.doubleArrayChannel("Rate Group/" + name, 7, TELEMETRY.LOW);
+        telemetry.set(0, periodSeconds * 1000);
+    }
+
+    /** Start running on the robot's main thread. Call once from robotInit. */
+    public void schedule(TimedRobot robot) {
+        robot.addPeriodic(this::run, periodSeconds, offsetSeconds);
+    }
+
+    public double getLastMillis() {
+        return lastMicros / 1000.0;
+    }
+
+    /** @return smoothed run time (ms) */
+    public double getMeanMillis() {
+        return meanMicros / 1000.0;
+    }
+
+    /** Run the tasks once and time them. For a loop that already exists (robotPeriodic); otherwise schedule(). */
+    public void run() {
+        long start = RobotController.getFPGATime();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+        long end = RobotController.getFPGATime();
+
+        long elapsed = end - start;
+        lastMicros = elapsed;
+        // started more than half a period later than it should have
+        if (lastStart >= 0 && start - lastStart > periodMicros * 3 / 2) {
+            lateStarts++;
+        }
+        lastStart = start;
+        if (elapsed > budgetMicros) {
+            overBudget++;
+        }
+        meanMicros += MEAN_SMOOTHING * (elapsed - meanMicros);
+        windowMax = Math.max(windowMax, elapsed);
+        if (end - windowStart >= STATS_WINDOW_MICROS) {
+            reportedMax = windowMax;
+            windowMax = 0;
+            windowStart = end;
+        }
+
+        telemetry.set(1, elapsed / 1000.0);
+        telemetry.set(2, meanMicros / 1000.0);
+        telemetry.set(3, reportedMax / 1000.0);
+        telemetry.set(4, 100 * meanMicros / periodMicros);
+        telemetry.set(5, lateStarts);
+        telemetry.set(6, overBudget);
+    }
+}
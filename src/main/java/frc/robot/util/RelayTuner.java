@@ -0,0 +1,146 @@
+package frc.robot.util;
+
+/**
+ * Relay-feedback (Astrom-Hagglund) auto-tuning.
+ *
+ * Bang-bang output of +/-amplitude around a setpoint makes the mechanism oscillate at its
+ * ultimate period Tu, with peak-to-peak error 2a. The describing function of the relay gives
+ * the ultimate gain Ku = 4 * amplitude / (pi * a), and the Ziegler-Nichols "no overshoot" rule
+ * turns those into P and D gains that settle fast without swinging past the target.
+ *
+ * No I: the rule's integral winds up over a long move and overshoots (the motor controllers
+ * accumulate every 1 ms with no limit configured), and the position loops never had one.
+ *
+ * The relay is centered on a bias, ideally the output that holds the mechanism still at the
+ * setpoint (gravity on the arm and wrist). The bias is then adapted every cycle so the high and
+ * low halves last equally long. The first cycles are discarded while that settles.
+ *
+ * Output is in percent output, gains in percent output per unit of error (and per unit/s).
+ * No WPILib calls.
+ */
+public class RelayTuner {
+    private static final int DISCARDED_CYCLES = 2;
+    private static final int MEASURED_CYCLES = 4;
+    private static final double BIAS_GAIN = 0.5;
+
+    // ZN "no overshoot"
+    private static final double KP_FACTOR = 0.2, TD_FACTOR = 1.0 / 3.0;
+
+    private final double setpoint, amplitude, hysteresis, maxExcursion;
+
+    private boolean high;
+    private double bias;
+    private double lastSwitch = Double.NaN;
+    private double highTime, lowTime;
+    private double cycleMax, cycleMin;
+    private int cycles;
+    private double periodSum, amplitudeSum;
+    private boolean aborted, done;
+
+    /**
+     * @param setpoint where to oscillate, somewhere with room on both sides
+     * @param bias starting guess for the output that holds the mechanism at the setpoint
+     * @param amplitude relay output (percent output, 0..1)
+     * @param hysteresis error band the relay must cross before switching; larger than the
+     *     sensor noise
+     * @param maxExcursion give up if the error ever gets bigger than this
+     */
+    public RelayTuner(double setpoint, double bias, double amplitude, double hysteresis, double maxExcursion) {
+        this.setpoint = setpoint;
+        this.bias = bias;
+        this.amplitude = amplitude;
+        this.hysteresis = hysteresis;
+        this.maxExcursion = maxExcursion;
+        cycleMax = Double.NEGATIVE_INFINITY;
+        cycleMin = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * One step.
+     *
+     * @param position current measurement
+     * @param time seconds, any epoch
+     * @return percent output to apply (0 once done or aborted)
+     */
+    public double update(double position, double time) {
+        if (done || aborted) {
+            return 0;
+        }
+        double error = setpoint - position;
+        if (Math.abs(error) > maxExcursion) {
+            aborted = true;
+            return 0;
+        }
+        cycleMax = Math.max(cycleMax, position);
+        cycleMin = Math.min(cycleMin, position);
+
+        if (Double.isNaN(lastSwitch)) {
+            high = error > 0;
+            lastSwitch = time;
+        } else if (high && error < -hysteresis) {
+            // end of the high half
+            high = false;
+            highTime = time - lastSwitch;
+            lastSwitch = time;
+        } else if (!high && error > hysteresis) {
+            // end of the low half, so one full cycle
+            high = true;
+            lowTime = time - lastSwitch;
+            lastSwitch = time;
+            endCycle();
+        }
+        return done ? 0 : bias + (high ? amplitude : -amplitude);
+    }
+
+    private void endCycle() {
+        double period = highTime + lowTime;
+        if (highTime > 0 && period > 0) {
+            cycles++;
+            if (cycles > DISCARDED_CYCLES) {
+                periodSum += period;
+                amplitudeSum += (cycleMax - cycleMin) / 2;
+                done = cycles >= DISCARDED_CYCLES + MEASURED_CYCLES;
+            }
+            // a longer high half means something (gravity) is pushing down
+            bias += BIAS_GAIN * amplitude * (highTime - lowTime) / period;
+        }
+        cycleMax = Double.NEGATIVE_INFINITY;
+        cycleMin = Double.POSITIVE_INFINITY;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    /** The error got past maxExcursion; no gains. */
+    public boolean isAborted() {
+        return aborted;
+    }
+
+    private int measured() {
+        return cycles - DISCARDED_CYCLES;
+    }
+
+    /** @return ultimate gain, percent output per unit */
+    public double getUltimateGain() {
+        return 4 * amplitude / (Math.PI * amplitudeSum / measured());
+    }
+
+    /** @return ultimate period, seconds */
+    public double getUltimatePeriod() {
+        return periodSum / measured();
+    }
+
+    /** @return the output that held the mechanism up on average (gravity), percent output */
+    public double getBias() {
+        return bias;
+    }
+
+    public double getP() {
+        return KP_FACTOR * getUltimateGain();
+    }
+
+    public double getD() {
+        return getP() * TD_FACTOR * getUltimatePeriod();
+    }
+}
@@ -0,0 +1,287 @@
+// Copyright (c) FIRST and other WPILib contributors.
+// Open Source Software; you can modify and/or share it under the terms of
+// the WPILib BSD license file in the root directory of this project.
+
+package frc.robot.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.TELEMETRY;
+
+/**
+ * Dashboard telemetry without NetworkTables work on the robot thread.
+ *
+ * <p>Subsystems register typed channels once (in their constructor, before {@link #start()}) and call
+ * {@code set()} every loop. set() only stages the value into a primitive buffer;
+ * a background Notifier publishes each channel at its own rate, and only when the
+ * value changed since it was last sent. Keys live under /SmartDashboard so the
+ * Shuffleboard layout doesn't change.
+ *
+ * <p>Related values that are always read together (a pose, a joint's position/error/limits)
+ * should go in one {@link DoubleArrayChannel}: one topic and one NT update instead of one
+ * per value.
+ *
+ * <p>When the FMS is attached every period is stretched by TELEMETRY.FMS_RATE_DIVISOR,
+ * and nothing is published while no dashboard is connected.
+ */
+public final class Telemetry {
+
+    private static final Telemetry instance = new Telemetry();
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("SmartDashboard");
+    private final Notifier flusher = new Notifier(this::flush);
+    // created in start(): monitors publish through Telemetry themselves
+    private ThreadManager.LatencyMonitor flushLatency;
+
+    // staged numeric values (doubles and booleans) as raw long bits.
+    // Channels are registered during robotInit, before start(); the arrays only grow then and
+    // never change once the flush thread reads them.
+    private volatile AtomicLongArray staged = new AtomicLongArray(0);
+    private volatile Channel[] channels = new Channel[0];
+    private boolean started = false;
+
+    // only touched by the flush thread
+    private boolean pinned = false;
+    private long nextModeCheckMicros = 0;
+    private boolean fmsAttached = false;
+    private boolean dashboardConnected = true;
+
+    private Telemetry() {
+        flusher.setName("Telemetry");
+    }
+
+    /** Start publishing in the background. Call once from robotInit; no channel can be added after this. */
+    public static void start() {
+        instance.flushLatency = ThreadManager.monitor("Telemetry", TELEMETRY.FLUSH_PERIOD_MS / 1000.0);
+        synchronized (instance) {
+            instance.started = true;
+        }
+        instance.flusher.startPeriodic(TELEMETRY.FLUSH_PERIOD_MS / 1000.0);
+    }
+
+    public static DoubleChannel doubleChannel(String key, int periodMs) {
+        return instance.register(key, new DoubleChannel(instance.table.getDoubleTopic(key).publish(), periodMs));
+    }
+
+    public static BooleanChannel booleanChannel(String key, int periodMs) {
+        return instance.register(key, new BooleanChannel(instance.table.getBooleanTopic(key).publish(), periodMs));
+    }
+
+    public static StringChannel stringChannel(String key, int periodMs) {
+        return instance.register(key, new StringChannel(instance.table.getStringTopic(key).publish(), periodMs));
+    }
+
+    /** Packed values under one topic. The order of the entries is up to the caller and should be documented there. */
+    public static DoubleArrayChannel doubleArrayChannel(String key, int size, int periodMs) {
+        return instance.register(key, new DoubleArrayChannel(instance.table.getDoubleArrayTopic(key).publish(), size, periodMs));
+    }
+
+    private synchronized <T extends Channel> T register(String key, T channel) {
+        if (started) {
+            // the flush thread is already iterating the arrays; growing them now would race it
+            throw new IllegalStateException("Telemetry: \"" + key + "\" registered after Telemetry.start(),"
+                + " register channels while the robot is constructed");
+        }
+        Channel[] grown = Arrays.copyOf(channels, channels.length + 1);
+        grown[grown.length - 1] = channel;
+
+        if (channel instanceof StagedChannel) {
+            int slot = staged.length();
+            AtomicLongArray grownStaged = new AtomicLongArray(slot + 1);
+            for (int i = 0; i < slot; i++) {
+                grownStaged.set(i, staged.get(i));
+            }
+            ((StagedChannel) channel).slot = slot;
+            staged = grownStaged;
+        }
+        channels = grown;
+        return channel;
+    }
+
+    private void flush() {
+        if (!pinned) {
+            ThreadManager.makeBackgroundThread();
+            pinned = true;
+        }
+        flushLatency.tick();
+        long now = RobotController.getFPGATime();
+        if (now >= nextModeCheckMicros) {
+            // these take locks / allocate, so only check once a second
+            fmsAttached = DriverStation.isFMSAttached();
+            dashboardConnected = NetworkTableInstance.getDefault().getConnections().length > 0;
+            nextModeCheckMicros = now + 1_000_000;
+        }
+        if (!dashboardConnected) {
+            return;
+        }
+
+        long periodScale = fmsAttached ? TELEMETRY.FMS_RATE_DIVISOR : 1;
+        for (Channel channel : channels) {
+            if (now - channel.lastPublishMicros >= channel.periodMicros * periodScale && channel.publishIfChanged()) {
+                channel.lastPublishMicros = now;
+            }
+        }
+    }
+
+    /** A single dashboard value with its own publish rate. */
+    public abstract static class Channel {
+        private final long periodMicros;
+        private long lastPublishMicros = Long.MIN_VALUE / 2;
+
+        Channel(int periodMs) {
+            this.periodMicros = periodMs * 1000L;
+        }
+
+        /** Flush thread only. @return true if something was sent */
+        abstract boolean publishIfChanged();
+    }
+
+    /** Channel whose value is staged as 64 bits in the shared primitive buffer. */
+    abstract static class StagedChannel extends Channel {
+        int slot;
+        private long publishedBits;
+        private boolean published = false;
+
+        StagedChannel(int periodMs) {
+            super(periodMs);
+        }
+
+        void stage(long bits) {
+            instance.staged.lazySet(slot, bits);
+        }
+
+        @Override
+        boolean publishIfChanged() {
+            long bits = instance.staged.get(slot);
+            if (published && bits == publishedBits) {
+                return false;
+            }
+            publish(bits);
+            publishedBits = bits;
+            published = true;
+            return true;
+        }
+
+        abstract void publish(long bits);
+    }
+
+    public static final class DoubleChannel extends StagedChannel {
+        private final DoublePublisher publisher;
+
+        DoubleChannel(DoublePublisher publisher, int periodMs) {
+            super(periodMs);
+            this.publisher = publisher;
+        }
+
+        public void set(double value) {
+            stage(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        void publish(long bits) {
+            publisher.set(Double.longBitsToDouble(bits));
+        }
+    }
+
+    public static final class BooleanChannel extends StagedChannel {
+        private final BooleanPublisher publisher;
+
+        BooleanChannel(BooleanPublisher publisher, int periodMs) {
+            super(periodMs);
+            this.publisher = publisher;
+        }
+
+        public void set(boolean value) {
+            stage(value ? 1L : 0L);
+        }
+
+        @Override
+        void publish(long bits) {
+            publisher.set(bits != 0L);
+        }
+    }
+
+    /** For enum names and other strings that already exist - set() never allocates. */
+    public static final class StringChannel extends Channel {
+        private final StringPublisher publisher;
+        private volatile String value = "";
+        private String publishedValue = null;
+
+        StringChannel(StringPublisher publisher, int periodMs) {
+            super(periodMs);
+            this.publisher = publisher;
+        }
+
+        public void set(String value) {
+            this.value = value;
+        }
+
+        @Override
+        boolean publishIfChanged() {
+            String current = value;
+            if (current.equals(publishedValue)) {
+                return false;
+            }
+            publisher.set(current);
+            publishedValue = current;
+            return true;
+        }
+    }
+
+    /**
+     * Fixed-length double[] topic. Entries are staged individually, so a dashboard sample
+     * may mix entries from two consecutive loops - fine for display.
+     */
+    public static final class DoubleArrayChannel extends Channel {
+        private final DoubleArrayPublisher publisher;
+        private final AtomicLongArray values;
+        // flush thread only
+        private final double[] publishedValues;
+        private boolean published = false;
+
+        DoubleArrayChannel(DoubleArrayPublisher publisher, int size, int periodMs) {
+            super(periodMs);
+            this.publisher = publisher;
+            this.values = new AtomicLongArray(size);
+            this.publishedValues = new double[size];
+        }
+
+        public void set(int index, double value) {
+            values.lazySet(index, Double.doubleToRawLongBits(value));
+        }
+
+        /** Flags are packed as 1.0 / 0.0. */
+        public void set(int index, boolean value) {
+            set(index, value ? 1.0 : 0.0);
+        }
+
+        @Override
+        boolean publishIfChanged() {
+            boolean changed = !published;
+            for (int i = 0; i < publishedValues.length; i++) {
+                long bits = values.get(i);
+                if (Double.doubleToRawLongBits(publishedValues[i]) != bits) {
+                    publishedValues[i] = Double.longBitsToDouble(bits);
+                    changed = true;
+                }
+            }
+            if (!changed) {
+                return false;
+            }
+            // the array is copied by NT, so it's safe to keep reusing it
+            publisher.set(publishedValues);
+            published = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package frc.robot.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadFactory;
+
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Threads;
+import frc.robot.Constants.TELEMETRY;
+import frc.robot.Constants.THREADS;
+
+/**
+ * Keeps the robot thread ahead of everything else on the roboRIO's two cores.
+ *
+ * The robot thread gets real-time priority and THREADS.CONTROL_CORE; our background threads
+ * (telemetry, path generation) stay at normal priority on THREADS.BACKGROUND_CORE. NetworkTables,
+ * the JIT and GC threads are native or JVM-owned and aren't touched. Nothing changes in simulation.
+ *
+ * Java has no affinity API and WPILib's Threads only sets priority, so pinning forks taskset on
+ * the thread's Linux id. That costs a process spawn, up to tens of ms on the roboRIO, paid once
+ * per thread when it starts (robotInit, or as a worker thread starts); never call it from a loop. It's
+ * best effort: if taskset is missing, exits non-zero or can't be started, that is logged and the
+ * thread keeps running unpinned at whatever priority it was given.
+ *
+ * A {@link LatencyMonitor} per thread reports how late it gets to run.
+ */
+public final class ThreadManager {
+
+    private ThreadManager() {
+    }
+
+    /** Real-time priority and the control core for the calling thread. Call from robotInit. */
+    public static void makeControlThread() {
+        makeControlThread(THREADS.CONTROL_CORE);
+    }
+
+    /** Real-time priority on the given core, for work the robot thread waits on. Call from the thread itself. */
+    public static void makeControlThread(int core) {
+        if (!RobotBase.isReal()) {
+            return;
+        }
+        if (!Threads.setCurrentThreadPriority(true, THREADS.CONTROL_PRIORITY)) {
+            DataLogManager.log("Threads: couldn't set real-time priority for " + Thread.currentThread().getName());
+        }
+        pinCurrentThread(core);
+    }
+
+    /** Move the calling thread to the background core. Call from the thread itself, once. */
+    public static void makeBackgroundThread() {
+        if (RobotBase.isReal()) {
+            pinCurrentThread(THREADS.BACKGROUND_CORE);
+        }
+    }
+
+    /** Daemon threads that move themselves to the background core when they start. */
+    public static ThreadFactory backgroundThreadFactory(String name) {
+        return runnable -> {
+            Thread thread = new Thread(() -> {
+                makeBackgroundThread();
+                runnable.run();
+            }, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static void pinCurrentThread(int core) {
+        String name = Thread.currentThread().getName();
+        try {
+            // "<pid>/task/<tid>"
+            String tid = Files.readSymbolicLink(Paths.get("/proc/thread-self")).getFileName().toString();
+            Process taskset = new ProcessBuilder("taskset", "-p", "-c", Integer.toString(core), tid)
+                .redirectErrorStream(true)
+                .start();
+            if (taskset.waitFor() != 0) {
+                DataLogManager.log("Threads: taskset failed for " + name + " (exit " + taskset.exitValue() + ")");
+                return;
+            }
+            DataLogManager.log("Threads: " + name + " (tid " + tid + ") on core " + core);
+        } catch (IOException e) {
+            DataLogManager.log("Threads: couldn't pin " + name + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** @param periodSeconds how often the thread expects to wake up; 0 for threads that only run queued work */
+    public static LatencyMonitor monitor(String name, double periodSeconds) {
+        return new LatencyMonitor(name, periodSeconds);
+    }
+
+    /**
+     * Scheduling latency of one thread: how much later than expected it woke up (periodic threads,
+     * tick()) or started a queued task (record()). Use from that thread only.
+     *
+     * "Threads/<name>": {last (ms), mean (ms), max over the last second (ms), runs over 1 ms late}
+     */
+    public static final class LatencyMonitor {
+        private static final long WINDOW_MICROS = 1_000_000;
+        private static final long LATE_MICROS = 1_000;
+        // weight of the newest sample in the mean
+        private static final double MEAN_SMOOTHING = 0.05;
+
+        private final long periodMicros;
+        private long lastTick = -1;
+        private double meanMicros;
+        private long windowMax, reportedMax, windowStart;
+        private int late;
+
+        private final Telemetry.DoubleArrayChannel telemetry;
+
+        private LatencyMonitor(String name, double periodSeconds) {
+            periodMicros = (long) (periodSeconds * 1e6);
+            telemetry = Telemetry.doubleArrayChannel("Threads/" + name, 4, TELEMETRY.LOW);
+        }
+
+        /** Call first thing each time a periodic thread wakes up. */
+        public void tick() {
+            long now = RobotController.getFPGATime();
+            if (lastTick >= 0) {
+                record(Math.max(0, now - lastTick - periodMicros));
+            }
+            lastTick = now;
+        }
+
+        /** Record a latency directly, e.g. start of a queued task minus its submit time (µs). */
+        public void record(long latencyMicros) {
+            long now = RobotController.getFPGATime();
+            if (latencyMicros > LATE_MICROS) {
+                late++;
+            }
+            meanMicros += MEAN_SMOOTHING * (latencyMicros - meanMicros);
+            windowMax = Math.max(windowMax, latencyMicros);
+            if (now - windowStart >= WINDOW_MICROS) {
+                reportedMax = windowMax;
+                windowMax = 0;
+                windowStart = now;
+            }
+            telemetry.set(0, latencyMicros / 1000.0);
+            telemetry.set(1, meanMicros / 1000.0);
+            telemetry.set(2, reportedMax / 1000.0);
+            telemetry.set(3, late);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import edu.wpi.first.networktables.DoubleEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * A number that can be changed from the dashboard at "/Tuning/<key>" while the robot runs:
+ * gains, presets, thresholds.
+ *
+ * Nothing is polled. An NT listener records dashboard edits, and applyChanges() (once per loop,
+ * from Robot) takes an edit once the value has stopped changing for DEBOUNCE_SECONDS, so typing
+ * "0.125" doesn't become four updates. Only then do the onChange() actions run, so motor
+ * controllers get one config write per actual change instead of one per loop.
+ *
+ * While the FMS is attached everything is frozen: edits are ignored and the dashboard is put
+ * back to the value in use.
+ */
+public class TunableNumber {
+    private static final String TABLE = "/Tuning/";
+    private static final double DEBOUNCE_SECONDS = 0.25;
+
+    private static final List<TunableNumber> tunables = new ArrayList<>();
+    private static final List<ChangeAction> actions = new ArrayList<>();
+
+    private final DoubleEntry entry;
+    // only touched from the robot thread
+    private double value;
+    private boolean changed;
+    // written by the NT listener thread
+    private double pending;
+    private double pendingSince;
+    private boolean dirty;
+
+    private static class ChangeAction {
+        final Runnable action;
+        final TunableNumber[] numbers;
+
+        ChangeAction(Runnable action, TunableNumber[] numbers) {
+            this.action = action;
+            this.numbers = numbers;
+        }
+    }
+
+    /** @param key path under /Tuning, e.g. "Arm/kP" */
+    public TunableNumber(String key, double defaultValue) {
+        value = defaultValue;
+        NetworkTableInstance nt = NetworkTableInstance.getDefault();
+        entry = nt.getDoubleTopic(TABLE + key).getEntry(defaultValue);
+        // a value left on the server from the last run doesn't count, the code's default does
+        entry.set(defaultValue);
+        nt.addListener(entry, EnumSet.of(NetworkTableEvent.Kind.kValueRemote), this::onRemoteChange);
+        tunables.add(this);
+    }
+
+    private synchronized void onRemoteChange(NetworkTableEvent event) {
+        pending = event.valueData.value.getDouble();
+        pendingSince = Timer.getFPGATimestamp();
+        dirty = true;
+    }
+
+    /** @return the value in use; cheap, no NT access */
+    public double get() {
+        return value;
+    }
+
+    /**
+     * Change the value from code (e.g. after auto-tuning) and show it on the dashboard.
+     * onChange() actions don't run; the caller applies it.
+     */
+    public void set(double value) {
+        this.value = value;
+        entry.set(value);
+    }
+
+    /**
+     * Run action on the robot thread whenever any of the numbers changes. Several numbers changed
+     * in the same loop run it once.
+     */
+    public static void onChange(Runnable action, TunableNumber... numbers) {
+        actions.add(new ChangeAction(action, numbers));
+    }
+
+    /** Take debounced dashboard edits and run the actions for them. Call once per loop. */
+    public static void applyChanges() {
+        double now = Timer.getFPGATimestamp();
+        boolean frozen = DriverStation.isFMSAttached();
+        boolean any = false;
+        for (TunableNumber tunable : tunables) {
+            tunable.changed = tunable.takePending(now, frozen);
+            any |= tunable.changed;
+        }
+        if (!any) {
+            return;
+        }
+        for (ChangeAction action : actions) {
+            for (TunableNumber number : action.numbers) {
+                if (number.changed) {
+                    action.action.run();
+                    break;
+                }
+            }
+        }
+    }
+
+    private synchronized boolean takePending(double now, boolean frozen) {
+        if (!dirty || now - pendingSince < DEBOUNCE_SECONDS) {
+            return false;
+        }
+        dirty = false;
+        if (frozen) {
+            entry.set(value);
+            return false;
+        }
+        if (pending == value) {
+            return false;
+        }
+        value = pending;
+        return true;
+    }
+}
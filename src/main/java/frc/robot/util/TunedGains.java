@@ -0,0 +1,49 @@
+package frc.robot.util;
+
+import edu.wpi.first.wpilibj.Preferences;
+
+/**
+ * Position loop gains for a CTRE motor controller, persisted in Preferences (on the roboRIO,
+ * survives redeploys) under "<mechanism> kP" / "kI" / "kD". The values in code are only the
+ * defaults until the mechanism has been auto-tuned.
+ */
+public class TunedGains {
+    // CTRE closed loop: output 1023 = full, runs every 1 ms
+    private static final double FULL_OUTPUT = 1023.0;
+    private static final double LOOP_SECONDS = 0.001;
+
+    public final double p, i, d;
+
+    public TunedGains(double p, double i, double d) {
+        this.p = p;
+        this.i = i;
+        this.d = d;
+    }
+
+    /**
+     * Convert from percent output per unit of error (/ unit*s / unit/s), where the unit is the
+     * closed loop's (after configSelectedFeedbackCoefficient).
+     */
+    public static TunedGains fromPercentOutput(double p, double i, double d) {
+        return new TunedGains(p * FULL_OUTPUT, i * FULL_OUTPUT * LOOP_SECONDS, d * FULL_OUTPUT / LOOP_SECONDS);
+    }
+
+    /** @return the saved gains, or the defaults if the mechanism was never tuned */
+    public static TunedGains load(String mechanism, double defaultP, double defaultI, double defaultD) {
+        return new TunedGains(
+            Preferences.getDouble(mechanism + " kP", defaultP),
+            Preferences.getDouble(mechanism + " kI", defaultI),
+            Preferences.getDouble(mechanism + " kD", defaultD));
+    }
+
+    public void save(String mechanism) {
+        Preferences.setDouble(mechanism + " kP", p);
+        Preferences.setDouble(mechanism + " kI", i);
+        Preferences.setDouble(mechanism + " kD", d);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("kP %.2f, kI %.4f, kD %.1f", p, i, d);
+    }
+}
@@ -0,0 +1,88 @@
+package frc.robot.auton;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+class FieldNavGraphTest {
+    // blue charge station, meters: x 2.97..4.85, y 1.53..3.95 (before growing by the robot radius)
+    private static final Translation2d BEFORE_CHARGE_STATION = new Translation2d(2.2, 2.7);
+    private static final Translation2d AFTER_CHARGE_STATION = new Translation2d(5.7, 2.7);
+    private static final Translation2d ON_CHARGE_STATION = new Translation2d(3.9, 2.7);
+    // collision check step along the route
+    private static final double STEP = 0.01; // m
+
+    private final FieldNavGraph graph = new FieldNavGraph();
+
+    /** start, the planned corners, goal */
+    private List<Translation2d> route(Translation2d from, Translation2d to) {
+        List<Translation2d> points = new ArrayList<Translation2d>();
+        points.add(from);
+        points.addAll(graph.plan(from, to));
+        points.add(to);
+        return points;
+    }
+
+    private static double length(List<Translation2d> points) {
+        double length = 0;
+        for (int i = 1; i < points.size(); i++) {
+            length += points.get(i).getDistance(points.get(i - 1));
+        }
+        return length;
+    }
+
+    @Test
+    void clearLineNeedsNoCorners() {
+        // open field above the charge stations and grids
+        assertTrue(graph.plan(new Translation2d(5, 6.5), new Translation2d(10, 6.5)).isEmpty());
+    }
+
+    @Test
+    void obstaclesAtFindsTheChargeStation() {
+        assertNotEquals(0, graph.obstaclesAt(ON_CHARGE_STATION.getX(), ON_CHARGE_STATION.getY()));
+        assertEquals(0, graph.obstaclesAt(8.27, 4.0));
+    }
+
+    @Test
+    void routesAroundTheChargeStation() {
+        List<Translation2d> points = route(BEFORE_CHARGE_STATION, AFTER_CHARGE_STATION);
+
+        assertTrue(points.size() > 2, "expected corners around the charge station");
+        for (int i = 1; i < points.size(); i++) {
+            Translation2d from = points.get(i - 1), to = points.get(i);
+            int steps = (int) Math.ceil(from.getDistance(to) / STEP);
+            for (int s = 0; s <= steps; s++) {
+                Translation2d point = from.interpolate(to, (double) s / steps);
+                assertEquals(0, graph.obstaclesAt(point.getX(), point.getY()), "route hits an obstacle at " + point);
+            }
+        }
+        double straight = BEFORE_CHARGE_STATION.getDistance(AFTER_CHARGE_STATION);
+        double length = length(points);
+        assertTrue(length > straight);
+        // around one corner pair of the grown station, not the long way round the field
+        assertTrue(length < 2 * straight, "route is " + length + " m");
+    }
+
+    @Test
+    void shortestRouteIsTheSameBothWays() {
+        double there = length(route(BEFORE_CHARGE_STATION, AFTER_CHARGE_STATION));
+        double back = length(route(AFTER_CHARGE_STATION, BEFORE_CHARGE_STATION));
+        assertEquals(there, back, 1e-9);
+    }
+
+    @Test
+    void startInsideAnObstacleMayLeaveIt() {
+        // charge station targets sit on the station: driving off it isn't a collision
+        assertNotEquals(0, graph.obstaclesAt(ON_CHARGE_STATION.getX(), ON_CHARGE_STATION.getY()));
+        assertTrue(graph.plan(ON_CHARGE_STATION, AFTER_CHARGE_STATION).isEmpty());
+        assertFalse(graph.plan(BEFORE_CHARGE_STATION, AFTER_CHARGE_STATION).isEmpty());
+    }
+}
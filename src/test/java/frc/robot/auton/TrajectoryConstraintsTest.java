@@ -0,0 +1,177 @@
+package frc.robot.auton;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPoint;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.util.Units;
+import frc.robot.Constants.SWERVE;
+import frc.robot.auton.TrajectoryConstraints.Superstructure;
+import frc.robot.subsystems.drivetrain.TipLimiter;
+
+class TrajectoryConstraintsTest {
+    private static final double DT = 0.02;
+    private static final double EPSILON = 1e-6;
+    // start of the test paths, open field
+    private static final double START_X = 5, START_Y = 4;
+
+    /** Straight along +x, no rotation, so only the speed and acceleration limits matter. */
+    private static PathPlannerTrajectory straightPath(double length) {
+        return PathPlanner.generatePath(new PathConstraints(4, 3),
+            new PathPoint(new Translation2d(START_X, START_Y), new Rotation2d(), new Rotation2d()),
+            new PathPoint(new Translation2d(START_X + length, START_Y), new Rotation2d(), new Rotation2d()));
+    }
+
+    /** Longest step between the path's points; retime() is exact at the points, not between them. */
+    private static double maxSpacing(PathPlannerTrajectory path) {
+        double spacing = 0;
+        List<Trajectory.State> states = path.getStates();
+        for (int i = 1; i < states.size(); i++) {
+            spacing = Math.max(spacing, states.get(i).poseMeters.getTranslation()
+                .getDistance(states.get(i - 1).poseMeters.getTranslation()));
+        }
+        return spacing;
+    }
+
+    private static double speedAt(SampledTrajectory trajectory, int index) {
+        trajectory.sample(index * DT);
+        return Math.hypot(trajectory.getSampleVx(), trajectory.getSampleVy());
+    }
+
+    @Test
+    void startsAndEndsAtRest() {
+        SampledTrajectory trajectory = new TrajectoryConstraints(1.5, 1.0, 1.0)
+            .retime(straightPath(4), Superstructure.STOWED, DT);
+
+        int last = trajectory.getNumSamples() - 1;
+        assertEquals(0, speedAt(trajectory, 0), EPSILON);
+        assertEquals(0, speedAt(trajectory, last), EPSILON);
+        assertEquals(START_X, trajectory.getX(0), 1e-3);
+        assertEquals(START_X + 4, trajectory.getX(last), 1e-3);
+        assertEquals(START_Y, trajectory.getY(last), 1e-3);
+    }
+
+    @Test
+    void forwardAndBackwardPassesKeepSpeedAndAccelerationWithinLimits() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(1.5, 1.0, 1.0);
+        double maxVelocity = constraints.getMaxVelocity(Superstructure.STOWED);
+        double maxAcceleration = constraints.getMaxAcceleration(Superstructure.STOWED);
+        SampledTrajectory trajectory = constraints.retime(straightPath(6), Superstructure.STOWED, DT);
+
+        double peak = 0;
+        for (int i = 1; i < trajectory.getNumSamples(); i++) {
+            double speed = speedAt(trajectory, i);
+            peak = Math.max(peak, speed);
+            assertTrue(speed <= maxVelocity + EPSILON, "speed " + speed + " at sample " + i);
+            double change = Math.abs(speed - speedAt(trajectory, i - 1));
+            assertTrue(change <= maxAcceleration * DT + EPSILON, "speed change " + change + " at sample " + i);
+        }
+        // long enough to reach cruise
+        assertEquals(maxVelocity, peak, 1e-2);
+    }
+
+    @Test
+    void longPathTakesTrapezoidTime() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(1.5, 1.0, 1.0);
+        double v = constraints.getMaxVelocity(Superstructure.STOWED);
+        double a = constraints.getMaxAcceleration(Superstructure.STOWED);
+        double length = 6;
+        PathPlannerTrajectory path = straightPath(length);
+        SampledTrajectory trajectory = constraints.retime(path, Superstructure.STOWED, DT);
+
+        // accelerate to v, cruise, brake: length / v + v / a. Where the profile reaches or leaves
+        // cruise between two points it's up to a step's worth slower.
+        assertEquals(length / v + v / a, trajectory.getTotalTimeSeconds(), 2 * maxSpacing(path) / v + DT);
+    }
+
+    @Test
+    void shortPathTakesTriangleTime() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(1.5, 1.0, 1.0);
+        double a = constraints.getMaxAcceleration(Superstructure.STOWED);
+        double length = 0.5;
+        PathPlannerTrajectory path = straightPath(length);
+        SampledTrajectory trajectory = constraints.retime(path, Superstructure.STOWED, DT);
+
+        // never reaches cruise: peak sqrt(a * length) halfway, 2 * sqrt(length / a) in all
+        double peak = Math.sqrt(a * length);
+        assertEquals(2 * Math.sqrt(length / a), trajectory.getTotalTimeSeconds(), 2 * maxSpacing(path) / peak + DT);
+        for (int i = 0; i < trajectory.getNumSamples(); i++) {
+            assertTrue(speedAt(trajectory, i) <= peak + EPSILON);
+        }
+    }
+
+    @Test
+    void startVelocityCarriesIntoThePath() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(1.5, 1.0, 1.0);
+        PathPlannerTrajectory path = straightPath(4);
+        SampledTrajectory fromRest = constraints.retime(path, Superstructure.STOWED, DT);
+        SampledTrajectory moving = constraints.retime(path, Superstructure.STOWED, 1.0, DT);
+
+        assertEquals(1.0, speedAt(moving, 0), 1e-3);
+        assertTrue(moving.getTotalTimeSeconds() < fromRest.getTotalTimeSeconds());
+    }
+
+    @Test
+    void startVelocityIsClampedToTheLimit() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(1.5, 1.0, 1.0);
+        SampledTrajectory trajectory = constraints.retime(straightPath(4), Superstructure.STOWED, 10, DT);
+
+        assertEquals(constraints.getMaxVelocity(Superstructure.STOWED), speedAt(trajectory, 0), 1e-3);
+    }
+
+    @Test
+    void zoneSlowsThePathInsideIt() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(1.5, 1.0, 1.0)
+            .addZone(START_X + 2, START_X + 3, 0, 10, 0.5, 1.0);
+        PathPlannerTrajectory path = straightPath(5);
+        SampledTrajectory trajectory = constraints.retime(path, Superstructure.STOWED, DT);
+
+        // zones apply at the path's points: between the first and last point inside
+        double spacing = maxSpacing(path);
+        boolean sawZone = false;
+        for (int i = 0; i < trajectory.getNumSamples(); i++) {
+            double x = trajectory.getX(i);
+            if (x > START_X + 2 + spacing && x < START_X + 3 - spacing) {
+                sawZone = true;
+                assertTrue(speedAt(trajectory, i) <= 0.5 + EPSILON, "speed in zone at x " + x);
+            }
+        }
+        assertTrue(sawZone);
+    }
+
+    @Test
+    void armOutIsNoFasterThanStowed() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(10, 10, 10);
+        assertTrue(constraints.getMaxVelocity(Superstructure.FLOOR) <= constraints.getMaxVelocity(Superstructure.STOWED));
+        assertTrue(constraints.getMaxAcceleration(Superstructure.FLOOR)
+            <= constraints.getMaxAcceleration(Superstructure.STOWED));
+
+        SampledTrajectory trajectory = constraints.retime(straightPath(6), Superstructure.FLOOR, DT);
+        for (int i = 0; i < trajectory.getNumSamples(); i++) {
+            assertTrue(speedAt(trajectory, i) <= constraints.getMaxVelocity(Superstructure.FLOOR) + EPSILON);
+        }
+    }
+
+    @Test
+    void stateLimitsComeFromThePresets() {
+        TrajectoryConstraints constraints = new TrajectoryConstraints(10, 10, 10);
+        TipLimiter tipLimiter = new TipLimiter(
+            Units.inchesToMeters(SWERVE.WHEEL_LENGTH) / 2, Units.inchesToMeters(SWERVE.WHEEL_WIDTH) / 2,
+            SWERVE.MAX_ACCELERATION, SWERVE.MAX_DIRECTION_SPEED);
+        tipLimiter.update(Superstructure.FLOOR.arm.getDegrees(), Superstructure.FLOOR.telescope.getInches());
+
+        assertEquals(tipLimiter.getMaxVelocity(), constraints.getMaxVelocity(Superstructure.FLOOR), 1e-9);
+        assertEquals(tipLimiter.getMaxAcceleration(), constraints.getMaxAcceleration(Superstructure.FLOOR), 1e-9);
+    }
+}
@@ -0,0 +1,74 @@
+package frc.robot.subsystems.drivetrain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.geometry.Translation2d;
+
+class SwerveSetpointGeneratorTest {
+    private static final double DT = 0.02;
+    private static final double MAX_SPEED = 4, ACCELERATION = 3, DECELERATION = 6;
+    // high enough that only translation limits
+    private static final double NO_CAP = 1000;
+    private static final Translation2d[] MODULES = {
+        new Translation2d(0.34, 0.34), new Translation2d(0.34, -0.34),
+        new Translation2d(-0.34, 0.34), new Translation2d(-0.34, -0.34)
+    };
+
+    /** Modules already pointed forward, driven up to full speed. */
+    private static SwerveSetpointGenerator atFullSpeed() {
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(
+            MAX_SPEED, ACCELERATION, DECELERATION, NO_CAP, NO_CAP, MODULES);
+        generator.reset(0, 0, 0, 0);
+        for (int i = 0; i < 1000 && generator.getVx() < MAX_SPEED; i++) {
+            generator.generate(MAX_SPEED, 0, 0, DT);
+        }
+        assertEquals(MAX_SPEED, generator.getVx(), 1e-9);
+        return generator;
+    }
+
+    @Test
+    void acceleratesAtTheAccelerationLimit() {
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(
+            MAX_SPEED, ACCELERATION, DECELERATION, NO_CAP, NO_CAP, MODULES);
+        generator.reset(0, 0, 0, 0);
+        generator.generate(MAX_SPEED, 0, 0, DT);
+        assertEquals(ACCELERATION * DT, generator.getVx(), 1e-9);
+    }
+
+    @Test
+    void releasingTheSticksStopsAtTheDecelerationLimit() {
+        SwerveSetpointGenerator generator = atFullSpeed();
+
+        double distance = 0, time = 0;
+        while (generator.getVx() > 0) {
+            double before = generator.getVx();
+            generator.generate(0, 0, 0, DT);
+            assertTrue(before - generator.getVx() <= DECELERATION * DT + 1e-9);
+            distance += generator.getVx() * DT;
+            time += DT;
+        }
+        // v / a and v^2 / 2a, give or take the last partial loop
+        assertEquals(MAX_SPEED / DECELERATION, time, DT);
+        assertEquals(MAX_SPEED * MAX_SPEED / (2 * DECELERATION), distance, MAX_SPEED * DT);
+        assertEquals(0, generator.getVy(), 1e-9);
+    }
+
+    @Test
+    void brakingIsFasterThanTheAccelerationLimitAlone() {
+        SwerveSetpointGenerator generator = atFullSpeed();
+        generator.generate(0, 0, 0, DT);
+        assertEquals(MAX_SPEED - DECELERATION * DT, generator.getVx(), 1e-9);
+    }
+
+    @Test
+    void lowerDecelerationLimitFromTheTipLimiterApplies() {
+        SwerveSetpointGenerator generator = atFullSpeed();
+        // arm out: the tip limiter caps braking too
+        generator.setLimits(MAX_SPEED, 1, 1, NO_CAP, NO_CAP);
+        generator.generate(0, 0, 0, DT);
+        assertEquals(MAX_SPEED - DT, generator.getVx(), 1e-9);
+    }
+}
@@ -0,0 +1,81 @@
+package frc.robot.subsystems.drivetrain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import frc.robot.Constants.TIP_LIMITER;
+
+class TipLimiterTest {
+    private static final double HALF_WHEELBASE = 0.34, HALF_TRACK = 0.34; // m
+    // high enough that only tipping limits
+    private static final double NO_CAP = 1000;
+    private static final double GRAVITY = 9.81;
+
+    @Test
+    void accelerationComesFromTheCenterOfGravity() {
+        TipLimiter limiter = new TipLimiter(HALF_WHEELBASE, HALF_TRACK, NO_CAP, NO_CAP);
+        limiter.update(60, 10);
+
+        double margin = Math.min(Math.min(HALF_WHEELBASE - limiter.getCogX(), HALF_WHEELBASE + limiter.getCogX()), HALF_TRACK);
+        assertEquals(TIP_LIMITER.SAFETY_FACTOR * GRAVITY * margin / limiter.getCogHeight(),
+            limiter.getMaxAcceleration(), 1e-9);
+        assertEquals(limiter.getMaxAcceleration() * TIP_LIMITER.STOPPING_TIME, limiter.getMaxVelocity(), 1e-9);
+    }
+
+    @Test
+    void reachingOutLowersTheLimits() {
+        TipLimiter limiter = new TipLimiter(HALF_WHEELBASE, HALF_TRACK, NO_CAP, NO_CAP);
+        limiter.update(0, 0);
+        double stowedAcceleration = limiter.getMaxAcceleration();
+        double stowedVelocity = limiter.getMaxVelocity();
+
+        limiter.update(90, 0);
+        double outAcceleration = limiter.getMaxAcceleration();
+        assertTrue(outAcceleration < stowedAcceleration);
+        assertTrue(limiter.getMaxVelocity() < stowedVelocity);
+
+        // the telescope pushes the CoG further out
+        limiter.update(90, 20);
+        assertTrue(limiter.getMaxAcceleration() < outAcceleration);
+    }
+
+    @Test
+    void drivetrainCapsStillApply() {
+        TipLimiter limiter = new TipLimiter(HALF_WHEELBASE, HALF_TRACK, 0.5, 0.25);
+        limiter.update(0, 0);
+        assertEquals(0.5, limiter.getMaxAcceleration(), 1e-9);
+        assertEquals(0.25, limiter.getMaxVelocity(), 1e-9);
+    }
+
+    @Test
+    void brakingHasItsOwnCapButTheSameTipLimit() {
+        TipLimiter limiter = new TipLimiter(HALF_WHEELBASE, HALF_TRACK, 0.5, NO_CAP, NO_CAP);
+        limiter.update(0, 0);
+        assertEquals(0.5, limiter.getMaxAcceleration(), 1e-9);
+        double stowedDeceleration = limiter.getMaxDeceleration();
+        assertTrue(stowedDeceleration > 0.5);
+
+        limiter.update(90, 20);
+        assertTrue(limiter.getMaxDeceleration() < stowedDeceleration);
+    }
+
+    @Test
+    void centerOfGravityPastTheWheelsStopsTheRobot() {
+        // wheels almost under the frame center, arm straight out
+        TipLimiter limiter = new TipLimiter(0.01, HALF_TRACK, NO_CAP, NO_CAP);
+        limiter.update(90, 20);
+        assertEquals(0, limiter.getMaxAcceleration(), 1e-9);
+        assertEquals(0, limiter.getMaxVelocity(), 1e-9);
+    }
+
+    @Test
+    void cogNeverDropsBelowTheChassis() {
+        TipLimiter limiter = new TipLimiter(HALF_WHEELBASE, HALF_TRACK, NO_CAP, NO_CAP);
+        for (double arm = 0; arm <= 180; arm += 15) {
+            limiter.update(arm, 20);
+            assertTrue(limiter.getCogHeight() >= TIP_LIMITER.BASE_COG_HEIGHT);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package frc.robot.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RelayTunerTest {
+    private static final double DT = 0.001; // s, the CTRE loop rate
+    private static final double SETPOINT = 45;
+    private static final double AMPLITUDE = 0.3; // relay output
+    private static final double HYSTERESIS = 0.05;
+
+    /**
+     * Feed the tuner a sine around the setpoint, the steady oscillation a relay drives a
+     * mechanism into, until it's done.
+     */
+    private static RelayTuner tuneSine(double oscillation, double period) {
+        RelayTuner tuner = new RelayTuner(SETPOINT, 0, AMPLITUDE, HYSTERESIS, 10 * oscillation);
+        for (double t = 0; t < 100 * period && !tuner.isDone(); t += DT) {
+            tuner.update(SETPOINT + oscillation * Math.sin(2 * Math.PI * t / period), t);
+        }
+        return tuner;
+    }
+
+    @Test
+    void measuresUltimateGainAndPeriod() {
+        RelayTuner tuner = tuneSine(2, 0.5);
+
+        assertTrue(tuner.isDone());
+        assertFalse(tuner.isAborted());
+        assertEquals(0.5, tuner.getUltimatePeriod(), 2 * DT);
+        // describing function of an ideal relay: Ku = 4d / (pi a)
+        assertEquals(4 * AMPLITUDE / (Math.PI * 2), tuner.getUltimateGain(), 1e-4);
+    }
+
+    @Test
+    void noOvershootRuleGains() {
+        RelayTuner tuner = tuneSine(2, 0.5);
+
+        // Ziegler-Nichols "no overshoot": P = 0.2 Ku, D = P * Tu / 3
+        assertEquals(0.2 * tuner.getUltimateGain(), tuner.getP(), 1e-12);
+        assertEquals(tuner.getP() * tuner.getUltimatePeriod() / 3, tuner.getD(), 1e-12);
+    }
+
+    @Test
+    void symmetricOscillationKeepsTheBias() {
+        RelayTuner tuner = tuneSine(2, 0.5);
+        assertEquals(0, tuner.getBias(), 0.01);
+    }
+
+    @Test
+    void relayPushesTowardTheSetpoint() {
+        RelayTuner below = new RelayTuner(SETPOINT, 0.1, AMPLITUDE, HYSTERESIS, 10);
+        assertEquals(0.1 + AMPLITUDE, below.update(SETPOINT - 1, 0), 1e-12);
+
+        RelayTuner above = new RelayTuner(SETPOINT, 0.1, AMPLITUDE, HYSTERESIS, 10);
+        assertEquals(0.1 - AMPLITUDE, above.update(SETPOINT + 1, 0), 1e-12);
+    }
+
+    @Test
+    void abortsPastMaxExcursion() {
+        RelayTuner tuner = new RelayTuner(SETPOINT, 0, AMPLITUDE, HYSTERESIS, 5);
+        tuner.update(SETPOINT, 0);
+        assertEquals(0, tuner.update(SETPOINT + 6, DT), 1e-12);
+        assertTrue(tuner.isAborted());
+        assertFalse(tuner.isDone());
+        assertEquals(0, tuner.update(SETPOINT, 2 * DT), 1e-12);
+    }
+}
@@ -0,0 +1,136 @@
+package frc.robot.tools;
+
+import java.util.Random;
+
+import frc.robot.auton.BalanceController;
+
+/**
+ * Desktop time-to-level comparison of BalanceController against the P controller on roll it
+ * replaced (the deleted SwerveOnGyro command: 0.12/14 of full stick per degree).
+ *
+ * The charge station is a platform on a center pivot, tilting up to +/-15 degrees, with inertia,
+ * viscous damping and some friction in the hinge. The robot is a point mass on it that follows
+ * its commanded speed through an acceleration limit and a first-order lag (module velocity
+ * loops). The gyro reads the platform angle/rate with a little noise while the robot is on it.
+ * "Level" is the field's rule: within 2.5 degrees, for the controller's hold time / 0.5 s.
+ *
+ * Run with: ./gradlew runTool -Ptool=BalanceSimulation
+ */
+public class BalanceSimulation {
+    private static final double DT = 0.02;
+    private static final double TIMEOUT = 15.0; // s
+
+    private static final double ROBOT_MASS = 57.0; // kg
+    private static final double GRAVITY = 9.81;
+    private static final double MAX_SPEED = 4.0; // m/s, SWERVE.MAX_DIRECTION_SPEED
+    private static final double MAX_ACCELERATION = 3.0; // m/s^2, SWERVE.MAX_ACCELERATION
+    private static final double MODULE_LAG_SECONDS = 0.05;
+
+    // charge station: 73.8" with ramps, tilt stops at 15 degrees
+    private static final double STATION_HALF_LENGTH = 0.94; // m
+    private static final double MAX_TILT = Math.toRadians(15);
+    private static final double STATION_INERTIA = 25.0; // kg m^2
+    private static final double STATION_DAMPING = 30.0; // N m s / rad
+    private static final double HINGE_FRICTION = 60.0; // N m
+    private static final double GYRO_NOISE = 0.5; // degrees/s
+
+    private static final double OLD_GAIN = 0.12 / 14 * MAX_SPEED; // m/s per degree
+    private static final double LEVEL_TOLERANCE = 2.5;
+    private static final double OLD_HOLD_TIME = 0.5;
+
+    public static void main(String... args) {
+        // start position along the station (m from the pivot, robot facing +), station tilt (+ = far end up)
+        run("from the floor", -1.6, 15, 1);
+        run("on the near ramp", -0.7, 15, 0);
+        run("past the center", 0.3, -15, 0);
+        run("on the far ramp", 0.7, -15, 0);
+    }
+
+    private static void run(String name, double start, double tiltDegrees, double approachDirection) {
+        BalanceController controller = new BalanceController();
+        controller.reset(approachDirection);
+        double fast = simulate(start, tiltDegrees, (tilt, rate, cross, time) -> {
+            controller.update(tilt, rate, cross, DT);
+            return controller.getVx();
+        }, (time, tilt) -> controller.isBalanced());
+
+        double[] levelSince = {-1};
+        double old = approachDirection != 0 ? Double.NaN : simulate(start, tiltDegrees,
+            (tilt, rate, cross, time) -> -OLD_GAIN * tilt,
+            (time, tilt) -> {
+                if (Math.abs(tilt) >= LEVEL_TOLERANCE) {
+                    levelSince[0] = -1;
+                } else if (levelSince[0] < 0) {
+                    levelSince[0] = time;
+                }
+                return levelSince[0] >= 0 && time - levelSince[0] >= OLD_HOLD_TIME;
+            });
+
+        System.out.printf("%-18s BalanceController %s   SwerveOnGyro %s%n", name, format(fast),
+            approachDirection != 0 ? "n/a (doesn't drive on flat ground)" : format(old));
+    }
+
+    private static String format(double seconds) {
+        return Double.isInfinite(seconds) ? String.format("not level in %.0f s", TIMEOUT)
+            : String.format("level in %5.2f s", seconds);
+    }
+
+    private interface Controller {
+        double vx(double tilt, double tiltRate, double crossRate, double time);
+    }
+
+    private interface Done {
+        boolean test(double time, double tilt);
+    }
+
+    /** @return seconds until done, or infinity */
+    private static double simulate(double start, double tiltDegrees, Controller controller, Done done) {
+        Random noise = new Random(2023);
+        double position = start;
+        double velocity = 0;
+        double commanded = 0;
+        double angle = Math.toRadians(tiltDegrees);
+        double angularVelocity = 0;
+        double lag = DT / (MODULE_LAG_SECONDS + DT);
+
+        for (double time = 0; time < TIMEOUT; time += DT) {
+            boolean onStation = Math.abs(position) < STATION_HALF_LENGTH;
+            // robot facing +: far end up = nose up = negative roll in the robot's convention
+            double tilt = onStation ? -Math.toDegrees(angle) : 0;
+            double tiltRate = (onStation ? -Math.toDegrees(angularVelocity) : 0) + noise.nextGaussian() * GYRO_NOISE;
+            double crossRate = noise.nextGaussian() * GYRO_NOISE;
+            if (done.test(time, tilt)) {
+                return time;
+            }
+
+            double request = Math.max(-MAX_SPEED, Math.min(MAX_SPEED, controller.vx(tilt, tiltRate, crossRate, time)));
+            double step = MAX_ACCELERATION * DT;
+            commanded += Math.max(-step, Math.min(step, request - commanded));
+            velocity += (commanded - velocity) * lag;
+            // on the slope the wheels roll along it
+            position += velocity * (onStation ? Math.cos(angle) : 1) * DT;
+
+            // robot weight on the near (-) side raises the far end
+            double torque = onStation ? -ROBOT_MASS * GRAVITY * position * Math.cos(angle) : 0;
+            torque -= STATION_DAMPING * angularVelocity;
+            if (angularVelocity == 0 && Math.abs(torque) <= HINGE_FRICTION) {
+                torque = 0;
+            } else {
+                torque -= Math.copySign(HINGE_FRICTION, angularVelocity != 0 ? angularVelocity : torque);
+            }
+            double newAngularVelocity = angularVelocity + torque / STATION_INERTIA * DT;
+            // friction can stop it, not reverse it
+            if (angularVelocity != 0 && Math.signum(newAngularVelocity) != Math.signum(angularVelocity)
+                    && Math.abs(torque + Math.copySign(HINGE_FRICTION, angularVelocity)) <= HINGE_FRICTION) {
+                newAngularVelocity = 0;
+            }
+            angularVelocity = newAngularVelocity;
+            angle += angularVelocity * DT;
+            if (Math.abs(angle) >= MAX_TILT) {
+                angle = Math.copySign(MAX_TILT, angle);
+                angularVelocity = 0;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
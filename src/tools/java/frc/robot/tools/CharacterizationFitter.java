@@ -0,0 +1,254 @@
+package frc.robot.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import frc.robot.util.DeployedConstants;
+
+/**
+ * Fits feedforward gains to the logs CharacterizationRoutine writes.
+ *
+ * For every mechanism under "/sysid/" in the .wpilog, all four tests are pooled and
+ *   V = kS * sgn(v) + kV * v + kA * a [+ kG or + kG * cos(position)]
+ * is solved by least squares, with the acceleration a taken from central differences of the
+ * logged velocity. Samples that are barely moving are dropped (static friction isn't
+ * linear there). Prints the gains with r^2 and the RMS voltage error of the fit, and writes them
+ * as "<mechanism>.kS" etc. to src/main/deploy/feedforward.properties (or the file given), keeping
+ * mechanisms this log doesn't have. The robot loads that file, see DeployedConstants.FEEDFORWARD.
+ *
+ * Run with: ./gradlew runTool -Ptool=CharacterizationFitter -PtoolArgs="<file.wpilog> [output]"
+ */
+public class CharacterizationFitter {
+    private static final String PREFIX = "/sysid/";
+    // ignore samples slower than this fraction of the fastest one
+    private static final double MIN_VELOCITY_FRACTION = 0.02;
+    // in the order of the fit's terms
+    private static final String[] GAIN_NAMES = {"kS", "kV", "kA", "kG"};
+
+    /** One test's samples, in log order. */
+    private static class Test {
+        final String gravity;
+        final String units;
+        final List<double[]> samples = new ArrayList<>(); // {time (s), volts, position, velocity}
+
+        Test(String metadata) {
+            Map<String, String> fields = new HashMap<>();
+            for (String field : metadata.split(";")) {
+                String[] pair = field.split("=", 2);
+                if (pair.length == 2) {
+                    fields.put(pair[0], pair[1]);
+                }
+            }
+            gravity = fields.getOrDefault("gravity", "NONE");
+            units = fields.getOrDefault("units", "units");
+        }
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("usage: ./gradlew runTool -Ptool=CharacterizationFitter -PtoolArgs=\"<file.wpilog> [output]\"");
+            System.exit(1);
+        }
+        Path output = args.length > 1 ? Paths.get(args[1]) : Paths.get("src", "main", "deploy", DeployedConstants.FEEDFORWARD);
+        // mechanism -> test -> samples
+        Map<String, Map<String, Test>> mechanisms = readLog(args[0]);
+        if (mechanisms.isEmpty()) {
+            System.out.println("no " + PREFIX + " entries in " + args[0]);
+            return;
+        }
+        Properties gains = DeployedConstants.read(output);
+        int fitted = 0;
+        for (Map.Entry<String, Map<String, Test>> mechanism : mechanisms.entrySet()) {
+            if (fit(mechanism.getKey(), mechanism.getValue(), gains)) {
+                fitted++;
+            }
+        }
+        if (fitted == 0) {
+            System.out.println("nothing fitted; " + output + " not changed");
+            return;
+        }
+        DeployedConstants.write(output, gains, "CharacterizationFitter " + LocalDate.now() + ": "
+            + Paths.get(args[0]).getFileName());
+        System.out.println(fitted + " mechanism(s) -> " + output);
+    }
+
+    private static Map<String, Map<String, Test>> readLog(String path) throws IOException {
+        DataLogReader reader = new DataLogReader(path);
+        if (!reader.isValid()) {
+            throw new IOException(path + " is not a wpilog file");
+        }
+        Map<Integer, Test> entries = new HashMap<>();
+        Map<String, Map<String, Test>> mechanisms = new TreeMap<>();
+
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                if (!start.name.startsWith(PREFIX) || !start.type.equals("double[]")) {
+                    continue;
+                }
+                String[] parts = start.name.substring(PREFIX.length()).split("/", 2);
+                if (parts.length != 2) {
+                    continue;
+                }
+                // a test that was run again replaces the earlier attempt
+                Test test = new Test(start.metadata);
+                mechanisms.computeIfAbsent(parts[0], k -> new TreeMap<>()).put(parts[1], test);
+                entries.put(start.entry, test);
+            } else if (!record.isControl()) {
+                Test test = entries.get(record.getEntry());
+                if (test == null) {
+                    continue;
+                }
+                double[] value = record.getDoubleArray();
+                if (value.length >= 3) {
+                    test.samples.add(new double[] {record.getTimestamp() / 1e6, value[0], value[1], value[2]});
+                }
+            }
+        }
+        return mechanisms;
+    }
+
+    /** Print the fit and put it in gains. @return false if there was nothing to fit */
+    private static boolean fit(String name, Map<String, Test> tests, Properties gains) {
+        Test first = tests.values().iterator().next();
+        boolean cosine = first.gravity.equals("COSINE");
+        boolean constant = first.gravity.equals("CONSTANT");
+        int terms = cosine || constant ? 4 : 3;
+
+        double maxVelocity = 0;
+        for (Test test : tests.values()) {
+            for (double[] sample : test.samples) {
+                maxVelocity = Math.max(maxVelocity, Math.abs(sample[3]));
+            }
+        }
+        double minVelocity = maxVelocity * MIN_VELOCITY_FRACTION;
+
+        // normal equations X'X b = X'y, accumulated a row at a time
+        double[][] xtx = new double[terms][terms];
+        double[] xty = new double[terms];
+        double[] row = new double[terms];
+        List<double[]> rows = new ArrayList<>();
+        for (Test test : tests.values()) {
+            List<double[]> samples = test.samples;
+            for (int i = 1; i < samples.size() - 1; i++) {
+                double[] previous = samples.get(i - 1), sample = samples.get(i), next = samples.get(i + 1);
+                double dt = next[0] - previous[0];
+                if (dt <= 0 || Math.abs(sample[3]) < minVelocity) {
+                    continue;
+                }
+                row[0] = Math.signum(sample[3]);
+                row[1] = sample[3];
+                row[2] = (next[3] - previous[3]) / dt;
+                if (cosine) {
+                    row[3] = Math.cos(sample[2]);
+                } else if (constant) {
+                    row[3] = 1;
+                }
+                for (int j = 0; j < terms; j++) {
+                    for (int k = 0; k < terms; k++) {
+                        xtx[j][k] += row[j] * row[k];
+                    }
+                    xty[j] += row[j] * sample[1];
+                }
+                double[] kept = new double[terms + 1];
+                System.arraycopy(row, 0, kept, 0, terms);
+                kept[terms] = sample[1];
+                rows.add(kept);
+            }
+        }
+
+        System.out.printf("%s (%s; tests: %s)%n", name, first.units, String.join(", ", tests.keySet()));
+        if (rows.size() <= terms) {
+            System.out.printf("  not enough moving samples (%d)%n%n", rows.size());
+            return false;
+        }
+        double[] fit = solve(xtx, xty);
+        if (fit == null) {
+            System.out.printf("  can't separate the terms; run both directions and both test types%n%n");
+            return false;
+        }
+
+        double mean = 0;
+        for (double[] r : rows) {
+            mean += r[terms];
+        }
+        mean /= rows.size();
+        double residual = 0, total = 0;
+        for (double[] r : rows) {
+            double predicted = 0;
+            for (int j = 0; j < terms; j++) {
+                predicted += fit[j] * r[j];
+            }
+            residual += (r[terms] - predicted) * (r[terms] - predicted);
+            total += (r[terms] - mean) * (r[terms] - mean);
+        }
+
+        System.out.printf("  kS = %.4f V%n", fit[0]);
+        System.out.printf("  kV = %.4f V per %s/s%n", fit[1], first.units);
+        System.out.printf("  kA = %.4f V per %s/s^2%n", fit[2], first.units);
+        if (terms == 4) {
+            System.out.printf("  kG = %.4f V%s%n", fit[3], cosine ? " (at horizontal)" : "");
+        }
+        System.out.printf("  r^2 = %.4f, RMSE = %.3f V over %d samples%n",
+            total > 0 ? 1 - residual / total : 0, Math.sqrt(residual / rows.size()), rows.size());
+        // what a motor controller's velocity feedforward wants, in duty cycle
+        System.out.printf("  kV / 12 V = %.5f duty cycle per %s/s%n%n", fit[1] / 12, first.units);
+
+        // replaces the mechanism's previous fit, kG included
+        gains.remove(name + ".kG");
+        for (int j = 0; j < terms; j++) {
+            gains.setProperty(name + "." + GAIN_NAMES[j], String.format(Locale.ROOT, "%.5f", fit[j]));
+        }
+        return true;
+    }
+
+    /** Gaussian elimination with partial pivoting; null if singular. */
+    private static double[] solve(double[][] a, double[] b) {
+        int n = b.length;
+        double[][] m = new double[n][n + 1];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(a[i], 0, m[i], 0, n);
+            m[i][n] = b[i];
+        }
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int i = col + 1; i < n; i++) {
+                if (Math.abs(m[i][col]) > Math.abs(m[pivot][col])) {
+                    pivot = i;
+                }
+            }
+            if (Math.abs(m[pivot][col]) < 1e-12) {
+                return null;
+            }
+            double[] swap = m[col];
+            m[col] = m[pivot];
+            m[pivot] = swap;
+            for (int i = col + 1; i < n; i++) {
+                double factor = m[i][col] / m[col][col];
+                for (int j = col; j <= n; j++) {
+                    m[i][j] -= factor * m[col][j];
+                }
+            }
+        }
+        double[] x = new double[n];
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = m[i][n];
+            for (int j = i + 1; j < n; j++) {
+                sum -= m[i][j] * x[j];
+            }
+            x[i] = sum / m[i][i];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,143 @@
+package frc.robot.tools;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.util.Units;
+import frc.robot.subsystems.drivetrain.SwervePoseEstimator;
+
+/**
+ * Desktop benchmark: WPILib SwerveDrivePoseEstimator vs our SwervePoseEstimator.
+ *
+ * Drives a simulated robot around a circle with odometry at 50 Hz and a vision
+ * measurement every 5th loop (10 Hz, 50 ms latency), and reports time and heap
+ * allocation per loop for each estimator plus how far apart their poses end up.
+ *
+ * Run with: ./gradlew runTool -Ptool=PoseEstimatorBenchmark
+ */
+public class PoseEstimatorBenchmark {
+    private static final double DT = 0.02;
+    private static final int VISION_EVERY = 5;
+    private static final double VISION_LATENCY = 0.05;
+    private static final int WARMUP_LOOPS = 50_000;
+    private static final int MEASURED_LOOPS = 200_000;
+
+    private static final double HALF_WHEELBASE = Units.inchesToMeters(27) / 2;
+    private static final Translation2d[] MODULES = {
+        new Translation2d(HALF_WHEELBASE, HALF_WHEELBASE),
+        new Translation2d(HALF_WHEELBASE, -HALF_WHEELBASE),
+        new Translation2d(-HALF_WHEELBASE, HALF_WHEELBASE),
+        new Translation2d(-HALF_WHEELBASE, -HALF_WHEELBASE)
+    };
+
+    public static void main(String... args) {
+        Result wpilib = run(true, WARMUP_LOOPS);
+        Result ours = run(false, WARMUP_LOOPS);
+        wpilib = run(true, MEASURED_LOOPS);
+        ours = run(false, MEASURED_LOOPS);
+
+        System.out.printf("%-26s %10s %14s%n", "estimator", "ns/loop", "bytes/loop");
+        System.out.printf("%-26s %10.0f %14.1f%n", "SwerveDrivePoseEstimator", wpilib.nanosPerLoop, wpilib.bytesPerLoop);
+        System.out.printf("%-26s %10.0f %14.1f%n", "SwervePoseEstimator", ours.nanosPerLoop, ours.bytesPerLoop);
+        System.out.printf("speedup %.1fx, final pose difference %.4f m%n",
+            wpilib.nanosPerLoop / ours.nanosPerLoop,
+            wpilib.finalPose.getTranslation().getDistance(ours.finalPose.getTranslation()));
+    }
+
+    private static Result run(boolean useWpilib, int loops) {
+        Random random = new Random(1089);
+        SwerveModulePosition[] positions = new SwerveModulePosition[MODULES.length];
+        double[] distances = new double[MODULES.length];
+        double[] angles = new double[MODULES.length];
+        for (int i = 0; i < MODULES.length; i++) {
+            positions[i] = new SwerveModulePosition();
+        }
+
+        SwerveDrivePoseEstimator wpilib = new SwerveDrivePoseEstimator(
+            new SwerveDriveKinematics(MODULES), new Rotation2d(), positions, new Pose2d());
+        SwervePoseEstimator ours = new SwervePoseEstimator(MODULES, new Rotation2d(), positions, new Pose2d());
+
+        // pre-build the vision poses so their allocation isn't charged to either estimator
+        int visionCount = loops / VISION_EVERY + 1;
+        Pose2d[] visionPoses = new Pose2d[visionCount];
+
+        // robot drives a 2 m radius circle at 2 m/s while spinning
+        double speed = 2.0, radius = 2.0, spin = 1.0;
+        double[] truthX = new double[loops];
+        double[] truthY = new double[loops];
+        double[] truthTheta = new double[loops];
+        for (int k = 0; k < loops; k++) {
+            double t = k * DT;
+            truthX[k] = radius * Math.cos(speed / radius * t);
+            truthY[k] = radius * Math.sin(speed / radius * t);
+            truthTheta[k] = spin * t;
+        }
+        for (int v = 0; v < visionCount; v++) {
+            int k = Math.max(0, v * VISION_EVERY - (int) (VISION_LATENCY / DT));
+            k = Math.min(k, loops - 1);
+            visionPoses[v] = new Pose2d(truthX[k] + random.nextGaussian() * 0.05,
+                truthY[k] + random.nextGaussian() * 0.05, new Rotation2d(truthTheta[k]));
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+
+        for (int k = 1; k < loops; k++) {
+            double t = k * DT;
+            double theta = truthTheta[k];
+            double dx = truthX[k] - truthX[k - 1];
+            double dy = truthY[k] - truthY[k - 1];
+            // field motion into robot frame, same for every module (spin is handled by the gyro)
+            double cos = Math.cos(-theta);
+            double sin = Math.sin(-theta);
+            double robotDx = dx * cos - dy * sin;
+            double robotDy = dx * sin + dy * cos;
+            double moduleAngle = Math.atan2(robotDy, robotDx);
+            double step = Math.hypot(robotDx, robotDy);
+            for (int i = 0; i < MODULES.length; i++) {
+                distances[i] += step;
+                angles[i] = moduleAngle;
+            }
+
+            if (useWpilib) {
+                for (int i = 0; i < MODULES.length; i++) {
+                    positions[i] = new SwerveModulePosition(distances[i], new Rotation2d(angles[i]));
+                }
+                wpilib.updateWithTime(t, new Rotation2d(theta), positions);
+            } else {
+                ours.update(t, theta, distances, angles);
+            }
+
+            if (k % VISION_EVERY == 0) {
+                Pose2d vision = visionPoses[k / VISION_EVERY];
+                if (useWpilib) {
+                    wpilib.addVisionMeasurement(vision, t - VISION_LATENCY);
+                } else {
+                    ours.addVisionMeasurement(vision, t - VISION_LATENCY);
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - startBytes;
+        Result result = new Result();
+        result.nanosPerLoop = (double) elapsed / loops;
+        result.bytesPerLoop = (double) bytes / loops;
+        result.finalPose = useWpilib ? wpilib.getEstimatedPosition() : ours.getEstimatedPosition();
+        return result;
+    }
+
+    private static class Result {
+        double nanosPerLoop;
+        double bytesPerLoop;
+        Pose2d finalPose;
+    }
+}
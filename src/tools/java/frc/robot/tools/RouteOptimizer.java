@@ -0,0 +1,375 @@
+package frc.robot.tools;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPoint;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import frc.robot.Constants.SWERVE;
+import frc.robot.auton.FieldNavGraph;
+import frc.robot.auton.HolonomicFollower;
+import frc.robot.auton.KnownLocations;
+import frc.robot.auton.SampledTrajectory;
+import frc.robot.auton.TrajectoryConstraints;
+import frc.robot.auton.TrajectoryConstraints.Superstructure;
+import frc.robot.subsystems.drivetrain.SwerveSetpointGenerator;
+import frc.robot.util.DeployedConstants;
+
+/**
+ * Desktop search for the fastest auton route settings.
+ *
+ * For every auton route it tries each combination of global limits (max velocity and
+ * acceleration, with the usual field zones - see TrajectoryConstraints.forField), waypoint placement (the nav graph route shifted sideways) and start/end
+ * heading, and drives each candidate through a simulation of our follower: the same
+ * HolonomicFollower gains and SwerveSetpointGenerator limits as the robot, plus a first-order
+ * lag for the module velocity loops. A candidate is feasible if
+ *  - the reference acceleration (including centripetal) stays within traction
+ *  - the simulated robot stays within MAX_TRACKING_ERROR of the reference and ends within
+ *    FINAL_TOLERANCE of the goal
+ *  - the simulated robot never enters an obstacle
+ * The fastest feasible candidate per route is printed. Candidates are evaluated in parallel with
+ * fork-join.
+ *
+ * The robot runs every auton with one set of limits and the planned waypoints and headings
+ * (TrajectoryConstraints.autonDefaults()). So it also finds the limits that are feasible for
+ * every route as planned, with the least total time, and writes them to
+ * src/main/deploy/auton_limits.properties for the robot to load. Nothing is written if no limits
+ * work for every route.
+ *
+ * Run with: ./gradlew runTool -Ptool=RouteOptimizer
+ */
+public class RouteOptimizer {
+    private static final double DT = 0.02;
+    private static final double MODULE_LAG_SECONDS = 0.05;
+    // ESTIMATE: tread on carpet, not measured. Push the robot sideways with a force gauge
+    // (friction coefficient = force / weight) before trusting it.
+    private static final double FRICTION_COEFFICIENT = 1.0;
+    private static final double TRACTION_LIMIT = FRICTION_COEFFICIENT * 9.81; // m/s^2
+    private static final double MAX_TRACKING_ERROR = 0.10; // m
+    private static final double FINAL_TOLERANCE = 0.05; // m
+    private static final double MAX_HEADING_ERROR = Math.toRadians(5);
+    private static final double SETTLE_SECONDS = 0.5;
+    private static final int CANDIDATES_PER_TASK = 16;
+
+    // same as Autons
+    private static final double X_P_VAL = 1, Y_P_VAL = 1, TURNING_P_VAL = 1;
+
+    private static final double[] VELOCITIES = range(1.5, SWERVE.MAX_DIRECTION_SPEED, 0.5);
+    private static final double[] ACCELERATIONS = range(1.0, SWERVE.MAX_ACCELERATION, 0.5);
+    private static final double[] WAYPOINT_OFFSETS = {0, 0.15, -0.15, 0.3, -0.3}; // m, sideways
+    private static final double[] HEADING_OFFSETS = {0, 15, -15, 30, -30}; // degrees
+
+    private static final double HALF_WHEELBASE = Units.inchesToMeters(27) / 2;
+    private static final Translation2d[] MODULES = {
+        new Translation2d(HALF_WHEELBASE, HALF_WHEELBASE),
+        new Translation2d(HALF_WHEELBASE, -HALF_WHEELBASE),
+        new Translation2d(-HALF_WHEELBASE, HALF_WHEELBASE),
+        new Translation2d(-HALF_WHEELBASE, -HALF_WHEELBASE)
+    };
+
+    private static FieldNavGraph navGraph;
+
+    public static void main(String... args) throws IOException {
+        navGraph = new FieldNavGraph();
+        // red routes are the blue ones mirrored, so optimizing blue is enough
+        KnownLocations locations = new KnownLocations(Alliance.Blue);
+
+        List<Route> routes = new ArrayList<Route>();
+        routes.add(new Route("top leave", locations.START_TOPMOST, locations.ELEMENT1, true));
+        routes.add(new Route("top return", locations.ELEMENT1, locations.START_TOP_SECOND, true));
+        routes.add(new Route("bottom leave", locations.START_BOTTOMMOST, locations.ELEMENT4, true));
+        routes.add(new Route("bottom return", locations.ELEMENT4, locations.START_BOTTOM_SECOND, true));
+        routes.add(new Route("charge", locations.ELEMENT2, locations.CHARGING_CENTER, false,
+            locations.WAYPOINT_CHARGING.position));
+
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        System.out.printf("%d threads, %d candidates per route%n", pool.getParallelism(),
+            VELOCITIES.length * ACCELERATIONS.length * WAYPOINT_OFFSETS.length * HEADING_OFFSETS.length * HEADING_OFFSETS.length);
+
+        for (Route route : routes) {
+            long start = System.nanoTime();
+            Result best = pool.invoke(new Search(route, 0, route.numCandidates()));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            if (best == null) {
+                System.out.printf("%-14s no feasible candidate (%.1f s)%n", route.name, seconds);
+                continue;
+            }
+            System.out.printf("%-14s %.2f s  maxVel=%.1f maxAccel=%.1f waypointOffset=%+.2f m "
+                    + "startHeading=%+.0f endHeading=%+.0f deg  maxError=%.3f m  peakAccel=%.2f m/s^2  (%.1f s)%n",
+                route.name, best.time, best.velocity, best.acceleration, best.waypointOffset,
+                best.startHeadingOffset, best.endHeadingOffset, best.maxError, best.peakAcceleration, seconds);
+        }
+
+        writeSharedLimits(routes);
+    }
+
+    /** The fastest limits that work for every route without waypoint or heading offsets. */
+    private static void writeSharedLimits(List<Route> routes) throws IOException {
+        double bestTotal = Double.POSITIVE_INFINITY, bestVelocity = 0, bestAcceleration = 0;
+        for (int v = 0; v < VELOCITIES.length; v++) {
+            for (int a = 0; a < ACCELERATIONS.length; a++) {
+                // offsets are the low digits of the candidate index, and index 0 is no offset
+                int candidate = (v * ACCELERATIONS.length + a)
+                    * WAYPOINT_OFFSETS.length * HEADING_OFFSETS.length * HEADING_OFFSETS.length;
+                double total = 0;
+                for (Route route : routes) {
+                    Result result = evaluate(route, candidate);
+                    if (result == null) {
+                        total = Double.POSITIVE_INFINITY;
+                        break;
+                    }
+                    total += result.time;
+                }
+                if (total < bestTotal) {
+                    bestTotal = total;
+                    bestVelocity = VELOCITIES[v];
+                    bestAcceleration = ACCELERATIONS[a];
+                }
+            }
+        }
+
+        Path path = Paths.get("src", "main", "deploy", DeployedConstants.AUTON_LIMITS);
+        if (bestTotal == Double.POSITIVE_INFINITY) {
+            System.out.println("no limits are feasible for every route; " + path + " not changed");
+            return;
+        }
+        Properties limits = DeployedConstants.read(path);
+        limits.setProperty("maxVelocity", Double.toString(bestVelocity));
+        limits.setProperty("maxAcceleration", Double.toString(bestAcceleration));
+        DeployedConstants.write(path, limits, String.format(Locale.ROOT,
+            "RouteOptimizer %s: every route feasible, %.2f s in all", LocalDate.now(), bestTotal));
+        System.out.printf("all routes: maxVel=%.1f maxAccel=%.1f, %.2f s in all -> %s%n",
+            bestVelocity, bestAcceleration, bestTotal, path);
+    }
+
+    private static double[] range(double from, double to, double step) {
+        int count = (int) Math.floor((to - from) / step + 1e-9) + 1;
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = from + i * step;
+        }
+        return values;
+    }
+
+    private static class Route {
+        final String name;
+        final PathPoint start, end;
+        final boolean offsetWaypoints;
+        final List<Translation2d> waypoints;
+        // obstacles the start/end are allowed to overlap
+        final long allowedObstacles;
+
+        Route(String name, PathPoint start, PathPoint end, boolean offsetWaypoints, Translation2d... fixedWaypoints) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.offsetWaypoints = offsetWaypoints;
+            this.waypoints = fixedWaypoints.length > 0 ? List.of(fixedWaypoints) : navGraph.plan(start.position, end.position);
+            this.allowedObstacles = navGraph.obstaclesAt(start.position.getX(), start.position.getY())
+                | navGraph.obstaclesAt(end.position.getX(), end.position.getY());
+        }
+
+        int numCandidates() {
+            return VELOCITIES.length * ACCELERATIONS.length * WAYPOINT_OFFSETS.length
+                * HEADING_OFFSETS.length * HEADING_OFFSETS.length;
+        }
+    }
+
+    private static class Result {
+        double time, maxError, peakAcceleration;
+        double velocity, acceleration, waypointOffset, startHeadingOffset, endHeadingOffset;
+    }
+
+    /** Evaluates candidates [from, to) and returns the fastest feasible one (or null). */
+    private static class Search extends RecursiveTask<Result> {
+        private final Route route;
+        private final int from, to;
+
+        Search(Route route, int from, int to) {
+            this.route = route;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Result compute() {
+            if (to - from > CANDIDATES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                Search left = new Search(route, from, middle);
+                left.fork();
+                Result right = new Search(route, middle, to).compute();
+                return faster(left.join(), right);
+            }
+            Result best = null;
+            for (int i = from; i < to; i++) {
+                best = faster(best, evaluate(route, i));
+            }
+            return best;
+        }
+
+        private static Result faster(Result a, Result b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return b.time < a.time ? b : a;
+        }
+    }
+
+    private static Result evaluate(Route route, int candidate) {
+        int index = candidate;
+        double endHeadingOffset = HEADING_OFFSETS[index % HEADING_OFFSETS.length];
+        index /= HEADING_OFFSETS.length;
+        double startHeadingOffset = HEADING_OFFSETS[index % HEADING_OFFSETS.length];
+        index /= HEADING_OFFSETS.length;
+        double waypointOffset = WAYPOINT_OFFSETS[index % WAYPOINT_OFFSETS.length];
+        index /= WAYPOINT_OFFSETS.length;
+        double acceleration = ACCELERATIONS[index % ACCELERATIONS.length];
+        index /= ACCELERATIONS.length;
+        double velocity = VELOCITIES[index];
+
+        if (!route.offsetWaypoints && waypointOffset != 0) {
+            return null;
+        }
+
+        // build the path: start -> (shifted) waypoints -> end
+        List<Translation2d> positions = new ArrayList<Translation2d>();
+        positions.add(route.start.position);
+        for (Translation2d waypoint : route.waypoints) {
+            positions.add(new Translation2d(waypoint.getX(), waypoint.getY() + waypointOffset));
+        }
+        positions.add(route.end.position);
+
+        List<PathPoint> points = new ArrayList<PathPoint>();
+        for (int i = 0; i < positions.size(); i++) {
+            Translation2d point = positions.get(i);
+            Translation2d previous = positions.get(Math.max(i - 1, 0));
+            Translation2d next = positions.get(Math.min(i + 1, positions.size() - 1));
+            if (i == 0) {
+                Rotation2d heading = direction(point, next).plus(Rotation2d.fromDegrees(startHeadingOffset));
+                points.add(new PathPoint(point, heading, route.start.holonomicRotation));
+            } else if (i == positions.size() - 1) {
+                Rotation2d heading = direction(previous, point).plus(Rotation2d.fromDegrees(endHeadingOffset));
+                points.add(new PathPoint(point, heading, route.end.holonomicRotation));
+            } else {
+                points.add(new PathPoint(point, direction(previous, point).interpolate(direction(point, next), 0.5)));
+            }
+        }
+
+        SampledTrajectory trajectory;
+        try {
+            TrajectoryConstraints constraints = TrajectoryConstraints.forField(velocity, acceleration);
+            trajectory = constraints.retime(
+                PathPlanner.generatePath(constraints.getPathConstraints(), points), Superstructure.STOWED, DT);
+        } catch (RuntimeException e) {
+            return null;
+        }
+
+        Result result = simulate(route, trajectory);
+        if (result != null) {
+            result.velocity = velocity;
+            result.acceleration = acceleration;
+            result.waypointOffset = waypointOffset;
+            result.startHeadingOffset = startHeadingOffset;
+            result.endHeadingOffset = endHeadingOffset;
+        }
+        return result;
+    }
+
+    private static Rotation2d direction(Translation2d from, Translation2d to) {
+        return new Rotation2d(to.getX() - from.getX(), to.getY() - from.getY());
+    }
+
+    /** Drive the trajectory in simulation. @return null if infeasible */
+    private static Result simulate(Route route, SampledTrajectory trajectory) {
+        // traction: reference acceleration between samples, centripetal included
+        double peakAcceleration = 0;
+        double previousVx = 0, previousVy = 0;
+        for (int i = 0; i < trajectory.getNumSamples(); i++) {
+            trajectory.sample(i * DT);
+            double ax = (trajectory.getSampleVx() - previousVx) / DT;
+            double ay = (trajectory.getSampleVy() - previousVy) / DT;
+            peakAcceleration = Math.max(peakAcceleration, Math.hypot(ax, ay));
+            previousVx = trajectory.getSampleVx();
+            previousVy = trajectory.getSampleVy();
+        }
+        if (peakAcceleration > TRACTION_LIMIT) {
+            return null;
+        }
+
+        PIDController xController = new PIDController(X_P_VAL, 0, 0);
+        PIDController yController = new PIDController(Y_P_VAL, 0, 0);
+        PIDController turningController = new PIDController(TURNING_P_VAL, 0, 0);
+        turningController.enableContinuousInput(-Math.PI, Math.PI);
+        HolonomicFollower follower = new HolonomicFollower(xController, yController, turningController);
+        SwerveSetpointGenerator generator = new SwerveSetpointGenerator(
+            SWERVE.MAX_DIRECTION_SPEED, SWERVE.MAX_ACCELERATION, SWERVE.MAX_DECELERATION,
+            SWERVE.MAX_ROTATIONAL_ACCELERATION, SWERVE.MAX_STEERING_SPEED, MODULES);
+
+        trajectory.sample(0);
+        double x = trajectory.getSampleX();
+        double y = trajectory.getSampleY();
+        double theta = trajectory.getSampleHeading();
+        double vx = 0, vy = 0, omega = 0; // robot-relative, what the modules are doing
+        double direction = Math.atan2(trajectory.getSampleVy(), trajectory.getSampleVx()) - theta;
+        generator.reset(direction, direction, direction, direction);
+
+        double maxError = 0;
+        double lag = DT / (MODULE_LAG_SECONDS + DT);
+        double endTime = trajectory.getTotalTimeSeconds() + SETTLE_SECONDS;
+        for (double t = 0; t <= endTime; t += DT) {
+            follower.calculate(trajectory, t, x, y, theta);
+            generator.generate(follower.getVx(), follower.getVy(), follower.getOmega(), DT);
+            vx += (generator.getVx() - vx) * lag;
+            vy += (generator.getVy() - vy) * lag;
+            omega += (generator.getOmega() - omega) * lag;
+
+            double heading = theta + omega * DT / 2;
+            double cos = Math.cos(heading);
+            double sin = Math.sin(heading);
+            x += (vx * cos - vy * sin) * DT;
+            y += (vx * sin + vy * cos) * DT;
+            theta = MathUtil.angleModulus(theta + omega * DT);
+
+            if ((navGraph.obstaclesAt(x, y) & ~route.allowedObstacles) != 0) {
+                return null;
+            }
+            trajectory.sample(t + DT);
+            double error = Math.hypot(trajectory.getSampleX() - x, trajectory.getSampleY() - y);
+            maxError = Math.max(maxError, error);
+            if (maxError > MAX_TRACKING_ERROR) {
+                return null;
+            }
+        }
+
+        trajectory.sample(endTime);
+        double finalError = Math.hypot(trajectory.getSampleX() - x, trajectory.getSampleY() - y);
+        double headingError = Math.abs(MathUtil.angleModulus(trajectory.getSampleHeading() - theta));
+        if (finalError > FINAL_TOLERANCE || headingError > MAX_HEADING_ERROR) {
+            return null;
+        }
+
+        Result result = new Result();
+        result.time = trajectory.getTotalTimeSeconds();
+        result.maxError = maxError;
+        result.peakAcceleration = peakAcceleration;
+        return result;
+    }
+}